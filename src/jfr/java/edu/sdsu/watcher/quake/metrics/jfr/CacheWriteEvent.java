@@ -0,0 +1,25 @@
+package edu.sdsu.watcher.quake.metrics.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("edu.sdsu.watcher.quake.CacheWrite")
+@Label("Cache Write")
+@Description("A write to a cache file")
+final class CacheWriteEvent extends PipelineEvent {
+
+	@Label("Path")
+	String path;
+
+	@Label("Mode")
+	@Description("append or create")
+	String mode;
+
+	@Label("Bytes")
+	@Description("The bytes that reached the file, after compression")
+	@DataAmount
+	long bytes;
+
+}
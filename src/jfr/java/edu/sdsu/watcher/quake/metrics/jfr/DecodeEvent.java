@@ -0,0 +1,15 @@
+package edu.sdsu.watcher.quake.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("edu.sdsu.watcher.quake.Decode")
+@Label("Feed Decode")
+@Description("Decoding a feed; when it is decoded as it is downloaded this overlaps the fetch")
+final class DecodeEvent extends PipelineEvent {
+
+	@Label("Features")
+	int features;
+
+}
@@ -0,0 +1,23 @@
+package edu.sdsu.watcher.quake.metrics.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("edu.sdsu.watcher.quake.Fetch")
+@Label("Feed Fetch")
+@Description("A request for a feed, from sending it until the body has been read")
+final class FetchEvent extends PipelineEvent {
+
+	@Label("URL")
+	String url;
+
+	@Label("HTTP Status")
+	int status;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+}
@@ -0,0 +1,18 @@
+package edu.sdsu.watcher.quake.metrics.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("edu.sdsu.watcher.quake.Filter")
+@Label("Feed Filter")
+@Description("Filtering decoded features and converting them into earthquakes")
+final class FilterEvent extends PipelineEvent {
+
+	@Label("Features In")
+	int in;
+
+	@Label("Earthquakes Out")
+	int out;
+
+}
@@ -0,0 +1,170 @@
+package edu.sdsu.watcher.quake.metrics.jfr;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.metrics.Metrics;
+import jdk.jfr.EventType;
+
+/**
+ * <p>Turns the timings of the pipeline into Java Flight Recorder events, so fetches, decodes,
+ * filters and cache writes show up on the same timeline as the GC, I/O and thread events of
+ * the JVM:</p>
+ * <ul>
+ *     <li>{@code edu.sdsu.watcher.quake.Fetch} &ndash; URL, HTTP status and bytes;</li>
+ *     <li>{@code edu.sdsu.watcher.quake.Decode} &ndash; the number of features;</li>
+ *     <li>{@code edu.sdsu.watcher.quake.Filter} &ndash; features in and earthquakes out;</li>
+ *     <li>{@code edu.sdsu.watcher.quake.CacheWrite} &ndash; path, mode and bytes.</li>
+ * </ul>
+ * <p>Each timing is passed on to the metrics that were installed before, so the events can be
+ * recorded on top of, e.g., {@link edu.sdsu.watcher.quake.metrics.JmxMetrics}. While no
+ * recording has an event enabled, {@link #start(Metrics.Stage)} hands out the timing of the
+ * metrics underneath and no event is created.</p>
+ * <p>Sample usage, with the application started with {@code -XX:StartFlightRecording}:</p>
+ * <pre>
+ * JmxMetrics.install();
+ * JfrMetrics.install();
+ * </pre>
+ */
+public final class JfrMetrics implements Metrics {
+
+	private final Metrics delegate;
+	private final Map<Stage, EventType> types = new EnumMap<>(Stage.class);
+
+	/**
+	 * @param delegate the metrics every timing is passed on to, {@link Metrics#NONE} for none.
+	 */
+	public JfrMetrics(final Metrics delegate) {
+		this.delegate = Preconditions.checkNotNull(delegate);
+
+		this.types.put(Stage.FETCH, EventType.getEventType(FetchEvent.class));
+		this.types.put(Stage.DECODE, EventType.getEventType(DecodeEvent.class));
+		this.types.put(Stage.FILTER, EventType.getEventType(FilterEvent.class));
+		this.types.put(Stage.CACHE, EventType.getEventType(CacheWriteEvent.class));
+	}
+
+	/**
+	 * Wraps the metrics that are installed now and installs the events in their place.
+	 * @return the installed metrics.
+	 */
+	public static JfrMetrics install() {
+		final JfrMetrics metrics = new JfrMetrics(Metrics.get());
+		Metrics.set(metrics);
+		return metrics;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		if(this.delegate.isEnabled()) {
+			return true;
+		}
+
+		for(final EventType type : this.types.values()) {
+			if(type.isEnabled()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Timing start(final Stage stage) {
+		final Timing delegated = this.delegate.start(stage);
+		if(!this.types.get(stage).isEnabled()) {
+			return delegated;
+		}
+
+		final PipelineEvent event;
+		switch(stage) {
+			case FETCH:
+				event = new FetchEvent();
+				break;
+			case DECODE:
+				event = new DecodeEvent();
+				break;
+			case FILTER:
+				event = new FilterEvent();
+				break;
+			default:
+				event = new CacheWriteEvent();
+		}
+		event.begin();
+		return new EventTiming(event, delegated);
+	}
+
+	/**
+	 * Fills in and commits the event of one operation.
+	 */
+	private static final class EventTiming implements Timing {
+
+		private final PipelineEvent event;
+		private final Timing delegate;
+
+		private EventTiming(final PipelineEvent event, final Timing delegate) {
+			this.event = event;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void fetched(final String url, final int status, final long bytes) {
+			this.event.end();
+			if(this.event.shouldCommit()) {
+				final FetchEvent fetch = (FetchEvent) this.event;
+				fetch.url = url;
+				fetch.status = status;
+				fetch.bytes = bytes;
+				fetch.commit();
+			}
+			this.delegate.fetched(url, status, bytes);
+		}
+
+		@Override
+		public void decoded(final int features) {
+			this.event.end();
+			if(this.event.shouldCommit()) {
+				((DecodeEvent) this.event).features = features;
+				this.event.commit();
+			}
+			this.delegate.decoded(features);
+		}
+
+		@Override
+		public void filtered(final int in, final int out) {
+			this.event.end();
+			if(this.event.shouldCommit()) {
+				final FilterEvent filter = (FilterEvent) this.event;
+				filter.in = in;
+				filter.out = out;
+				filter.commit();
+			}
+			this.delegate.filtered(in, out);
+		}
+
+		@Override
+		public void cached(final Path path, final boolean append, final long bytes) {
+			this.event.end();
+			if(this.event.shouldCommit()) {
+				final CacheWriteEvent write = (CacheWriteEvent) this.event;
+				write.path = path.toString();
+				write.mode = append ? "append" : "create";
+				write.bytes = bytes;
+				write.commit();
+			}
+			this.delegate.cached(path, append, bytes);
+		}
+
+		@Override
+		public void failed(final Throwable e) {
+			this.event.end();
+			if(this.event.shouldCommit()) {
+				this.event.error = String.valueOf(e);
+				this.event.commit();
+			}
+			this.delegate.failed(e);
+		}
+
+	}
+
+}
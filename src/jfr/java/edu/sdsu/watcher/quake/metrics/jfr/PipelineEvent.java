@@ -0,0 +1,21 @@
+package edu.sdsu.watcher.quake.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * The fields every event of the pipeline has besides the start time, duration and thread
+ * that Flight Recorder adds to each event.
+ */
+@Category({"Quake Watcher", "Pipeline"})
+@StackTrace(false)
+abstract class PipelineEvent extends Event {
+
+	@Label("Error")
+	@Description("Why the operation failed, or null if it completed")
+	String error;
+
+}
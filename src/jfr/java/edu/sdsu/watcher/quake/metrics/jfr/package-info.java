@@ -0,0 +1,6 @@
+/**
+ * <p>Java Flight Recorder events for the stages of the pipeline. Built from its own source
+ * set because the {@code jdk.jfr} API needs Java 11; see
+ * {@link edu.sdsu.watcher.quake.metrics.jfr.JfrMetrics}.</p>
+ */
+package edu.sdsu.watcher.quake.metrics.jfr;
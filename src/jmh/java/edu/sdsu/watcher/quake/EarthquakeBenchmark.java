@@ -0,0 +1,86 @@
+package edu.sdsu.watcher.quake;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+
+/**
+ * <p>Measures {@link Earthquake#hashCode} and {@link Earthquake#equals}, and with them the
+ * methods of {@link Coordinate}, over every quake of a feed. {@code equals} compares each
+ * quake with an equal copy, which is the slow path that walks every field; {@code hashSet}
+ * shows what both cost together when quakes are deduplicated.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EarthquakeBenchmark {
+
+	@Param({"100", "10000", "1000000"})
+	private int features;
+
+	@Param({RecordedFeed.SYNTHETIC, RecordedFeed.RECORDED})
+	private String source;
+
+	private List<Earthquake> quakes, copies;
+
+	@Setup
+	public void setup() throws IOException {
+		this.quakes = new ArrayList<>(this.features);
+		this.copies = new ArrayList<>(this.features);
+		DecodeStream.earthquakes(new StringReader(RecordedFeed.generate(this.source, this.features)), quake -> {
+			final Coordinate coordinate = quake.getCoordinate();
+			this.quakes.add(quake);
+			this.copies.add(new Earthquake(new Coordinate(coordinate.getLongitude(), coordinate.getLatitude(), coordinate.getDepth()),
+					quake.getMagnitude(), new String(quake.getDescription()), new String(quake.getId()), quake.getTime()));
+		});
+	}
+
+	@Benchmark
+	public int hashCodes() {
+		int hash = 0;
+		for(final Earthquake quake : this.quakes) {
+			hash += quake.hashCode();
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public int equals() {
+		int equal = 0;
+		for(int i = 0; i < this.quakes.size(); i++) {
+			if(this.quakes.get(i).equals(this.copies.get(i))) {
+				equal++;
+			}
+		}
+		return equal;
+	}
+
+	@Benchmark
+	public Set<Earthquake> hashSet() {
+		final Set<Earthquake> set = new HashSet<>(this.quakes);
+		set.addAll(this.copies);
+		return set;
+	}
+
+}
@@ -0,0 +1,76 @@
+package edu.sdsu.watcher.quake;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+/**
+ * <p>Measures the filtering and conversion of decoded features into {@link Earthquake}s, on
+ * this thread and on the common pool, with no filter and with a magnitude filter that keeps
+ * roughly one feature in seven. Decoding is done once in the setup and isn't measured.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ProcessFilterBenchmark {
+
+	private static final int THRESHOLD = 2048;
+
+	@Param({"100", "10000", "1000000"})
+	private int features;
+
+	@Param({RecordedFeed.SYNTHETIC, RecordedFeed.RECORDED})
+	private String source;
+
+	private List<QuakeStruct.Features> list;
+	private QuakeFilter magnitude;
+
+	@Setup
+	public void setup() throws IOException {
+		this.list = new ArrayList<>(this.features);
+		DecodeStream.features(new StringReader(RecordedFeed.generate(this.source, this.features)), this.list::add);
+		this.magnitude = new QuakeFilter.Builder().magnitude(6, 10).build();
+	}
+
+	@Benchmark
+	public List<Earthquake> sequential() {
+		return SimpleEarthquake.processFilter(this.list, QuakeFilter.NONE, null, THRESHOLD);
+	}
+
+	@Benchmark
+	public List<Earthquake> parallel() {
+		return SimpleEarthquake.processFilter(this.list, QuakeFilter.NONE, ForkJoinPool.commonPool(), THRESHOLD);
+	}
+
+	@Benchmark
+	public List<Earthquake> sequentialMagnitude() {
+		return SimpleEarthquake.processFilter(this.list, this.magnitude, null, THRESHOLD);
+	}
+
+	@Benchmark
+	public List<Earthquake> parallelMagnitude() {
+		return SimpleEarthquake.processFilter(this.list, this.magnitude, ForkJoinPool.commonPool(), THRESHOLD);
+	}
+
+}
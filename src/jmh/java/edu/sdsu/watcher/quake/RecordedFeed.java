@@ -0,0 +1,98 @@
+package edu.sdsu.watcher.quake;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Builds feeds of any size for the benchmarks out of a feed recorded from usgs.gov, so the
+ * benchmarks also see the real field order, places and nulls. The recorded features are
+ * repeated until the feed is large enough; every copy gets its own id and an earlier time.
+ */
+public final class RecordedFeed {
+
+	/**
+	 * The names of the feed sources, for a benchmark {@code @Param}.
+	 */
+	public static final String SYNTHETIC = "synthetic", RECORDED = "recorded";
+
+	private static final String RESOURCE = "/all_hour.json";
+
+	private RecordedFeed() {}
+
+	/**
+	 * @param source   {@link #SYNTHETIC} or {@link #RECORDED}.
+	 * @param features the number of features in the feed.
+	 * @return a FeatureCollection with the given number of features.
+	 */
+	public static String generate(final String source, final int features) {
+		switch(source) {
+			case SYNTHETIC:
+				return SyntheticFeed.generate(features);
+			case RECORDED:
+				return generate(features);
+			default:
+				throw new IllegalArgumentException("Unknown feed source " + source);
+		}
+	}
+
+	/**
+	 * @param features the number of features in the feed.
+	 * @return a FeatureCollection with the given number of features.
+	 */
+	public static String generate(final int features) {
+		final JsonObject recorded = read();
+		final JsonArray source = recorded.getAsJsonArray("features");
+		final Gson gson = new GsonBuilder().serializeNulls().create();
+
+		final JsonObject metadata = recorded.getAsJsonObject("metadata");
+		metadata.addProperty("count", features);
+
+		final StringBuilder json = new StringBuilder(features * 1024);
+		json.append("{\"type\":\"FeatureCollection\",\"metadata\":").append(gson.toJson(metadata)).append(",\"features\":[");
+
+		for(int i = 0; i < features; i++) {
+			// the copies share the recorded objects, which are re-stamped before each one is written
+			final JsonObject feature = source.get(i % source.size()).getAsJsonObject();
+			final JsonObject properties = feature.getAsJsonObject("properties");
+			final String id = feature.get("id").getAsString();
+			final long time = properties.get("time").getAsLong();
+
+			feature.addProperty("id", id + '-' + i);
+			properties.addProperty("time", time - (i / source.size()) * 60000L);
+
+			if(i > 0) {
+				json.append(',');
+			}
+			json.append(gson.toJson(feature));
+
+			feature.addProperty("id", id);
+			properties.addProperty("time", time);
+		}
+
+		return json.append("],\"bbox\":").append(gson.toJson(recorded.get("bbox"))).append('}').toString();
+	}
+
+	private static JsonObject read() {
+		try(InputStream in = RecordedFeed.class.getResourceAsStream(RESOURCE)) {
+			if(in == null) {
+				throw new IllegalStateException(RESOURCE + " is not on the classpath");
+			}
+			try(Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+				return new JsonParser().parse(reader).getAsJsonObject();
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
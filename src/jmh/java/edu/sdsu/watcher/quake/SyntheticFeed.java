@@ -0,0 +1,82 @@
+package edu.sdsu.watcher.quake;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds usgs.gov shaped GeoJSON feeds of any size for the benchmarks. The values are
+ * random but the generator is seeded, so every run sees the same feed.
+ */
+public final class SyntheticFeed {
+
+	private static final long SEED = 1461399586000L;
+	private static final long START = 1458720000000L;
+	private static final String[] NETS = {"ci", "nc", "ak", "us", "hv", "nn", "uw", "pr"};
+	private static final String[] STATUSES = {"automatic", "reviewed"};
+	private static final String[] ALERTS = {null, null, null, null, null, null, null, "green", "yellow"};
+
+	private SyntheticFeed() {}
+
+	/**
+	 * @param features the number of features in the feed.
+	 * @return a FeatureCollection with the given number of features.
+	 */
+	public static String generate(final int features) {
+		final Random random = new Random(SEED);
+		final StringBuilder json = new StringBuilder(features * 1024);
+
+		json.append("{\"type\":\"FeatureCollection\",\"metadata\":{\"generated\":").append(SEED)
+				.append(",\"url\":\"https://earthquake.usgs.gov/earthquakes/feed/v1.0/summary/all_month.geojson\"")
+				.append(",\"title\":\"USGS All Earthquakes, Past Month\",\"status\":200,\"api\":\"1.5.2\",\"count\":")
+				.append(features).append("},\"features\":[");
+
+		for(int i = 0; i < features; i++) {
+			if(i > 0) {
+				json.append(',');
+			}
+			appendFeature(json, random, i);
+		}
+
+		return json.append("],\"bbox\":[-179.9,-62.1,-3.5,179.9,85.3,656.2]}").toString();
+	}
+
+	private static void appendFeature(final StringBuilder json, final Random random, final int index) {
+		final String net = NETS[random.nextInt(NETS.length)];
+		final String code = String.valueOf(37000000 + index);
+		final String id = net + code;
+		final double mag = Math.round(random.nextDouble() * 700) / 100.0;
+		final long time = START + index * 60000L + random.nextInt(60000);
+		final String alert = ALERTS[random.nextInt(ALERTS.length)];
+		final String place = String.format(Locale.US, "%dkm SSE of Place %d, CA", random.nextInt(100), index % 500);
+
+		json.append("{\"type\":\"Feature\",\"properties\":{\"mag\":").append(mag)
+				.append(",\"place\":\"").append(place).append('"')
+				.append(",\"time\":").append(time)
+				.append(",\"updated\":").append(time + random.nextInt(3600000))
+				.append(",\"tz\":-420")
+				.append(",\"url\":\"https://earthquake.usgs.gov/earthquakes/eventpage/").append(id).append('"')
+				.append(",\"detail\":\"https://earthquake.usgs.gov/earthquakes/feed/v1.0/detail/").append(id).append(".geojson\"")
+				.append(",\"felt\":null,\"cdi\":null,\"mmi\":null")
+				.append(",\"alert\":").append(alert == null ? "null" : '"' + alert + '"')
+				.append(",\"status\":\"").append(STATUSES[random.nextInt(STATUSES.length)]).append('"')
+				.append(",\"tsunami\":").append(random.nextInt(50) == 0 ? 1 : 0)
+				.append(",\"sig\":").append((int) (mag * mag * 10))
+				.append(",\"net\":\"").append(net).append('"')
+				.append(",\"code\":\"").append(code).append('"')
+				.append(",\"ids\":\",").append(id).append(",\"")
+				.append(",\"sources\":\",").append(net).append(",\"")
+				.append(",\"types\":\",general-link,geoserve,nearby-cities,origin,phase-data,scitech-link,\"")
+				.append(",\"nst\":").append(random.nextInt(80))
+				.append(",\"dmin\":").append(Math.round(random.nextDouble() * 100000) / 100000.0)
+				.append(",\"rms\":").append(Math.round(random.nextDouble() * 100) / 100.0)
+				.append(",\"gap\":").append(random.nextInt(360))
+				.append(",\"magType\":\"ml\",\"type\":\"earthquake\"")
+				.append(",\"title\":\"M ").append(String.format(Locale.US, "%.1f", mag)).append(" - ").append(place).append('"')
+				.append("},\"geometry\":{\"type\":\"Point\",\"coordinates\":[")
+				.append(Math.round((random.nextDouble() * 360 - 180) * 10000000) / 10000000.0).append(',')
+				.append(Math.round((random.nextDouble() * 180 - 90) * 10000000) / 10000000.0).append(',')
+				.append(Math.round(random.nextDouble() * 70000) / 100.0)
+				.append("]},\"id\":\"").append(id).append("\"}");
+	}
+
+}
@@ -0,0 +1,78 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.sdsu.watcher.quake.RecordedFeed;
+
+/**
+ * <p>Measures {@link CacheWriter#append} and {@link CacheWriter#create}, plain and gzip
+ * compressed, with a whole feed as the content of every call. Nothing is forced to disk, so
+ * this is the cost of encoding, compressing and handing the bytes to the OS.</p>
+ * <p>Appended files are deleted after every iteration; with the million feature feed each
+ * append still adds about a gigabyte, so leave room in the temporary directory.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CacheWriterBenchmark {
+
+	@Param({"100", "10000", "1000000"})
+	private int features;
+
+	@Param({RecordedFeed.SYNTHETIC, RecordedFeed.RECORDED})
+	private String source;
+
+	@Param({"false", "true"})
+	private boolean compress;
+
+	private String json;
+	private Path directory, file;
+
+	@Setup
+	public void setup() throws IOException {
+		this.json = RecordedFeed.generate(this.source, this.features);
+		this.directory = Files.createTempDirectory("cache");
+		this.file = this.directory.resolve("all_month.json");
+	}
+
+	@Benchmark
+	public void append() throws IOException {
+		CacheWriter.append(this.file, this.json, this.compress);
+	}
+
+	@Benchmark
+	public void create() throws IOException {
+		CacheWriter.create(this.file, this.json, this.compress);
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(this.file);
+	}
+
+	@TearDown
+	public void deleteDirectory() throws IOException {
+		Files.deleteIfExists(this.directory);
+	}
+
+}
@@ -0,0 +1,86 @@
+package edu.sdsu.watcher.quake.factories;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.sdsu.watcher.quake.RecordedFeed;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * <p>Measures {@link DecodeJson#parse} on a feed held in memory and on the same feed read
+ * from disk, plain and gzip compressed. The file is written once per trial, so after the
+ * first iteration it is read from the page cache and the numbers are the decoder's.</p>
+ * <p>The million feature feeds take a few gigabytes of heap, hence {@code -Xmx8g}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DecodeJsonBenchmark {
+
+	@Param({"100", "10000", "1000000"})
+	private int features;
+
+	@Param({RecordedFeed.SYNTHETIC, RecordedFeed.RECORDED})
+	private String source;
+
+	private String json;
+	private File file, compressed;
+
+	@Setup
+	public void setup() throws IOException {
+		this.json = RecordedFeed.generate(this.source, this.features);
+
+		this.file = File.createTempFile("feed", ".json");
+		Files.write(this.file.toPath(), this.json.getBytes(StandardCharsets.UTF_8));
+
+		this.compressed = File.createTempFile("feed", ".json.gz");
+		try(BufferedSink sink = Okio.buffer(new GzipSink(Okio.sink(this.compressed)))) {
+			sink.writeUtf8(this.json);
+		}
+	}
+
+	@Benchmark
+	public QuakeStruct string() throws IOException {
+		return DecodeJson.parse(this.json, QuakeStruct.class);
+	}
+
+	@Benchmark
+	public QuakeStruct file() throws IOException {
+		return DecodeJson.parse(this.file, QuakeStruct.class);
+	}
+
+	@Benchmark
+	public QuakeStruct compressedFile() throws IOException {
+		return DecodeJson.parse(this.compressed, QuakeStruct.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.file.delete();
+		this.compressed.delete();
+	}
+
+}
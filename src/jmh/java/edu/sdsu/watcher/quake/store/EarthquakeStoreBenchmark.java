@@ -0,0 +1,119 @@
+package edu.sdsu.watcher.quake.store;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.SyntheticFeed;
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+
+/**
+ * <p>Compares the heap taken by a list of {@link Earthquake}s with an {@link EarthquakeStore}
+ * holding the same events. Each invocation builds one container of {@value #EVENTS} events
+ * from strings that already exist, so the allocations are the container's own and, with
+ * {@link OperationsPerInvocation}, {@code gc.alloc.rate.norm} reads as bytes per event:</p>
+ * <pre>
+ * ./gradlew jmh -PjmhArgs='EarthquakeStoreBenchmark'
+ * </pre>
+ * <p>Both containers are sized up front, so nothing is allocated that isn't retained.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EarthquakeStoreBenchmark {
+
+	static final int EVENTS = 10000;
+
+	@Param({"10000"})
+	private int features;
+
+	private List<Earthquake> source;
+
+	@Setup
+	public void setup() throws IOException {
+		this.source = new ArrayList<>(this.features);
+		DecodeStream.earthquakes(new StringReader(SyntheticFeed.generate(this.features)), this.source::add);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public List<Earthquake> objects() {
+		final List<Earthquake> quakes = new ArrayList<>(EVENTS);
+		for(int i = 0; i < EVENTS; i++) {
+			final Earthquake quake = this.source.get(i % this.source.size());
+			final Coordinate coordinate = quake.getCoordinate();
+			quakes.add(new Earthquake(new Coordinate(coordinate.getLongitude(), coordinate.getLatitude(), coordinate.getDepth()),
+					quake.getMagnitude(), quake.getDescription(), quake.getId(), quake.getTime()));
+		}
+		return quakes;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public EarthquakeStore columnar() {
+		final EarthquakeStore store = new EarthquakeStore(EVENTS);
+		for(int i = 0; i < EVENTS; i++) {
+			store.add(this.source.get(i % this.source.size()));
+		}
+		return store;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public double scanObjects(final Filled filled) {
+		double total = 0;
+		for(final Earthquake quake : filled.objects) {
+			total += quake.getMagnitude();
+		}
+		return total;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public double scanColumnar(final Filled filled) {
+		final EarthquakeStore.View view = filled.store.view();
+		double total = 0;
+		for(int i = 0; i < filled.store.size(); i++) {
+			total += view.moveTo(i).getMagnitude();
+		}
+		return total;
+	}
+
+	/**
+	 * Containers built once, for the scans.
+	 */
+	@State(Scope.Benchmark)
+	public static class Filled {
+
+		List<Earthquake> objects;
+		EarthquakeStore store;
+
+		@Setup
+		public void setup(final EarthquakeStoreBenchmark benchmark) {
+			this.objects = benchmark.objects();
+			this.store = benchmark.columnar();
+		}
+
+	}
+
+}
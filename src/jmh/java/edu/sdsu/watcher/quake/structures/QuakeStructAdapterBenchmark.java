@@ -0,0 +1,56 @@
+package edu.sdsu.watcher.quake.structures;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import edu.sdsu.watcher.quake.SyntheticFeed;
+
+/**
+ * Compares the reflective Gson binding of {@link QuakeStruct} with the hand-written
+ * adapters of {@link QuakeStructAdapterFactory} on a large synthetic feed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuakeStructAdapterBenchmark {
+
+	@Param({"10000"})
+	private int features;
+
+	private String json;
+	private Gson reflective, adapters;
+
+	@Setup
+	public void setup() {
+		this.json = SyntheticFeed.generate(this.features);
+		this.reflective = new Gson();
+		this.adapters = new GsonBuilder().registerTypeAdapterFactory(new QuakeStructAdapterFactory()).create();
+	}
+
+	@Benchmark
+	public QuakeStruct reflective() {
+		return this.reflective.fromJson(this.json, QuakeStruct.class);
+	}
+
+	@Benchmark
+	public QuakeStruct adapters() {
+		return this.adapters.fromJson(this.json, QuakeStruct.class);
+	}
+
+}
@@ -6,6 +6,11 @@ package edu.sdsu.watcher.quake;
  */
 public class Coordinate {
 
+	/**
+	 * The mean radius of the Earth in kilometers.
+	 */
+	public static final double EARTH_RADIUS_KM = 6371.0088;
+
 	private double longitude, latitude, depth;
 
 	public Coordinate(double longitude, double latitude, double depth) {
@@ -36,6 +41,31 @@ public class Coordinate {
 		return depth;
 	}
 
+	/**
+	 * Gets the great-circle distance to another coordinate along the surface, ignoring depth.
+	 * @param other The coordinate to measure to.
+	 * @return The distance in kilometers.
+	 */
+	public double distanceTo(final Coordinate other) {
+		return distance(latitude, longitude, other.latitude, other.longitude);
+	}
+
+	/**
+	 * Computes the great-circle distance between two points with the haversine formula.
+	 * @param lat1 The latitude of the first point in degrees.
+	 * @param lon1 The longitude of the first point in degrees.
+	 * @param lat2 The latitude of the second point in degrees.
+	 * @param lon2 The longitude of the second point in degrees.
+	 * @return The distance in kilometers.
+	 */
+	public static double distance(final double lat1, final double lon1, final double lat2, final double lon2) {
+		final double dLat = Math.toRadians(lat2 - lat1);
+		final double dLon = Math.toRadians(lon2 - lon1);
+		final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
 	@Override
 	public String toString() {
 		return "Coordinate[" +
@@ -0,0 +1,136 @@
+package edu.sdsu.watcher.quake;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>One of the summary feeds published by usgs.gov, identified by its threshold and time
+ * (e.g. {@code significant} and {@code hour} for {@code significant_hour.geojson}).</p>
+ * <p>Acceptable units for threshold are:</p>
+ * <ul>
+ * <li>significant</li>
+ * <li>all</li>
+ * <li>4.5</li>
+ * <li>2.5</li>
+ * <li>1.0</li>
+ * </ul>
+ * <p>Acceptable units for time are:</p>
+ * <ul>
+ * <li>month</li>
+ * <li>week</li>
+ * <li>day</li>
+ * <li>hour</li>
+ * </ul>
+ */
+public final class Feed {
+
+	private static final String USGS_URL = "https://earthquake.usgs.gov/earthquakes/feed/v1.0/summary/";
+	private static final Set<String> TIMES, THRESHOLDS;
+
+	static {
+		final Set<String> time = new LinkedHashSet<>();
+		final Set<String> threshold = new LinkedHashSet<>();
+
+		time.add("hour");
+		time.add("day");
+		time.add("week");
+		time.add("month");
+
+		threshold.add("significant");
+		threshold.add("all");
+		threshold.add("4.5");
+		threshold.add("2.5");
+		threshold.add("1.0");
+
+		TIMES = Collections.unmodifiableSet(time);
+		THRESHOLDS = Collections.unmodifiableSet(threshold);
+	}
+
+	private final String threshold, time;
+
+	/**
+	 * @param threshold the threshold of the feed, case insensitive.
+	 * @param time      the time of the feed, case insensitive.
+	 * @throws IllegalArgumentException if the threshold or time is not one usgs.gov publishes.
+	 */
+	public Feed(final String threshold, final String time) {
+		Preconditions.checkNotNull(threshold);
+		Preconditions.checkNotNull(time);
+
+		this.threshold = threshold.toLowerCase();
+		this.time = time.toLowerCase();
+
+		if(!THRESHOLDS.contains(this.threshold)) {
+			throw new IllegalArgumentException(buildErrors("Invalid threshold. Must be one of: ", THRESHOLDS));
+		}
+
+		if(!TIMES.contains(this.time)) {
+			throw new IllegalArgumentException(buildErrors("Invalid time. Must be one of: ", TIMES));
+		}
+	}
+
+	/**
+	 * @return the threshold of the feed in lower case.
+	 */
+	public String getThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * @return the time of the feed in lower case.
+	 */
+	public String getTime() {
+		return this.time;
+	}
+
+	/**
+	 * @return the name usgs.gov uses for the feed, e.g. {@code all_hour}.
+	 */
+	public String getName() {
+		return this.threshold + "_" + this.time;
+	}
+
+	/**
+	 * @return the URL of the {@code geojson} feed on usgs.gov.
+	 */
+	public String getUrl() {
+		return USGS_URL + getName() + ".geojson";
+	}
+
+	/**
+	 * Handles the creation of the custom error messages when the time or threshold intervals
+	 * are incorrect.
+	 *
+	 * @param prepend Prepends the buffer with a custom message.
+	 * @param set     The set to combine into a comma-delimited list.
+	 * @return A comma-delimited list with a custom prepended message.
+	 */
+	private static String buildErrors(final String prepend, final Set<String> set) {
+		return prepend + set.stream().collect(Collectors.joining(", "));
+	}
+
+	@Override
+	public String toString() {
+		return "Feed[" + getName() + ']';
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+
+		Feed that = (Feed) o;
+
+		return threshold.equals(that.threshold) && time.equals(that.time);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * threshold.hashCode() + time.hashCode();
+	}
+
+}
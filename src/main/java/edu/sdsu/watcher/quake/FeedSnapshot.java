@@ -0,0 +1,114 @@
+package edu.sdsu.watcher.quake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.net.Validators;
+
+/**
+ * <p>The result of one fetch of a feed, frozen. A snapshot never changes once it is built, so
+ * any number of threads can read it without locking; a newer fetch publishes a new snapshot
+ * instead of touching the old one.</p>
+ * <p>Snapshots are tagged with the {@code generated} time usgs.gov gave the feed and with a
+ * version that counts the snapshots published for the feed by one {@link SimpleEarthquake}.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * usgs.getEarthquakes(feed, filter);
+ * final FeedSnapshot snapshot = usgs.getSnapshot(feed);
+ * System.out.println(snapshot.getVersion() + ": " + snapshot.getQuakes().size());
+ * </pre>
+ */
+public final class FeedSnapshot {
+
+	private final Feed feed;
+	private final QuakeFilter filter;
+	private final long generated;
+	private final long version;
+	private final long contentHash;
+	private final Validators validators;
+	private final List<Earthquake> quakes;
+
+	/**
+	 * @param feed      the feed that was fetched.
+	 * @param filter    the filter the quakes were kept with.
+	 * @param generated when usgs.gov generated the feed, in epoch milliseconds, or 0 if unknown.
+	 * @param version   the number of the snapshot for the feed, starting at 1.
+	 * @param quakes    the quakes of the feed; copied.
+	 */
+	public FeedSnapshot(final Feed feed, final QuakeFilter filter, final long generated, final long version,
+	                    final List<Earthquake> quakes) {
+		this(feed, filter, generated, version, 0, Validators.NONE, quakes);
+	}
+
+	/**
+	 * @param contentHash the hash of the raw feed, or 0 if it wasn't hashed.
+	 * @param validators  the validators usgs.gov sent with the feed.
+	 */
+	FeedSnapshot(final Feed feed, final QuakeFilter filter, final long generated, final long version,
+	             final long contentHash, final Validators validators, final List<Earthquake> quakes) {
+		Preconditions.checkNotNull(feed);
+		Preconditions.checkNotNull(filter);
+		Preconditions.checkNotNull(validators);
+		Preconditions.checkNotNull(quakes);
+		Preconditions.checkArgument(version > 0, "version must be positive");
+
+		this.feed = feed;
+		this.filter = filter;
+		this.generated = generated;
+		this.version = version;
+		this.contentHash = contentHash;
+		this.validators = validators;
+		this.quakes = Collections.unmodifiableList(new ArrayList<>(quakes));
+	}
+
+	public Feed getFeed() {
+		return this.feed;
+	}
+
+	public QuakeFilter getFilter() {
+		return this.filter;
+	}
+
+	/**
+	 * @return when usgs.gov generated the feed, in epoch milliseconds, or 0 if unknown.
+	 */
+	public long getGenerated() {
+		return this.generated;
+	}
+
+	/**
+	 * @return the number of the snapshot for the feed; later snapshots have higher versions.
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * @return the hash of the raw feed, or 0 if it wasn't hashed.
+	 */
+	long getContentHash() {
+		return this.contentHash;
+	}
+
+	/**
+	 * @return the validators to send when asking usgs.gov whether the feed changed.
+	 */
+	Validators getValidators() {
+		return this.validators;
+	}
+
+	/**
+	 * @return the unmodifiable quakes of the feed.
+	 */
+	public List<Earthquake> getQuakes() {
+		return this.quakes;
+	}
+
+	@Override
+	public String toString() {
+		return "FeedSnapshot[" + feed + " v" + version + ", generated=" + generated + ", quakes=" + quakes.size() + ']';
+	}
+
+}
@@ -0,0 +1,292 @@
+package edu.sdsu.watcher.quake;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+/**
+ * <p>Decides which features of a feed become {@link Earthquake}s. The filter is split in the
+ * order a usgs.gov feature is written so the decoder can apply it while reading: the
+ * properties (magnitude, time, alert, tsunami) are checked as soon as they have been read,
+ * the location once the geometry has been read, and only features that pass both are turned
+ * into an Earthquake and handed to the custom predicates. Rejected features are skipped at
+ * the token level and never materialized.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final QuakeFilter filter = new QuakeFilter.Builder()
+ *         .magnitude(4.5, Double.POSITIVE_INFINITY)
+ *         .box(-125, 32, -114, 42)
+ *         .build();
+ * final List&lt;Earthquake&gt; quakes = new SimpleEarthquake().getEarthquakes(new Feed("all", "month"), filter);
+ * </pre>
+ * <p>Filters are immutable and safe to share. Two filters are equal when their bounds are
+ * equal and they hold the same predicate instances.</p>
+ */
+public final class QuakeFilter {
+
+	/**
+	 * Accepts every feature.
+	 */
+	public static final QuakeFilter NONE = new Builder().build();
+
+	private final double minMagnitude, maxMagnitude;
+	private final double minDepth, maxDepth;
+	private final double minLongitude, minLatitude, maxLongitude, maxLatitude;
+	private final long from, to;
+	private final Set<String> alerts;
+	private final Boolean tsunami;
+	private final List<Predicate<Earthquake>> predicates;
+
+	private QuakeFilter(final Builder builder) {
+		this.minMagnitude = builder.minMagnitude;
+		this.maxMagnitude = builder.maxMagnitude;
+		this.minDepth = builder.minDepth;
+		this.maxDepth = builder.maxDepth;
+		this.minLongitude = builder.minLongitude;
+		this.minLatitude = builder.minLatitude;
+		this.maxLongitude = builder.maxLongitude;
+		this.maxLatitude = builder.maxLatitude;
+		this.from = builder.from;
+		this.to = builder.to;
+		this.alerts = builder.alerts == null ? null : Collections.unmodifiableSet(new HashSet<>(builder.alerts));
+		this.tsunami = builder.tsunami;
+		this.predicates = Collections.unmodifiableList(new ArrayList<>(builder.predicates));
+	}
+
+	/**
+	 * @return true if the filter needs the {@code alert} property of a feature.
+	 */
+	public boolean filtersAlert() {
+		return this.alerts != null;
+	}
+
+	/**
+	 * Checks the values found in the {@code properties} of a feature.
+	 * @param magnitude the magnitude of the feature.
+	 * @param time      the epoch time of the feature.
+	 * @param alert     the alert level of the feature, ignored unless {@link #filtersAlert()}.
+	 * @param tsunami   the tsunami flag of the feature.
+	 * @return true if the feature may pass.
+	 */
+	public boolean acceptsProperties(final double magnitude, final long time, final String alert, final int tsunami) {
+		return this.acceptsMagnitude(magnitude) && this.acceptsTime(time)
+				&& (this.alerts == null || (alert != null && this.alerts.contains(alert)))
+				&& (this.tsunami == null || this.tsunami == (tsunami != 0));
+	}
+
+	/**
+	 * @param magnitude the magnitude of the feature.
+	 * @return true if the magnitude is within the bounds.
+	 */
+	public boolean acceptsMagnitude(final double magnitude) {
+		return magnitude >= this.minMagnitude && magnitude <= this.maxMagnitude;
+	}
+
+	/**
+	 * @param time the epoch time of the feature.
+	 * @return true if the time is within the window.
+	 */
+	public boolean acceptsTime(final long time) {
+		return time >= this.from && time < this.to;
+	}
+
+	/**
+	 * Checks the values found in the {@code geometry} of a feature.
+	 * @param longitude the longitude of the epicenter.
+	 * @param latitude  the latitude of the epicenter.
+	 * @param depth     the depth of the hypocenter.
+	 * @return true if the feature may pass.
+	 */
+	public boolean acceptsLocation(final double longitude, final double latitude, final double depth) {
+		final boolean inLongitude = this.minLongitude <= this.maxLongitude
+				? longitude >= this.minLongitude && longitude <= this.maxLongitude
+				: longitude >= this.minLongitude || longitude <= this.maxLongitude;
+
+		return inLongitude && latitude >= this.minLatitude && latitude <= this.maxLatitude
+				&& depth >= this.minDepth && depth <= this.maxDepth;
+	}
+
+	/**
+	 * Runs the custom predicates. Only called for features that passed every other check.
+	 * @param quake the projected feature.
+	 * @return true if every predicate accepts the quake.
+	 */
+	public boolean acceptsEarthquake(final Earthquake quake) {
+		for(final Predicate<Earthquake> predicate : this.predicates) {
+			if(!predicate.test(quake)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks everything but the custom predicates against an already decoded feature.
+	 * @param feature the feature to check.
+	 * @return true if the feature may pass.
+	 */
+	public boolean acceptsFeature(final QuakeStruct.Features feature) {
+		final QuakeStruct.Features.Properties properties = feature.getProperties();
+		final QuakeStruct.Features.Geometry geometry = feature.getGeometry();
+
+		return this.acceptsProperties(properties.getMag(), properties.getTime(), properties.getAlert(), properties.getTsunami())
+				&& this.acceptsLocation(geometry.getLongitude(), geometry.getLatitude(), geometry.getDepth());
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+
+		QuakeFilter that = (QuakeFilter) o;
+
+		return Double.compare(that.minMagnitude, minMagnitude) == 0 && Double.compare(that.maxMagnitude, maxMagnitude) == 0
+				&& Double.compare(that.minDepth, minDepth) == 0 && Double.compare(that.maxDepth, maxDepth) == 0
+				&& Double.compare(that.minLongitude, minLongitude) == 0 && Double.compare(that.minLatitude, minLatitude) == 0
+				&& Double.compare(that.maxLongitude, maxLongitude) == 0 && Double.compare(that.maxLatitude, maxLatitude) == 0
+				&& from == that.from && to == that.to
+				&& (alerts == null ? that.alerts == null : alerts.equals(that.alerts))
+				&& (tsunami == null ? that.tsunami == null : tsunami.equals(that.tsunami))
+				&& predicates.equals(that.predicates);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(new Object[] {minMagnitude, maxMagnitude, minDepth, maxDepth, minLongitude,
+				minLatitude, maxLongitude, maxLatitude, from, to, alerts, tsunami, predicates});
+	}
+
+	@Override
+	public String toString() {
+		return "QuakeFilter[" +
+				"magnitude=[" + minMagnitude + ", " + maxMagnitude + ']' +
+				", depth=[" + minDepth + ", " + maxDepth + ']' +
+				", box=[" + minLongitude + ", " + minLatitude + ", " + maxLongitude + ", " + maxLatitude + ']' +
+				", time=[" + from + ", " + to + ')' +
+				", alerts=" + alerts +
+				", tsunami=" + tsunami +
+				", predicates=" + predicates.size() +
+				']';
+	}
+
+	/**
+	 * Builds a {@link QuakeFilter}. Every bound is open until set.
+	 */
+	public static final class Builder {
+
+		private double minMagnitude = Double.NEGATIVE_INFINITY, maxMagnitude = Double.POSITIVE_INFINITY;
+		private double minDepth = Double.NEGATIVE_INFINITY, maxDepth = Double.POSITIVE_INFINITY;
+		private double minLongitude = -180, minLatitude = -90, maxLongitude = 180, maxLatitude = 90;
+		private long from = Long.MIN_VALUE, to = Long.MAX_VALUE;
+		private Set<String> alerts;
+		private Boolean tsunami;
+		private final List<Predicate<Earthquake>> predicates = new ArrayList<>();
+
+		/**
+		 * @param min the smallest magnitude to keep, inclusive.
+		 * @param max the largest magnitude to keep, inclusive.
+		 * @return this builder.
+		 */
+		public Builder magnitude(final double min, final double max) {
+			Preconditions.checkArgument(min <= max, "min must not exceed max");
+			this.minMagnitude = min;
+			this.maxMagnitude = max;
+			return this;
+		}
+
+		/**
+		 * @param min the shallowest depth to keep in kilometers, inclusive.
+		 * @param max the deepest depth to keep in kilometers, inclusive.
+		 * @return this builder.
+		 */
+		public Builder depth(final double min, final double max) {
+			Preconditions.checkArgument(min <= max, "min must not exceed max");
+			this.minDepth = min;
+			this.maxDepth = max;
+			return this;
+		}
+
+		/**
+		 * Keeps the quakes inside a bounding box given in the GeoJSON {@code bbox} order. A box
+		 * whose west edge lies east of its east edge crosses the antimeridian.
+		 * @param minLongitude the west edge.
+		 * @param minLatitude  the south edge.
+		 * @param maxLongitude the east edge.
+		 * @param maxLatitude  the north edge.
+		 * @return this builder.
+		 */
+		public Builder box(final double minLongitude, final double minLatitude,
+		                   final double maxLongitude, final double maxLatitude) {
+			Preconditions.checkArgument(minLatitude <= maxLatitude, "minLatitude must not exceed maxLatitude");
+			this.minLongitude = minLongitude;
+			this.minLatitude = minLatitude;
+			this.maxLongitude = maxLongitude;
+			this.maxLatitude = maxLatitude;
+			return this;
+		}
+
+		/**
+		 * @param from the start of the window in epoch milliseconds, inclusive.
+		 * @param to   the end of the window in epoch milliseconds, exclusive.
+		 * @return this builder.
+		 */
+		public Builder time(final long from, final long to) {
+			Preconditions.checkArgument(from <= to, "from must not be after to");
+			this.from = from;
+			this.to = to;
+			return this;
+		}
+
+		/**
+		 * Keeps only the quakes with one of the given PAGER alert levels; quakes without an
+		 * alert are dropped.
+		 * @param alerts the alert levels to keep, e.g. {@code "orange", "red"}.
+		 * @return this builder.
+		 */
+		public Builder alerts(final String... alerts) {
+			Preconditions.checkArgument(alerts.length > 0, "At least one alert level is required");
+			this.alerts = new HashSet<>();
+			for(final String alert : alerts) {
+				this.alerts.add(Preconditions.checkNotNull(alert).toLowerCase(Locale.ROOT));
+			}
+			return this;
+		}
+
+		/**
+		 * @param tsunami true to keep only quakes flagged for tsunami, false to keep only the others.
+		 * @return this builder.
+		 */
+		public Builder tsunami(final boolean tsunami) {
+			this.tsunami = tsunami;
+			return this;
+		}
+
+		/**
+		 * Adds a custom check. Predicates run last, on the projected Earthquake, in the order
+		 * they were added.
+		 * @param predicate the check to add.
+		 * @return this builder.
+		 */
+		public Builder matching(final Predicate<Earthquake> predicate) {
+			this.predicates.add(Preconditions.checkNotNull(predicate));
+			return this;
+		}
+
+		/**
+		 * @return a new immutable filter.
+		 */
+		public QuakeFilter build() {
+			return new QuakeFilter(this);
+		}
+
+	}
+
+}
@@ -2,65 +2,116 @@ package edu.sdsu.watcher.quake;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.NoSuchFileException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.sdsu.watcher.quake.cache.AsyncCacheWriter;
+import edu.sdsu.watcher.quake.cache.BinaryCache;
 import edu.sdsu.watcher.quake.cache.Cache;
+import edu.sdsu.watcher.quake.cache.CacheDirectory;
+import edu.sdsu.watcher.quake.cache.EventLog;
+import edu.sdsu.watcher.quake.cache.ResultCache;
 import edu.sdsu.watcher.quake.factories.DecodeJson;
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+import edu.sdsu.watcher.quake.io.FileIOHelper;
+import edu.sdsu.watcher.quake.metrics.Metrics;
+import edu.sdsu.watcher.quake.net.Download;
 import edu.sdsu.watcher.quake.net.JsonReader;
 import edu.sdsu.watcher.quake.net.Reader;
+import edu.sdsu.watcher.quake.net.Validators;
 import edu.sdsu.watcher.quake.structures.QuakeStruct;
 
 /**
  * Handles the details of getting the data from the remote or local resource,
  * filtering the data, and returning the user with usable data. Uses
  * {@link okhttp3.OkHttpClient} to handle the specific of the Http requests.
+ * <p>Instances are safe to share between threads: the result of every live fetch is
+ * published as an immutable {@link FeedSnapshot}, see {@link SimpleEarthquake#getSnapshot(Feed)}.
+ * Several feeds can be fetched at once
+ * through {@link SimpleEarthquake#getEarthquakesAsync(Collection)}:</p>
+ * <pre>
+ *     SimpleEarthquake usgs = new SimpleEarthquake();
+ *     Map&lt;Feed, List&lt;Earthquake&gt;&gt; quakes = usgs.getEarthquakesAsync(Arrays.asList(
+ *             new Feed("significant", "hour"), new Feed("4.5", "day"), new Feed("all", "hour")
+ *     )).join();
+ * </pre>
  * @author Dennis Thompson
  * @version 1.1
  */
 public class SimpleEarthquake {
 
 	private static final boolean APPEND_TIMESTAMP_DEFAULT = true;
-	private static final Reader jsonReader = JsonReader.getInstance();
-	private static final String USGS_URL = "http://earthquake.usgs.gov/earthquakes/feed/v1.0/summary/";
+	private static final int PARALLEL_THRESHOLD_DEFAULT = 2048;
 
-	private static QuakeStruct struct = null;
-	private static HashSet<String> time, threshold;
-
-	static {
-		time = new HashSet<>();
-		threshold = new HashSet<>();
-
-		time.add("hour");
-		time.add("day");
-		time.add("week");
-		time.add("month");
-
-		threshold.add("significant");
-		threshold.add("all");
-		threshold.add("4.5");
-		threshold.add("2.5");
-		threshold.add("1.0");
-	}
+	private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(
+			new ThreadFactoryBuilder().setDaemon(true).setNameFormat("quake-fetch-%d").build()
+	);
 
 	private boolean online;
 	private boolean cacheJson;
+	private Reader reader;
+	private Executor executor = DEFAULT_EXECUTOR;
+	private ForkJoinPool conversionPool;
+	private volatile ResultCache resultCache;
+	private volatile EventLog eventLog;
+	private volatile File binaryLocation;
+	private volatile boolean hashContent;
+	private int parallelThreshold = PARALLEL_THRESHOLD_DEFAULT;
+	private final Map<Feed, AtomicReference<FeedSnapshot>> snapshots = new ConcurrentHashMap<>();
 //	private boolean enablePrettyCache;
 	private File cacheFile;
-	private Cache cache;
+	private CacheDirectory cacheDirectory;
+	private String cacheLocation;
+	private boolean appendTimestamp;
+	private boolean compressCache;
+	private volatile AsyncCacheWriter cacheWriter;
+	private final Map<Feed, Cache> caches = new ConcurrentHashMap<>();
+	private BinaryCache binaryCache;
+	private BasicFileAttributes binaryAttributes;
 //	private Cache prettyCache;
 
 	/**
 	 * Reads live data from the USGS website.
 	 */
 	public SimpleEarthquake() {
+		this(JsonReader.getInstance());
+	}
+
+	/**
+	 * Reads live data from the USGS website through the given reader. Useful when the
+	 * shared {@link JsonReader} needs a differently tuned client, e.g.
+	 * {@code new SimpleEarthquake(new JsonReader.Builder().maxIdleConnections(10).build())}.
+	 * @param reader The reader used to download the feeds.
+	 */
+	public SimpleEarthquake(final Reader reader) {
+		Preconditions.checkNotNull(reader);
 		this.online = true;
 		this.cacheJson = false;
+		this.reader = reader;
 //		this.enablePrettyCache = false;
 	}
 
@@ -89,23 +140,172 @@ public class SimpleEarthquake {
 	 * @param appendTimestamp Set true to append the timestamp to the name of the Cache file.
 	 */
 	public SimpleEarthquake(final boolean cacheFile, final String location, boolean appendTimestamp) {
+		this(cacheFile, location, appendTimestamp, false);
+	}
+
+	/**
+	 * Construct a new Object with caching ability whose cache files may be gzip compressed.
+	 * Compressed files are named {@code <feed>.json.gz} and can be read back with
+	 * {@link SimpleEarthquake#SimpleEarthquake(File)}.
+	 *
+	 * @param cacheFile       Set true to cache the downloaded {@code geojson} file.
+	 * @param location        The path of the file without the file (this will be created automatically).
+	 * @param appendTimestamp Set true to append the timestamp to the name of the Cache file.
+	 * @param compress        Set true to gzip the cache files as they are written.
+	 * @see SimpleEarthquake#SimpleEarthquake(boolean, String, boolean)
+	 */
+	public SimpleEarthquake(final boolean cacheFile, final String location, boolean appendTimestamp, boolean compress) {
 		this();
 		this.cacheJson = cacheFile;
 
 		if(this.cacheJson) {
-			this.cache = new Cache(null, location, appendTimestamp);
+			Preconditions.checkNotNull(location);
+			Preconditions.checkArgument(!location.isEmpty());
+			this.cacheLocation = location;
+			this.appendTimestamp = appendTimestamp;
+			this.compressCache = compress;
+			FileIOHelper.createDirectory(Paths.get(location));
 		}
 	}
 
 	/**
-	 * Reads a local file and uses cached data.
-	 * @param file the cached {@code json} file to read from.
+	 * Reads a local file and uses cached data. Files with the {@link BinaryCache#EXTENSION}
+	 * are read as a {@link BinaryCache}, files with the {@link EventLog#LOG_EXTENSION} as an
+	 * {@link EventLog} whose latest event versions are used. A directory is read as with
+	 * {@link SimpleEarthquake#SimpleEarthquake(File, String)} and the
+	 * {@link CacheDirectory#DEFAULT_GLOB}.
+	 * @param file the cached {@code json} or binary file, or the directory, to read from.
 	 */
 	public SimpleEarthquake(final File file) {
 		Preconditions.checkNotNull(file);
 		Preconditions.checkArgument(file.exists());
 		this.online = false;
 		this.cacheFile = file;
+		if(file.isDirectory()) {
+			this.cacheDirectory = new CacheDirectory(file.toPath(), CacheDirectory.DEFAULT_GLOB);
+		}
+	}
+
+	/**
+	 * Reads every cache file of a directory that matches the glob, e.g. a week of archived
+	 * polls. The files are parsed in parallel on the pool set with
+	 * {@link SimpleEarthquake#setParallelConversion(ForkJoinPool, int)}, or the common pool,
+	 * and every event is kept once, in its latest version.
+	 * @param directory the directory of the cache files.
+	 * @param glob      the names of the files to read, e.g. {@code all_hour_*.json*}.
+	 * @see CacheDirectory
+	 */
+	public SimpleEarthquake(final File directory, final String glob) {
+		Preconditions.checkNotNull(directory);
+		this.online = false;
+		this.cacheFile = directory;
+		this.cacheDirectory = new CacheDirectory(directory.toPath(), glob);
+	}
+
+	/**
+	 * Sets the executor the asynchronous methods fetch, parse, and filter on. By default a
+	 * shared pool of daemon threads is used.
+	 * @param executor The executor to run asynchronous requests on.
+	 */
+	public void setExecutor(final Executor executor) {
+		this.executor = Preconditions.checkNotNull(executor);
+	}
+
+	/**
+	 * Keeps live results in memory in front of the network and the file cache. Repeated
+	 * requests for a feed within its time to live return without a network round trip. No
+	 * result cache is used by default; pass {@code null} to stop using one.
+	 * @param resultCache The cache to serve live results from, may be shared.
+	 */
+	public void setResultCache(final ResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	/**
+	 * Writes the cache files on a background writer so fetching a feed never waits on the
+	 * disk. Only applies when the feeds are cached. Cache files are written on the fetching
+	 * thread by default; pass {@code null} to do so again.
+	 * @param cacheWriter The writer to queue cache appends on, may be shared.
+	 */
+	public void setCacheWriter(final AsyncCacheWriter cacheWriter) {
+		this.cacheWriter = cacheWriter;
+		this.caches.values().forEach(cache -> cache.setWriter(cacheWriter));
+	}
+
+	/**
+	 * Archives every live feed into an {@link EventLog}: one line per event version, so an
+	 * event that hasn't changed since the previous poll isn't written again. Unlike the
+	 * caching constructors, which append whole feeds to a file, the log can be read back
+	 * with {@link SimpleEarthquake#SimpleEarthquake(File)}. No log is used by default; pass
+	 * {@code null} to stop using one.
+	 * @param eventLog The log to archive live feeds into, may be shared.
+	 */
+	public void setEventLog(final EventLog eventLog) {
+		this.eventLog = eventLog;
+	}
+
+	/**
+	 * Keeps a {@link BinaryCache} snapshot of every live feed in the directory, named after the
+	 * feed, e.g. {@code all_hour.qwb}. The snapshot is replaced after every fetch that decodes
+	 * the feed, so a restart can read the latest feed with
+	 * {@link SimpleEarthquake#SimpleEarthquake(File)} without parsing any {@code json}. No
+	 * snapshots are written by default; pass {@code null} to stop writing them.
+	 * @param directory The directory to write the snapshots to, created if it doesn't exist.
+	 */
+	public void setBinaryCache(final File directory) {
+		if(directory != null) {
+			FileIOHelper.createDirectory(directory.toPath());
+		}
+		this.binaryLocation = directory;
+	}
+
+	/**
+	 * <p>Decides how a feed that comes back in full, without a 304, is recognized as the one
+	 * already decoded, for servers that don't answer conditional requests.</p>
+	 * <p>By default the {@code metadata.generated} stamp is read first and, when it matches
+	 * the previous fetch, the previous result is returned without decoding any feature. With
+	 * content hashing on, a cached feed is instead hashed with murmur3 and only decoded if
+	 * the hash changed; feeds that aren't cached are streamed and aren't hashed.</p>
+	 * @param hashContent Set true to compare the raw bytes of cached feeds instead of the stamp.
+	 */
+	public void setContentHashing(final boolean hashContent) {
+		this.hashContent = hashContent;
+	}
+
+	/**
+	 * Gets the latest result of a live feed without fetching it. Snapshots are immutable and
+	 * published atomically, so this never blocks and never sees a half-built result, however
+	 * many threads are fetching at the same time.
+	 * @param feed The feed to look up.
+	 * @return The latest snapshot of the feed, or {@code null} if it hasn't been fetched yet.
+	 */
+	public FeedSnapshot getSnapshot(final Feed feed) {
+		Preconditions.checkNotNull(feed);
+		final AtomicReference<FeedSnapshot> published = this.snapshots.get(feed);
+		return published == null ? null : published.get();
+	}
+
+	/**
+	 * Converts and filters the features of cached files on the common {@link ForkJoinPool}.
+	 * @see SimpleEarthquake#setParallelConversion(ForkJoinPool, int)
+	 */
+	public void setParallelConversion() {
+		this.setParallelConversion(ForkJoinPool.commonPool(), PARALLEL_THRESHOLD_DEFAULT);
+	}
+
+	/**
+	 * <p>Converts and filters the features of cached files in parallel. The features are split
+	 * in halves until a chunk holds no more than {@code threshold} features; chunks are
+	 * converted on the pool and joined back in the original order. Feeds no larger than the
+	 * threshold are still converted on the calling thread.</p>
+	 * <p>Conversion is sequential by default; pass {@code null} to make it sequential again.</p>
+	 * @param pool      the pool to convert on, or {@code null} for sequential conversion.
+	 * @param threshold the largest number of features converted as a single chunk.
+	 */
+	public void setParallelConversion(final ForkJoinPool pool, final int threshold) {
+		Preconditions.checkArgument(threshold > 0, "threshold must be positive");
+		this.conversionPool = pool;
+		this.parallelThreshold = threshold;
 	}
 
 	/**
@@ -125,53 +325,191 @@ public class SimpleEarthquake {
 	 * <li>day</li>
 	 * <li>hour</li>
 	 * </ul>
+	 * <p>Live feeds are requested conditionally: when usgs.gov reports the feed has not
+	 * been modified since the previous call the last result is returned without being
+	 * parsed or filtered again. Unless the feed is being cached, it is decoded straight
+	 * from the response body so the raw {@code json} is never held in memory.</p>
 	 *
 	 * @param threshold the threshold to filter by.
 	 * @param time      the time to filer by.
 	 * @return a list of earthquakes or an empty list if none are found.
 	 */
 	public List<Earthquake> getEarthquakes(String threshold, String time) {
-		String tempThreshold = threshold;
-		tempThreshold = tempThreshold.toLowerCase();
-		time = time.toLowerCase();
-
-		if(!isValidThreshold(tempThreshold)) {
-			throw new IllegalArgumentException(
-					buildErrors("Invalid threshold. Must be one of: ", SimpleEarthquake.threshold)
-			);
+		return this.getEarthquakes(new Feed(threshold, time));
+	}
+
+	/**
+	 * @param feed the feed to read.
+	 * @return a list of earthquakes or an empty list if none are found.
+	 * @see SimpleEarthquake#getEarthquakes(String, String)
+	 */
+	public List<Earthquake> getEarthquakes(final Feed feed) {
+		return this.getEarthquakes(feed, QuakeFilter.NONE);
+	}
+
+	/**
+	 * Gets the earthquakes of the feed that pass the filter. Live feeds are filtered while
+	 * they are decoded, so rejected features are never turned into Earthquakes. The previous
+	 * result is only reused on an unmodified feed if it was built with an equal filter.
+	 * With a {@link ResultCache} set, live results are served from memory until they expire,
+	 * as unmodifiable lists shared by every caller.
+	 *
+	 * @param feed   the feed to read.
+	 * @param filter decides which earthquakes are kept.
+	 * @return a list of earthquakes or an empty list if none are found.
+	 * @see SimpleEarthquake#getEarthquakes(String, String)
+	 * @see SimpleEarthquake#setResultCache(ResultCache)
+	 */
+	public List<Earthquake> getEarthquakes(final Feed feed, final QuakeFilter filter) {
+		Preconditions.checkNotNull(feed);
+		Preconditions.checkNotNull(filter);
+
+		try {
+			return this.fetch(feed, filter);
+		} catch(IOException e) {
+			System.err.println("A parse error occurred! Check the stack trace for more details.");
+			e.printStackTrace();
+			System.exit(ExitCodes.GSON_PARSE_ERROR);
+			return null;
 		}
+	}
 
-		if(!isValidTime(time)) {
-			throw new IllegalArgumentException(
-					buildErrors("Invalid time. Must be one of: ", SimpleEarthquake.time)
-			);
+	/**
+	 * Goes through the {@link ResultCache}, if one is set, and reports errors to the caller.
+	 * @param feed   the feed to read.
+	 * @param filter decides which earthquakes are kept.
+	 * @return a list of earthquakes or an empty list if none are found.
+	 * @throws IOException if the feed can't be read or parsed.
+	 */
+	private List<Earthquake> fetch(final Feed feed, final QuakeFilter filter) throws IOException {
+		final ResultCache results = this.resultCache;
+		if(this.online && results != null) {
+			try {
+				// already unmodifiable, so every hit shares the cached list instead of copying it
+				return results.get(feed, filter, () -> {
+					try {
+						return this.load(feed, filter);
+					} catch(IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch(UncheckedIOException e) {
+				throw e.getCause();
+			}
 		}
 
-		try {
-			if(this.online) {
-				final String url = String.format("%s%s_%s.geojson", USGS_URL, tempThreshold, time);
-				final String json = jsonReader.get(url);
-				if(this.cacheJson) {
-					this.cache.setName(String.format("%s_%s", tempThreshold, time));
-					this.cache.append(json);
-
-					// TODO: allow user to configure this
+		return this.load(feed, filter);
+	}
+
+	/**
+	 * Reads, caches, and filters the feed, bypassing the {@link ResultCache}.
+	 * @param feed   the feed to read.
+	 * @param filter decides which earthquakes are kept.
+	 * @return a list of earthquakes or an empty list if none are found.
+	 * @throws IOException if the feed can't be read or parsed.
+	 */
+	private List<Earthquake> load(final Feed feed, final QuakeFilter filter) throws IOException {
+		if(this.online) {
+			final String url = feed.getUrl();
+			final AtomicReference<FeedSnapshot> published = this.snapshots.computeIfAbsent(feed, key -> new AtomicReference<>());
+			final FeedSnapshot last = published.get();
+			final List<Earthquake> previous = last != null && last.getFilter().equals(filter) ? last.getQuakes() : null;
+			// usgs.gov stamps every regeneration, so a feed with the same stamp is the same feed
+			final long lastGenerated = previous == null ? 0 : last.getGenerated();
+			final Predicate<QuakeStruct.Metadata> changed = header -> lastGenerated == 0 || header.getGenerated() != lastGenerated;
+			// only the raw text of a cached feed is hashed, streamed feeds go by the stamp
+			final boolean hashed = this.cacheJson && this.hashContent;
+			// the validators belong to the result they came with, not to the shared reader
+			final Validators known = previous == null ? Validators.NONE : last.getValidators();
+			final Validators validators;
+			QuakeStruct.Metadata metadata;
+			long hash = 0;
+			final EventLog log = this.eventLog;
+			final File binary = this.binaryLocation;
+			// the log and the snapshot need every feature, not only the ones that pass the filter
+			final List<QuakeStruct.Features> features = log == null && binary == null ? null : new ArrayList<>();
+			List<Earthquake> quakes = new ArrayList<>();
+
+			if(this.cacheJson) {
+				// the cache needs the raw text so the feed is read in full
+				final Download<String> download = this.reader.getIfModified(url, known);
+				if(download.isNotModified()) {
+					// the feed hasn't been regenerated since our last poll
+					return new ArrayList<>(previous);
+				}
+				final String json = download.getBody();
+				validators = download.getValidators();
+
+				this.cache(feed, json);
+
+				// TODO: allow user to configure this
 //					FileIOHelper.write(cacheFilePath + cacheFileNamePretty, prettyPrintJson(json));
+				final Predicate<QuakeStruct.Metadata> proceed;
+				if(hashed) {
+					// the hash has the final say: same bytes, same result, whatever the stamp
+					hash = Hashing.murmur3_128().hashString(json, StandardCharsets.UTF_8).asLong();
+					if(previous != null && hash == last.getContentHash()) {
+						return new ArrayList<>(previous);
+					}
+					proceed = header -> true;
+				} else {
+					proceed = changed;
+				}
+
+				if(features == null) {
+					metadata = DecodeStream.earthquakes(new StringReader(json), filter, proceed, quakes::add);
+				} else {
+					metadata = DecodeStream.features(new StringReader(json), proceed, features::add);
 				}
-				struct = DecodeJson.parse(json, QuakeStruct.class);
 			} else {
-				struct = DecodeJson.parse(this.cacheFile, QuakeStruct.class);
+				final Download<InputStream> download = this.reader.openIfModified(url, known);
+				if(download.isNotModified()) {
+					return new ArrayList<>(previous);
+				}
+				validators = download.getValidators();
+
+				try(InputStream body = download.getBody()) {
+
+					if(features == null) {
+						metadata = DecodeStream.earthquakes(new InputStreamReader(body, StandardCharsets.UTF_8), filter, changed, quakes::add);
+					} else {
+						metadata = DecodeStream.features(new InputStreamReader(body, StandardCharsets.UTF_8), changed, features::add);
+					}
+				}
+			}
+
+			if(metadata != null && !hashed && !changed.test(metadata)) {
+				// the same feed served again without a 304, e.g. by a mirror
+				return new ArrayList<>(previous);
+			}
+
+			if(features != null) {
+				if(log != null) {
+					this.archive(log, features);
+				}
+				if(binary != null) {
+					this.snapshot(binary, feed, features);
+				}
+				quakes = processFilter(features, filter, this.conversionPool, this.parallelThreshold);
+			}
+
+			publish(published, feed, filter, metadata == null ? 0 : metadata.getGenerated(), hash, validators, quakes);
+			return new ArrayList<>(quakes);
+		} else if(this.cacheDirectory != null) {
+			final ForkJoinPool pool = this.conversionPool == null ? ForkJoinPool.commonPool() : this.conversionPool;
+			return processFilter(this.cacheDirectory.load(pool), filter, this.conversionPool, this.parallelThreshold);
+		} else if(BinaryCache.isBinary(this.cacheFile)) {
+			// records are filtered in place, nothing to parse
+			return this.mapBinaryCache().read(filter);
+		} else if(EventLog.isLog(this.cacheFile)) {
+			// read-only: a poller may still be appending to the log
+			try(EventLog log = EventLog.openReadOnly(this.cacheFile)) {
+				return processFilter(log.latest(), filter, this.conversionPool, this.parallelThreshold);
 			}
-		} catch(NoSuchFileException e) {
-			System.err.println("Unable to write to cache file " + this.cache.getName());
-			e.printStackTrace();
-		} catch(IOException e) {
-			System.err.println("A parse error occurred! Check the stack trace for more details.");
-			e.printStackTrace();
-			System.exit(ExitCodes.GSON_PARSE_ERROR);
 		}
 
-		return processFilter(struct.getFeatures());
+		final QuakeStruct struct = DecodeJson.parse(this.cacheFile, QuakeStruct.class);
+		return processFilter(struct.getFeatures(), filter, this.conversionPool, this.parallelThreshold);
 	}
 
 	/**
@@ -183,45 +521,210 @@ public class SimpleEarthquake {
 		return this.getEarthquakes("all", "week");
 	}
 
-	private static boolean isValidThreshold(final String threshold) {
-		return SimpleEarthquake.threshold.contains(threshold);
+	/**
+	 * Asynchronous version of {@link SimpleEarthquake#getEarthquakes(String, String)}. The
+	 * threshold and time are validated right away; the feed is fetched on the executor.
+	 * @param threshold the threshold to filter by.
+	 * @param time      the time to filer by.
+	 * @return a future list of earthquakes.
+	 * @see SimpleEarthquake#setExecutor(Executor)
+	 */
+	public CompletableFuture<List<Earthquake>> getEarthquakesAsync(final String threshold, final String time) {
+		return this.getEarthquakesAsync(new Feed(threshold, time));
+	}
+
+	/**
+	 * @param feed the feed to read.
+	 * @return a future list of earthquakes.
+	 * @see SimpleEarthquake#getEarthquakesAsync(String, String)
+	 */
+	public CompletableFuture<List<Earthquake>> getEarthquakesAsync(final Feed feed) {
+		Preconditions.checkNotNull(feed);
+		return this.getEarthquakesAsync(feed, QuakeFilter.NONE);
+	}
+
+	/**
+	 * Unlike {@link SimpleEarthquake#getEarthquakes(Feed, QuakeFilter)}, which exits when a
+	 * feed can't be read, the error is reported through the future.
+	 * @param feed   the feed to read.
+	 * @param filter decides which earthquakes are kept.
+	 * @return a future list of earthquakes, which fails with the {@link IOException} if the
+	 * feed can't be read or parsed.
+	 * @see SimpleEarthquake#getEarthquakes(Feed, QuakeFilter)
+	 */
+	public CompletableFuture<List<Earthquake>> getEarthquakesAsync(final Feed feed, final QuakeFilter filter) {
+		Preconditions.checkNotNull(feed);
+		Preconditions.checkNotNull(filter);
+
+		final CompletableFuture<List<Earthquake>> future = new CompletableFuture<>();
+		this.executor.execute(() -> {
+			try {
+				future.complete(this.fetch(feed, filter));
+			} catch(IOException | RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
 	}
 
 	/**
-	 * @param time The time interval to validate.
-	 * @return True is the time unit is valid.
+	 * Fetches, parses, and filters several feeds in parallel so the whole batch takes about
+	 * as long as the slowest feed.
+	 * @param feeds the feeds to read, duplicates are only read once.
+	 * @return a future map of every feed to its earthquakes, in the order the feeds were given.
+	 * If any feed fails, the map isn't built and the future fails with a
+	 * {@link java.util.concurrent.CompletionException} caused by the error of one of the
+	 * failed feeds; read the feeds one by one with
+	 * {@link SimpleEarthquake#getEarthquakesAsync(Feed, QuakeFilter)} to keep the others.
 	 */
-	private static boolean isValidTime(final String time) {
-		return SimpleEarthquake.time.contains(time);
+	public CompletableFuture<Map<Feed, List<Earthquake>>> getEarthquakesAsync(final Collection<Feed> feeds) {
+		Preconditions.checkNotNull(feeds);
+		final Map<Feed, CompletableFuture<List<Earthquake>>> futures = new LinkedHashMap<>();
+		feeds.forEach(feed -> futures.computeIfAbsent(feed, this::getEarthquakesAsync));
+
+		return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()]))
+				.thenApply(ignored -> {
+					final Map<Feed, List<Earthquake>> results = new LinkedHashMap<>();
+					futures.forEach((feed, future) -> results.put(feed, future.join()));
+					return results;
+				});
 	}
 
 	/**
-	 * Handles the creation of the custom error messages when the time or threshold intervals
-	 * are incorrect.
+	 * Appends the raw feed to the cache file of that feed.
+	 * @param feed The feed that was read.
+	 * @param json The raw {@code json} of the feed.
+	 */
+	private void cache(final Feed feed, final String json) {
+		final Cache cache = this.caches.computeIfAbsent(feed, key -> {
+			final Cache created = new Cache(key.getName(), this.cacheLocation, ".json", this.appendTimestamp, this.compressCache);
+			created.setWriter(this.cacheWriter);
+			return created;
+		});
+
+		try {
+			cache.append(json);
+		} catch(IOException e) {
+			System.err.println("Unable to write to cache file " + cache.getName());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Publishes the result of a fetch as the latest snapshot of the feed, unless a fetch of a
+	 * more recently generated feed finished first.
+	 * @param published  The reference the snapshots of the feed are published through.
+	 * @param feed       The feed that was fetched.
+	 * @param filter     The filter the quakes were kept with.
+	 * @param generated  When usgs.gov generated the feed, or 0 if unknown.
+	 * @param hash       The hash of the raw feed, or 0 if it wasn't hashed.
+	 * @param validators The validators usgs.gov sent with the feed.
+	 * @param quakes     The quakes of the feed.
+	 */
+	private static void publish(final AtomicReference<FeedSnapshot> published, final Feed feed, final QuakeFilter filter,
+	                            final long generated, final long hash, final Validators validators,
+	                            final List<Earthquake> quakes) {
+		published.updateAndGet(current -> current != null && current.getGenerated() > generated ? current
+				: new FeedSnapshot(feed, filter, generated, current == null ? 1 : current.getVersion() + 1, hash,
+						validators, quakes));
+	}
+
+	/**
+	 * Appends the new event versions of a feed to the event log.
+	 * @param log      The log to write to.
+	 * @param features Every feature of the feed.
+	 */
+	private void archive(final EventLog log, final List<QuakeStruct.Features> features) {
+		try {
+			log.appendAll(features);
+		} catch(IOException e) {
+			System.err.println("Unable to write to the event log");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Replaces the binary snapshot of a feed.
+	 * @param directory The directory of the snapshots.
+	 * @param feed      The feed the features belong to.
+	 * @param features  Every feature of the feed.
+	 */
+	private void snapshot(final File directory, final Feed feed, final List<QuakeStruct.Features> features) {
+		try {
+			BinaryCache.write(new File(directory, feed.getName() + BinaryCache.EXTENSION).toPath(), features);
+		} catch(IOException e) {
+			System.err.println("Unable to write the binary cache of " + feed.getName());
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Maps the binary cache file once and maps it again only when the file has been replaced,
+	 * e.g. by a live instance writing snapshots. A replaced mapping is released once it is
+	 * no longer referenced.
+	 * @return the mapped cache file.
+	 * @throws IOException if the file can't be mapped or is not a binary cache.
+	 */
+	private synchronized BinaryCache mapBinaryCache() throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(this.cacheFile.toPath(), BasicFileAttributes.class);
+		final BasicFileAttributes mapped = this.binaryAttributes;
+		// snapshots are moved over the file, so a new snapshot is a new file
+		if(this.binaryCache == null || !Objects.equals(attributes.fileKey(), mapped.fileKey())
+				|| !attributes.lastModifiedTime().equals(mapped.lastModifiedTime()) || attributes.size() != mapped.size()) {
+			this.binaryCache = BinaryCache.open(this.cacheFile.toPath());
+			this.binaryAttributes = attributes;
+		}
+		return this.binaryCache;
+	}
+
+	/**
+	 * Filters the list with the given filter. Features are checked before they are converted
+	 * so only the ones that pass become Earthquake objects. Package-private for the benchmarks.
 	 *
-	 * @param prepend Prepends the buffer with a custom message.
-	 * @param set     The set to combine into a comma-delimited list.
-	 * @return A comma-delimited list with a custom prepended message.
+	 * @param list      The list to filter.
+	 * @param filter    Decides which features are kept.
+	 * @param pool      The pool to convert on, or {@code null} to convert on this thread.
+	 * @param threshold The largest number of features converted as a single chunk.
+	 * @return A list of filtered Earthquake objects, in the order of the list.
 	 */
-	private static String buildErrors(final String prepend, final Set<String> set) {
-		String buffer = prepend;
-		buffer += set.stream().collect(Collectors.joining(", "));
-		return buffer;
+	static List<Earthquake> processFilter(List<QuakeStruct.Features> list, QuakeFilter filter,
+	                                      ForkJoinPool pool, int threshold) {
+		Preconditions.checkNotNull(list);
+		Preconditions.checkNotNull(filter);
+
+		final Metrics.Timing timing = Metrics.get().start(Metrics.Stage.FILTER);
+		try {
+			final List<Earthquake> quakes = pool == null || list.size() <= threshold
+					? processFilter(list, 0, list.size(), filter)
+					: pool.invoke(new ConvertTask(list, 0, list.size(), filter, threshold));
+			timing.filtered(list.size(), quakes.size());
+			return quakes;
+		} catch(RuntimeException e) {
+			timing.failed(e);
+			throw e;
+		}
 	}
 
 	/**
-	 * Filters the list using the default filter.
+	 * Filters and converts one chunk of the list.
 	 *
-	 * @param list The list to filter.
+	 * @param list   The list to filter.
+	 * @param from   The first index of the chunk, inclusive.
+	 * @param to     The last index of the chunk, exclusive.
+	 * @param filter Decides which features are kept.
 	 * @return A list of filtered Earthquake objects.
 	 */
-	private static List<Earthquake> processFilter(List<QuakeStruct.Features> list) {
-		// TODO: add support for custom filters
-		Preconditions.checkNotNull(list);
+	private static List<Earthquake> processFilter(List<QuakeStruct.Features> list, int from, int to, QuakeFilter filter) {
 		final List<Earthquake> quakes = new ArrayList<>();
 
-		if(!list.isEmpty()) {
-			list.forEach(feature -> quakes.add(filter(feature)));
+		for(int i = from; i < to; i++) {
+			final QuakeStruct.Features feature = list.get(i);
+			if(filter.acceptsFeature(feature)) {
+				final Earthquake quake = filter(feature);
+				if(filter.acceptsEarthquake(quake)) {
+					quakes.add(quake);
+				}
+			}
 		}
 
 		return quakes;
@@ -235,9 +738,9 @@ public class SimpleEarthquake {
 	 */
 	private static Earthquake filter(QuakeStruct.Features features) {
 		// variables spelled out for illustrative purposes
-		final double lon = features.getGeometry().getCoordinates().get(0);
-		final double lat = features.getGeometry().getCoordinates().get(1);
-		final double depth = features.getGeometry().getCoordinates().get(2);
+		final double lon = features.getGeometry().getLongitude();
+		final double lat = features.getGeometry().getLatitude();
+		final double depth = features.getGeometry().getDepth();
 		final double magnitude = features.getProperties().getMag();
 
 		final long time = features.getProperties().getTime();
@@ -248,6 +751,44 @@ public class SimpleEarthquake {
 		return new Earthquake(new Coordinate(lon, lat, depth), magnitude, description, id, time);
 	}
 
+	/**
+	 * Splits a list of features in halves until a chunk is small enough to convert directly.
+	 * The left half is forked and joined after the right half, so the results concatenate
+	 * back in the original order.
+	 */
+	private static final class ConvertTask extends RecursiveTask<List<Earthquake>> {
+		private static final long serialVersionUID = 1L;
+
+		private final List<QuakeStruct.Features> list;
+		private final int from, to, threshold;
+		private final QuakeFilter filter;
+
+		private ConvertTask(final List<QuakeStruct.Features> list, final int from, final int to,
+		                    final QuakeFilter filter, final int threshold) {
+			this.list = list;
+			this.from = from;
+			this.to = to;
+			this.filter = filter;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected List<Earthquake> compute() {
+			if(this.to - this.from <= this.threshold) {
+				return processFilter(this.list, this.from, this.to, this.filter);
+			}
+
+			final int middle = (this.from + this.to) >>> 1;
+			final ConvertTask left = new ConvertTask(this.list, this.from, middle, this.filter, this.threshold);
+			left.fork();
+			final List<Earthquake> right = new ConvertTask(this.list, middle, this.to, this.filter, this.threshold).compute();
+			final List<Earthquake> quakes = left.join();
+			quakes.addAll(right);
+
+			return quakes;
+		}
+	}
+
 //	/**
 //	 * @param uglyJson the ugly {@code json} string to beautify.
 //	 * @return the beautified {@code json} string.
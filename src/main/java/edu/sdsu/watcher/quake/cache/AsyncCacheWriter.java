@@ -0,0 +1,416 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.metrics.Metrics;
+import okio.Buffer;
+import okio.GzipSink;
+
+/**
+ * <p>Appends to cache files on a background thread so the threads that fetch feeds never
+ * wait on the disk. Appends are put on a bounded queue and return right away; the writer
+ * thread drains everything that is queued, groups it by file, and writes each group with a
+ * single call on a {@link FileChannel} it keeps open. Compressed groups are written as one
+ * gzip member.</p>
+ * <p>Each group is written under the same per-path lock the synchronous {@link CacheWriter}
+ * takes, so a background append never interleaves with a create or another append of the
+ * same file. When the queue is full an append fails at once instead of blocking.</p>
+ * <p>How often the data is forced to the disk is set by the {@link Sync} policy.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * try(AsyncCacheWriter writer = new AsyncCacheWriter.Builder().sync(AsyncCacheWriter.Sync.BATCH).build()) {
+ *     cache.setWriter(writer);
+ *     cache.append(json);
+ * }
+ * </pre>
+ */
+public final class AsyncCacheWriter implements Closeable {
+
+	/**
+	 * When written data is forced to the storage device.
+	 */
+	public enum Sync {
+		/**
+		 * Never; the operating system flushes on its own schedule. Fastest, but the latest
+		 * appends may be lost if the machine goes down.
+		 */
+		NONE,
+		/**
+		 * At most once per sync interval, after a batch is written.
+		 */
+		PERIODIC,
+		/**
+		 * After every batch, before its appends complete.
+		 */
+		BATCH
+	}
+
+	private static final Write STOP = new Write(null, null, false);
+
+	private final BlockingQueue<Write> queue;
+	private final int maxOpenFiles;
+	private final Sync sync;
+	private final long syncInterval;
+	private final Map<Path, FileChannel> channels;
+	private final Thread thread;
+	private volatile boolean closed;
+	private long lastSync = System.nanoTime();
+	private boolean dirty;
+
+	private AsyncCacheWriter(final Builder builder) {
+		this.queue = new ArrayBlockingQueue<>(builder.queueCapacity);
+		this.maxOpenFiles = builder.maxOpenFiles;
+		this.sync = builder.sync;
+		this.syncInterval = builder.syncInterval;
+		// least recently written first, so the channel of a file no longer written is closed first
+		this.channels = new LinkedHashMap<>(16, 0.75f, true);
+
+		this.thread = new Thread(this::run, "quake-cache-writer");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Queues an append without waiting for it.
+	 * @param path     the file to append to, created if it doesn't exist.
+	 * @param content  the content to append.
+	 * @param compress set true to gzip the content.
+	 * @return a future that completes once the content is written, and synced if the policy
+	 * says so, or fails if the queue is full, the writer is closed, or the write fails.
+	 */
+	public CompletableFuture<Void> append(final Path path, final String content, final boolean compress) {
+		Preconditions.checkNotNull(path);
+		Preconditions.checkNotNull(content);
+
+		final Write write = new Write(path, content, compress);
+		if(content.isEmpty()) {
+			write.done.complete(null);
+		} else if(this.closed) {
+			write.done.completeExceptionally(new IOException("The cache writer is closed"));
+		} else if(!this.queue.offer(write)) {
+			write.done.completeExceptionally(new IOException("The cache write queue is full"));
+		} else if(this.closed && !this.thread.isAlive() && this.queue.remove(write)) {
+			// queued after the writer drained the queue for the last time
+			write.done.completeExceptionally(new IOException("The cache writer is closed"));
+		}
+		return write.done;
+	}
+
+	/**
+	 * @return a future that completes once every append queued before it is written, or
+	 * fails if the writer is closed.
+	 */
+	public CompletableFuture<Void> flush() {
+		final Write marker = new Write(null, null, false);
+		if(this.closed) {
+			marker.done.completeExceptionally(new IOException("The cache writer is closed"));
+			return marker.done;
+		}
+
+		try {
+			// unlike an append, a flush is asked for by a caller that means to wait
+			this.queue.put(marker);
+			if(this.closed && !this.thread.isAlive() && this.queue.remove(marker)) {
+				// queued after the writer drained the queue for the last time
+				marker.done.completeExceptionally(new IOException("The cache writer is closed"));
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			marker.done.completeExceptionally(e);
+		}
+		return marker.done;
+	}
+
+	/**
+	 * @return the number of appends waiting to be written.
+	 */
+	public int pending() {
+		return this.queue.size();
+	}
+
+	/**
+	 * Stops accepting appends, writes everything already queued, forces it to the disk, and
+	 * closes the files.
+	 * @throws IOException if the writer is interrupted while draining the queue.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		try {
+			this.queue.put(STOP);
+			this.thread.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing the cache writer", e);
+		}
+
+		// queued after the writer's last drain while it was still closing its files; an
+		// append or flush that comes later sees the thread dead and takes itself back
+		this.failQueued();
+	}
+
+	private void run() {
+		final List<Write> batch = new ArrayList<>();
+
+		while(true) {
+			try {
+				final Write first = this.dirty
+						? this.queue.poll(this.syncInterval - (System.nanoTime() - this.lastSync), TimeUnit.NANOSECONDS)
+						: this.queue.take();
+				if(first == null) {
+					// nothing came in since the last unsynced batch
+					this.forceAll();
+					continue;
+				}
+				batch.add(first);
+			} catch(InterruptedException e) {
+				// only close() stops the writer
+				continue;
+			}
+			this.queue.drainTo(batch);
+
+			final boolean stop = batch.remove(STOP);
+			this.write(batch);
+			batch.clear();
+
+			if(stop) {
+				break;
+			}
+		}
+
+		// appends that raced with close() fail rather than wait forever
+		this.failQueued();
+
+		this.forceAll();
+		for(final Path path : new ArrayList<>(this.channels.keySet())) {
+			this.closeChannel(path);
+		}
+	}
+
+	private void failQueued() {
+		final List<Write> late = new ArrayList<>();
+		this.queue.drainTo(late);
+		late.forEach(write -> write.done.completeExceptionally(new IOException("The cache writer is closed")));
+	}
+
+	private void forceAll() {
+		for(final Map.Entry<Path, FileChannel> entry : this.channels.entrySet()) {
+			try {
+				entry.getValue().force(false);
+			} catch(IOException e) {
+				System.err.println("Unable to sync cache file " + entry.getKey());
+				e.printStackTrace();
+			}
+		}
+		this.lastSync = System.nanoTime();
+		this.dirty = false;
+	}
+
+	private void write(final List<Write> batch) {
+		final Map<Path, List<Write>> groups = new LinkedHashMap<>();
+		final List<Write> markers = new ArrayList<>();
+		for(final Write write : batch) {
+			if(write.path == null) {
+				markers.add(write);
+			} else {
+				groups.computeIfAbsent(write.path, key -> new ArrayList<>()).add(write);
+			}
+		}
+
+		final boolean force = this.sync == Sync.BATCH
+				|| (this.sync == Sync.PERIODIC && System.nanoTime() - this.lastSync >= this.syncInterval);
+
+		final List<Write> written = new ArrayList<>(batch.size());
+		for(final Map.Entry<Path, List<Write>> group : groups.entrySet()) {
+			final Lock lock = CacheWriter.lockOf(group.getKey());
+			lock.lock();
+			final Metrics.Timing timing = Metrics.get().start(Metrics.Stage.CACHE);
+			try {
+				final FileChannel channel = this.channelOf(group.getKey());
+				final ByteBuffer encoded = encode(group.getValue());
+				final long bytes = encoded.remaining();
+				writeFully(channel, encoded);
+				if(force) {
+					channel.force(false);
+				}
+				timing.cached(group.getKey(), true, bytes);
+				written.addAll(group.getValue());
+			} catch(IOException e) {
+				timing.failed(e);
+				this.closeChannel(group.getKey());
+				group.getValue().forEach(write -> write.done.completeExceptionally(e));
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		if(force) {
+			this.lastSync = System.nanoTime();
+			this.dirty = false;
+		} else if(this.sync == Sync.PERIODIC && !written.isEmpty()) {
+			this.dirty = true;
+		}
+
+		written.forEach(write -> write.done.complete(null));
+		markers.forEach(marker -> marker.done.complete(null));
+	}
+
+	private FileChannel channelOf(final Path path) throws IOException {
+		FileChannel channel = this.channels.get(path);
+		if(channel != null && Files.notExists(path)) {
+			// deleted since it was opened; don't write to the unlinked file
+			this.closeChannel(path);
+			channel = null;
+		}
+
+		if(channel == null) {
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			this.channels.put(path, channel);
+
+			if(this.channels.size() > this.maxOpenFiles) {
+				final Iterator<Path> eldest = this.channels.keySet().iterator();
+				this.closeChannel(eldest.next());
+			}
+		}
+		return channel;
+	}
+
+	private void closeChannel(final Path path) {
+		final FileChannel channel = this.channels.remove(path);
+		if(channel != null) {
+			try {
+				if(this.sync != Sync.NONE && channel.isOpen()) {
+					// closing doesn't sync, and forceAll() no longer sees the channel
+					channel.force(false);
+				}
+				channel.close();
+			} catch(IOException e) {
+				System.err.println("Unable to close cache file " + path);
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Encodes a group of appends into one buffer, gzip runs as a single member each.
+	 */
+	private static ByteBuffer encode(final List<Write> writes) throws IOException {
+		final Buffer out = new Buffer();
+		for(int i = 0; i < writes.size(); ) {
+			final boolean compress = writes.get(i).compress;
+			if(!compress) {
+				out.writeUtf8(writes.get(i++).content);
+				continue;
+			}
+
+			final Buffer plain = new Buffer();
+			for(; i < writes.size() && writes.get(i).compress; i++) {
+				plain.writeUtf8(writes.get(i).content);
+			}
+			try(GzipSink gzip = new GzipSink(out)) {
+				gzip.write(plain, plain.size());
+			}
+		}
+		return ByteBuffer.wrap(out.readByteArray());
+	}
+
+	private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Builds an {@link AsyncCacheWriter} and starts its thread.
+	 */
+	public static final class Builder {
+
+		private int queueCapacity = 1024;
+		private int maxOpenFiles = 32;
+		private Sync sync = Sync.PERIODIC;
+		private long syncInterval = TimeUnit.SECONDS.toNanos(1);
+
+		/**
+		 * @param queueCapacity the most appends that may wait; appends beyond it fail.
+		 * @return this builder.
+		 */
+		public Builder queueCapacity(final int queueCapacity) {
+			Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		/**
+		 * @param maxOpenFiles the most files kept open; the least recently written is closed first.
+		 * @return this builder.
+		 */
+		public Builder maxOpenFiles(final int maxOpenFiles) {
+			Preconditions.checkArgument(maxOpenFiles > 0, "maxOpenFiles must be positive");
+			this.maxOpenFiles = maxOpenFiles;
+			return this;
+		}
+
+		/**
+		 * @param sync when written data is forced to the disk, {@link Sync#PERIODIC} by default.
+		 * @return this builder.
+		 */
+		public Builder sync(final Sync sync) {
+			this.sync = Preconditions.checkNotNull(sync);
+			return this;
+		}
+
+		/**
+		 * @param interval the least time between two syncs under {@link Sync#PERIODIC}, one second by default.
+		 * @param unit     the unit of the interval.
+		 * @return this builder.
+		 */
+		public Builder syncInterval(final long interval, final TimeUnit unit) {
+			Preconditions.checkArgument(interval >= 0, "interval must not be negative");
+			this.syncInterval = unit.toNanos(interval);
+			return this;
+		}
+
+		/**
+		 * @return a new writer, already running.
+		 */
+		public AsyncCacheWriter build() {
+			return new AsyncCacheWriter(this);
+		}
+
+	}
+
+	private static final class Write {
+		private final Path path;
+		private final String content;
+		private final boolean compress;
+		private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+		private Write(final Path path, final String content, final boolean compress) {
+			this.path = path;
+			this.content = content;
+			this.compress = compress;
+		}
+	}
+
+}
@@ -0,0 +1,290 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+/**
+ * <p>A binary alternative to the {@code json} cache files. Quakes are stored as fixed-width
+ * records and every string once in a string table, so a cache is read by mapping the file
+ * into memory and reading the records in place: no parsing, and nothing is allocated for a
+ * record that a {@link QuakeFilter} rejects.</p>
+ * <p>Layout, big-endian:</p>
+ * <pre>
+ * header   int magic "QWBC", short version, short record size, int record count,
+ *          int string count, long offset of the string table        (24 bytes)
+ * records  double longitude, latitude, depth, magnitude, long time, updated,
+ *          int id, title, alert (string indexes, -1 for none), int tsunami (64 bytes each)
+ * strings  int[string count + 1] offsets into the UTF-8 bytes that follow
+ * </pre>
+ * <p>{@link edu.sdsu.watcher.quake.SimpleEarthquake#setBinaryCache(File)} keeps a snapshot of
+ * every live feed, which {@link edu.sdsu.watcher.quake.SimpleEarthquake#SimpleEarthquake(File)}
+ * reads back on a warm restart. Sample usage:</p>
+ * <pre>
+ * final SimpleEarthquake live = new SimpleEarthquake();
+ * live.setBinaryCache(new File("cache"));
+ * live.getEarthquakes(new Feed("all", "month"));
+ * // later, without a network round trip or any parsing
+ * final List&lt;Earthquake&gt; quakes = BinaryCache.open(Paths.get("cache", "all_month.qwb")).readAll();
+ * </pre>
+ */
+public final class BinaryCache {
+
+	/**
+	 * The extension of binary cache files.
+	 */
+	public static final String EXTENSION = ".qwb";
+
+	static final int MAGIC = 0x51574243;
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 24;
+	static final int RECORD_SIZE = 64;
+
+	private static final int NONE = -1;
+
+	private final ByteBuffer buffer;
+	private final int count, strings;
+	private final long stringTable;
+
+	private BinaryCache(final ByteBuffer buffer) throws IOException {
+		if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a binary cache file");
+		}
+
+		if(buffer.getShort(4) != VERSION || buffer.getShort(6) != RECORD_SIZE) {
+			throw new IOException("Unsupported binary cache version " + buffer.getShort(4));
+		}
+
+		this.buffer = buffer;
+		this.count = buffer.getInt(8);
+		this.strings = buffer.getInt(12);
+		this.stringTable = buffer.getLong(16);
+
+		if(this.stringTable != HEADER_SIZE + (long) this.count * RECORD_SIZE
+				|| this.stringTable + 4L * (this.strings + 1) > buffer.capacity()) {
+			throw new IOException("Truncated binary cache file");
+		}
+	}
+
+	/**
+	 * @param file the file to check.
+	 * @return true if the file has the binary cache extension.
+	 */
+	public static boolean isBinary(final File file) {
+		return file.getName().endsWith(EXTENSION);
+	}
+
+	/**
+	 * Maps a binary cache file into memory. The file is not read until records are accessed.
+	 * @param path the cache file.
+	 * @return the mapped cache.
+	 * @throws IOException if the file can't be mapped or is not a binary cache.
+	 */
+	public static BinaryCache open(final Path path) throws IOException {
+		Preconditions.checkNotNull(path);
+
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			// the mapping stays valid once the channel is closed
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new BinaryCache(buffer);
+		}
+	}
+
+	/**
+	 * Writes the features as a binary cache. The file is written next to the target and moved
+	 * over it, so readers never see a partial cache.
+	 * @param path     the cache file, replaced if it exists.
+	 * @param features the features to store, in order.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void write(final Path path, final List<QuakeStruct.Features> features) throws IOException {
+		Preconditions.checkNotNull(path);
+		Preconditions.checkNotNull(features);
+
+		// the string table goes last but its size goes in the header, so it is built up front
+		final Map<String, Integer> table = new LinkedHashMap<>();
+		for(final QuakeStruct.Features feature : features) {
+			final QuakeStruct.Features.Properties properties = feature.getProperties();
+			index(table, feature.getId());
+			if(properties != null) {
+				index(table, properties.getTitle());
+				index(table, properties.getAlert());
+			}
+		}
+
+		final Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+
+		try {
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(MAGIC);
+				out.writeShort(VERSION);
+				out.writeShort(RECORD_SIZE);
+				out.writeInt(features.size());
+				out.writeInt(table.size());
+				out.writeLong(HEADER_SIZE + (long) features.size() * RECORD_SIZE);
+
+				for(final QuakeStruct.Features feature : features) {
+					final QuakeStruct.Features.Geometry geometry = feature.getGeometry();
+					final QuakeStruct.Features.Properties properties = feature.getProperties();
+
+					out.writeDouble(geometry == null ? 0 : geometry.getLongitude());
+					out.writeDouble(geometry == null ? 0 : geometry.getLatitude());
+					out.writeDouble(geometry == null ? 0 : geometry.getDepth());
+					out.writeDouble(properties == null ? 0 : properties.getMag());
+					out.writeLong(properties == null ? 0 : properties.getTime());
+					out.writeLong(properties == null ? 0 : properties.getUpdated());
+					out.writeInt(index(table, feature.getId()));
+					out.writeInt(index(table, properties == null ? null : properties.getTitle()));
+					out.writeInt(index(table, properties == null ? null : properties.getAlert()));
+					out.writeInt(properties == null ? 0 : properties.getTsunami());
+				}
+
+				final List<byte[]> bytes = new ArrayList<>(table.size());
+				int offset = 0;
+				out.writeInt(offset);
+				for(final String value : table.keySet()) {
+					final byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+					bytes.add(encoded);
+					offset += encoded.length;
+					out.writeInt(offset);
+				}
+
+				for(final byte[] encoded : bytes) {
+					out.write(encoded);
+				}
+			}
+
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * @return the number of quakes in the cache.
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * @param index the position of the quake.
+	 * @return a new Earthquake for the record.
+	 */
+	public Earthquake get(final int index) {
+		Preconditions.checkElementIndex(index, this.count);
+		final int record = HEADER_SIZE + index * RECORD_SIZE;
+
+		return new Earthquake(
+				new Coordinate(this.buffer.getDouble(record), this.buffer.getDouble(record + 8), this.buffer.getDouble(record + 16)),
+				this.buffer.getDouble(record + 24),
+				this.string(this.buffer.getInt(record + 52)),
+				this.string(this.buffer.getInt(record + 48)),
+				this.buffer.getLong(record + 32)
+		);
+	}
+
+	/**
+	 * @param index the position of the quake.
+	 * @return the time the event was last revised, in epoch milliseconds.
+	 */
+	public long getUpdated(final int index) {
+		Preconditions.checkElementIndex(index, this.count);
+		return this.buffer.getLong(HEADER_SIZE + index * RECORD_SIZE + 40);
+	}
+
+	/**
+	 * @return every quake in the cache, in the order they were written.
+	 */
+	public List<Earthquake> readAll() {
+		return this.read(QuakeFilter.NONE);
+	}
+
+	/**
+	 * @param filter decides which quakes are kept.
+	 * @return the kept quakes, in the order they were written.
+	 */
+	public List<Earthquake> read(final QuakeFilter filter) {
+		final List<Earthquake> quakes = new ArrayList<>();
+		this.read(filter, quakes::add);
+		return quakes;
+	}
+
+	/**
+	 * Checks the numeric fields of every record in place and only builds an Earthquake for
+	 * the records the filter keeps.
+	 * @param filter   decides which quakes are kept.
+	 * @param consumer receives the kept quakes, in the order they were written.
+	 */
+	public void read(final QuakeFilter filter, final Consumer<Earthquake> consumer) {
+		Preconditions.checkNotNull(filter);
+		Preconditions.checkNotNull(consumer);
+
+		for(int i = 0; i < this.count; i++) {
+			final int record = HEADER_SIZE + i * RECORD_SIZE;
+			final String alert = filter.filtersAlert() ? this.string(this.buffer.getInt(record + 56)) : null;
+
+			if(filter.acceptsProperties(this.buffer.getDouble(record + 24), this.buffer.getLong(record + 32), alert,
+					this.buffer.getInt(record + 60))
+					&& filter.acceptsLocation(this.buffer.getDouble(record), this.buffer.getDouble(record + 8),
+					this.buffer.getDouble(record + 16))) {
+				final Earthquake quake = this.get(i);
+				if(filter.acceptsEarthquake(quake)) {
+					consumer.accept(quake);
+				}
+			}
+		}
+	}
+
+	private String string(final int index) {
+		if(index == NONE) {
+			return null;
+		}
+
+		final long offsets = this.stringTable;
+		final long bytes = offsets + 4L * (this.strings + 1);
+		final int start = this.buffer.getInt((int) (offsets + 4L * index));
+		final int end = this.buffer.getInt((int) (offsets + 4L * (index + 1)));
+
+		final byte[] value = new byte[end - start];
+		final ByteBuffer slice = this.buffer.duplicate();
+		slice.position((int) (bytes + start));
+		slice.get(value);
+
+		return new String(value, StandardCharsets.UTF_8);
+	}
+
+	private static int index(final Map<String, Integer> table, final String value) {
+		if(value == null) {
+			return NONE;
+		}
+
+		Integer index = table.get(value);
+		if(index == null) {
+			index = table.size();
+			table.put(value, index);
+		}
+		return index;
+	}
+
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.common.base.Preconditions;
 import edu.sdsu.watcher.quake.io.FileIOHelper;
@@ -21,6 +22,7 @@ import edu.sdsu.watcher.quake.io.FileIOHelper;
  * <ul>
  *      <li>Create files at a specified location</li>
  *      <li>Adds a timestamp to the name of the file (can be configured)</li>
+ *      <li>Compresses the file with gzip (can be configured)</li>
  *      <li>Provide uses with the ability to run CRUD operations on existing caches</li>
  * </ul>
  */
@@ -30,8 +32,9 @@ public class Cache {
 	private static final String DEFAULT_FILE_EXT = ".json";
 
 	private String name, location, extension;
-	private boolean appendTimestamp;
+	private boolean appendTimestamp, compressed;
 	private Path path;
+	private volatile AsyncCacheWriter writer;
 
 	/**
 	 * @param fileName The name of the cache file.
@@ -66,12 +69,24 @@ public class Cache {
 	 * @param appendTimestamp Set true to append the timestamp to the cache file name.
 	 */
 	public Cache(String fileName, String location, String extension, boolean appendTimestamp) {
+		this(fileName, location, extension, appendTimestamp, false);
+	}
+
+	/**
+	 * @param fileName        The name of the cache file.
+	 * @param location        The location to store the cache file.
+	 * @param extension       The extension to give the cache file.
+	 * @param appendTimestamp Set true to append the timestamp to the cache file name.
+	 * @param compressed      Set true to gzip the cache file; {@code .gz} is added to its name.
+	 */
+	public Cache(String fileName, String location, String extension, boolean appendTimestamp, boolean compressed) {
 		Preconditions.checkNotNull(location, extension);
 		Preconditions.checkArgument(!location.isEmpty());
 		Preconditions.checkArgument(extension.matches("\\.\\w+"));
 
 		this.extension = extension;
 		this.appendTimestamp = appendTimestamp;
+		this.compressed = compressed;
 		this.name = fileName;
 
 		if(this.name != null && !this.name.isEmpty()) {
@@ -79,6 +94,9 @@ public class Cache {
 				this.name += "_" + TIME;
 			}
 			this.name += normalizeExtension(extension);
+			if(this.compressed) {
+				this.name += FileIOHelper.GZIP_EXTENSION;
+			}
 		}
 
 		this.location = location;
@@ -92,6 +110,13 @@ public class Cache {
 		return this.appendTimestamp;
 	}
 
+	/**
+	 * @return True if the cache file is gzip compressed.
+	 */
+	public boolean isCompressed() {
+		return this.compressed;
+	}
+
 	/**
 	 * @return The name of the cache file.
 	 */
@@ -114,18 +139,60 @@ public class Cache {
 			this.name = name;
 			if(this.appendTimestamp) this.name += TIME;
 			this.name += this.extension;
+			if(this.compressed) this.name += FileIOHelper.GZIP_EXTENSION;
 			this.path = Paths.get(this.location, this.name);
 		}
 	}
 
 	/**
-	 * Appends data to the cache file.
+	 * Hands appends to a background writer instead of writing them on the calling thread.
+	 * Pass {@code null} to write on the calling thread again.
+	 * @param writer The writer to queue appends on, may be shared between caches.
+	 */
+	public void setWriter(final AsyncCacheWriter writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Appends data to the cache file. With a writer set, the content is only queued and a
+	 * failed write is reported on {@code System.err}; use {@link #appendAsync(String)} to
+	 * be told about it.
 	 * @param content The message to append to the cache file.
 	 * @throws IOException Thrown upon error when writing to the file.
 	 */
 	public void append(String content) throws IOException {
 		Preconditions.checkNotNull(this.path);
-		CacheWriter.append(this.path, content);
+		if(this.writer == null) {
+			CacheWriter.append(this.path, content, this.compressed);
+		} else {
+			this.appendAsync(content).exceptionally(e -> {
+				System.err.println("Unable to write to cache file " + this.name);
+				e.printStackTrace();
+				return null;
+			});
+		}
+	}
+
+	/**
+	 * Appends data to the cache file on the writer set with {@link #setWriter(AsyncCacheWriter)},
+	 * or on the calling thread if there is none.
+	 * @param content The message to append to the cache file.
+	 * @return A future that completes once the content is written.
+	 */
+	public CompletableFuture<Void> appendAsync(String content) {
+		Preconditions.checkNotNull(this.path);
+		if(this.writer != null) {
+			return this.writer.append(this.path, content, this.compressed);
+		}
+
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		try {
+			CacheWriter.append(this.path, content, this.compressed);
+			done.complete(null);
+		} catch(IOException e) {
+			done.completeExceptionally(e);
+		}
+		return done;
 	}
 
 	/**
@@ -134,7 +201,7 @@ public class Cache {
 	 * @throws IOException Thrown upon error when writing to the file.
 	 */
 	public void create(String content) throws IOException {
-		CacheWriter.create(this.path, content);
+		CacheWriter.create(this.path, content, this.compressed);
 	}
 
 	/**
@@ -0,0 +1,431 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+import edu.sdsu.watcher.quake.io.FileIOHelper;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+import edu.sdsu.watcher.quake.structures.QuakeStructAdapterFactory;
+
+/**
+ * <p>Merges the timestamped files a long-running {@link Cache} leaves behind, e.g.
+ * {@code all_hour_1461399586000.json}, into one snapshot per day. Every input is streamed
+ * feed by feed, only the latest version of each event id is kept, and the events are written
+ * to {@code <name>-<yyyy-MM-dd>.json}, partitioned by the UTC day the event happened on.
+ * Snapshots are ordinary feeds that {@code SimpleEarthquake(File)} can read.</p>
+ * <p>Each input is first renamed to {@code <file>.compacting.json} under the lock
+ * {@link Cache} writes it with, so an append that comes later starts a new file instead of
+ * landing in one that is about to be deleted. An input that can't be read is kept under its
+ * claimed name and reported on every run. Only the snapshots of the days the inputs touch,
+ * and the day either side in case an event's time was revised across midnight, are read and
+ * merged, and only the days that changed are rewritten. Each snapshot is written next to its
+ * target and moved over it atomically, then the merged inputs are deleted. If compaction stops
+ * before the inputs are gone, running it again merges them a second time with the same
+ * result.</p>
+ * <p>Files modified within the minimum age are left alone, since the cache of a running
+ * {@code SimpleEarthquake} may still be appending to them.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final CacheCompactor compactor = new CacheCompactor.Builder(Paths.get("cache")).compress(true).build();
+ * final CacheCompactor.Result result = compactor.compact("all_hour");
+ * </pre>
+ */
+public final class CacheCompactor {
+
+	private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new QuakeStructAdapterFactory()).create();
+	private static final String EXTENSION = ".json";
+	private static final String CLAIMED = ".compacting";
+	private static final Pattern CLAIMED_NAME = Pattern.compile(".*" + Pattern.quote(CLAIMED) + "(-\\d+)?\\.json(\\.gz)?");
+
+	private final Path directory;
+	private final boolean compress;
+	private final long minimumAge;
+
+	private CacheCompactor(final Builder builder) {
+		this.directory = builder.directory;
+		this.compress = builder.compress;
+		this.minimumAge = builder.minimumAge;
+	}
+
+	/**
+	 * Compacts every timestamped cache file of the name into daily snapshots.
+	 * @param name the name the cache files were created with, e.g. {@code all_hour}.
+	 * @return what was merged and written.
+	 * @throws IOException if the directory can't be listed or a snapshot can't be written;
+	 * the claimed inputs are kept for the next run.
+	 */
+	public Result compact(final String name) throws IOException {
+		Preconditions.checkNotNull(name);
+		Preconditions.checkArgument(!name.isEmpty());
+
+		// the latest version of every event in the inputs; between inputs the later file wins
+		final Map<String, Version> fresh = new HashMap<>();
+		final Set<LocalDate> unused = new HashSet<>();
+		final List<Path> inputs = new ArrayList<>();
+		for(final Path file : this.inputs(name)) {
+			final Path input;
+			try {
+				input = claim(file);
+			} catch(IOException e) {
+				// left where it is for the next run
+				System.err.println("Unable to claim cache file " + file);
+				e.printStackTrace();
+				continue;
+			}
+
+			try {
+				final List<QuakeStruct.Features> features = new ArrayList<>();
+				this.read(input, features::add);
+
+				// merged only once the whole file was read
+				features.forEach(feature -> merge(fresh, unused, feature, null));
+				inputs.add(input);
+			} catch(IOException | RuntimeException e) {
+				// a file cut short by a crash; keep it and compact the rest
+				System.err.println("Skipping unreadable cache file " + input);
+				e.printStackTrace();
+			}
+		}
+
+		final Set<LocalDate> touched = new HashSet<>();
+		for(final Version version : fresh.values()) {
+			touched.add(version.day.minusDays(1));
+			touched.add(version.day);
+			touched.add(version.day.plusDays(1));
+		}
+
+		final Map<String, Version> latest = new HashMap<>();
+		final Set<LocalDate> changed = new HashSet<>();
+
+		// snapshots first, so an input only replaces the version they hold if it is newer
+		final Map<LocalDate, Path> snapshots = this.snapshots(name);
+		snapshots.keySet().retainAll(touched);
+		for(final Map.Entry<LocalDate, Path> snapshot : snapshots.entrySet()) {
+			this.read(snapshot.getValue(), feature -> merge(latest, changed, feature, snapshot.getKey()));
+		}
+		for(final Version version : fresh.values()) {
+			merge(latest, changed, version.feature, null);
+		}
+
+		final Map<LocalDate, List<QuakeStruct.Features>> days = new TreeMap<>();
+		for(final Version version : latest.values()) {
+			days.computeIfAbsent(version.day, key -> new ArrayList<>()).add(version.feature);
+		}
+
+		int written = 0;
+		for(final LocalDate day : changed) {
+			final Path target = this.directory.resolve(snapshotName(name, day));
+			final List<QuakeStruct.Features> features = days.get(day);
+
+			if(features == null) {
+				// every event of the day moved to another day
+				Files.deleteIfExists(target);
+			} else {
+				features.sort((a, b) -> Long.compare(b.getProperties().getTime(), a.getProperties().getTime()));
+				this.write(target, name, features);
+				written++;
+			}
+
+			final Path previous = snapshots.get(day);
+			if(previous != null && !previous.equals(target)) {
+				// the compression setting changed since the day was last written
+				Files.deleteIfExists(previous);
+			}
+		}
+
+		for(final Path input : inputs) {
+			Files.deleteIfExists(input);
+		}
+
+		return new Result(inputs.size(), latest.size(), written);
+	}
+
+	/**
+	 * @param name the name the cache files were created with.
+	 * @return the snapshots of the name by day, oldest first.
+	 * @throws IOException if the directory can't be listed.
+	 */
+	public Map<LocalDate, Path> snapshots(final String name) throws IOException {
+		final Pattern pattern = Pattern.compile(Pattern.quote(name) + "-(\\d{4}-\\d{2}-\\d{2})\\.json(\\.gz)?");
+		final Map<LocalDate, Path> snapshots = new TreeMap<>();
+
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+			for(final Path file : files) {
+				final Matcher matcher = pattern.matcher(file.getFileName().toString());
+				if(matcher.matches()) {
+					snapshots.put(LocalDate.parse(matcher.group(1)), file);
+				}
+			}
+		}
+		return snapshots;
+	}
+
+	/**
+	 * @param name the name the cache files were created with.
+	 * @return the timestamped cache files of the name old enough to compact, oldest first,
+	 * including the ones an earlier compaction claimed but didn't finish.
+	 * @throws IOException if the directory can't be listed.
+	 */
+	List<Path> inputs(final String name) throws IOException {
+		// Cache adds "_" before the timestamp, Cache#setName doesn't
+		final Pattern pattern = Pattern.compile(Pattern.quote(name) + "_?(\\d+)(" + Pattern.quote(CLAIMED) + "(-\\d+)?)?\\.json(\\.gz)?");
+		final long newest = System.currentTimeMillis() - this.minimumAge;
+		final Map<Long, List<Path>> inputs = new TreeMap<>();
+
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+			for(final Path file : files) {
+				final Matcher matcher = pattern.matcher(file.getFileName().toString());
+				if(matcher.matches() && Files.getLastModifiedTime(file).toMillis() <= newest) {
+					inputs.computeIfAbsent(Long.parseLong(matcher.group(1)), key -> new ArrayList<>()).add(file);
+				}
+			}
+		}
+
+		final List<Path> sorted = new ArrayList<>();
+		inputs.values().forEach(sorted::addAll);
+		return sorted;
+	}
+
+	/**
+	 * Renames the input while holding its write lock, so the cache starts a new file for
+	 * whatever it appends next. An unreadable input claimed earlier keeps its name, so the
+	 * cache may have since written a new file with the same timestamp; that one is claimed
+	 * with a number, e.g. {@code all_hour_1461399586000.compacting-1.json}.
+	 * @param input a cache file.
+	 * @return the renamed file.
+	 */
+	private static Path claim(final Path input) throws IOException {
+		final String file = input.getFileName().toString();
+		if(CLAIMED_NAME.matcher(file).matches()) {
+			return input;
+		}
+
+		final int extension = file.lastIndexOf(EXTENSION);
+		final Lock lock = CacheWriter.lockOf(input);
+		lock.lock();
+		try {
+			Path claimed = input.resolveSibling(file.substring(0, extension) + CLAIMED + file.substring(extension));
+			// an atomic move may replace an existing file, so the name is checked first
+			for(int i = 1; Files.exists(claimed, LinkOption.NOFOLLOW_LINKS); i++) {
+				claimed = input.resolveSibling(file.substring(0, extension) + CLAIMED + "-" + i + file.substring(extension));
+			}
+
+			try {
+				Files.move(input, claimed, StandardCopyOption.ATOMIC_MOVE);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(input, claimed);
+			}
+			return claimed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void read(final Path file, final Consumer<QuakeStruct.Features> consumer) throws IOException {
+		try(Reader reader = new InputStreamReader(FileIOHelper.newInputStream(file), StandardCharsets.UTF_8)) {
+			DecodeStream.concatenatedFeatures(reader, consumer);
+		}
+	}
+
+	private void write(final Path target, final String name, final List<QuakeStruct.Features> features) throws IOException {
+		final Path temp = Files.createTempFile(this.directory, target.getFileName().toString(), ".tmp");
+
+		try {
+			OutputStream out = Files.newOutputStream(temp);
+			if(this.compress) {
+				out = new GZIPOutputStream(out, 8192);
+			}
+
+			try(Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			    JsonWriter json = new JsonWriter(writer)) {
+				json.beginObject();
+				json.name("type").value("FeatureCollection");
+				json.name("metadata").beginObject();
+				json.name("generated").value(System.currentTimeMillis());
+				json.name("title").value(name + " snapshot");
+				json.name("count").value(features.size());
+				json.endObject();
+				json.name("features").beginArray();
+				for(final QuakeStruct.Features feature : features) {
+					GSON.toJson(feature, QuakeStruct.Features.class, json);
+				}
+				json.endArray();
+				json.endObject();
+			}
+
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private String snapshotName(final String name, final LocalDate day) {
+		return name + "-" + day + EXTENSION + (this.compress ? FileIOHelper.GZIP_EXTENSION : "");
+	}
+
+	/**
+	 * Keeps the feature if it is the newest version of its event seen so far, and marks the
+	 * days whose snapshot must be rewritten. A snapshot keeps its version on a tie so an
+	 * input that only repeats it changes nothing; between inputs the later file wins.
+	 * @param snapshot the day of the snapshot the feature was read from, {@code null} for an input.
+	 */
+	private static void merge(final Map<String, Version> latest, final Set<LocalDate> changed,
+	                          final QuakeStruct.Features feature, final LocalDate snapshot) {
+		if(feature.getId() == null || feature.getProperties() == null) {
+			return;
+		}
+
+		final Version version = new Version(feature, snapshot);
+		final Version previous = latest.get(feature.getId());
+		if(previous != null && (previous.updated > version.updated
+				|| (previous.updated == version.updated && previous.snapshot != null))) {
+			return;
+		}
+
+		latest.put(feature.getId(), version);
+		if(snapshot == null) {
+			changed.add(version.day);
+			if(previous != null && previous.snapshot != null) {
+				// the event leaves the snapshot it was in, even when the day stays the same
+				changed.add(previous.snapshot);
+			}
+		}
+	}
+
+	/**
+	 * What a compaction did.
+	 */
+	public static final class Result {
+
+		private final int inputs, events, snapshots;
+
+		private Result(final int inputs, final int events, final int snapshots) {
+			this.inputs = inputs;
+			this.events = events;
+			this.snapshots = snapshots;
+		}
+
+		/**
+		 * @return the number of cache files merged and deleted.
+		 */
+		public int getInputs() {
+			return this.inputs;
+		}
+
+		/**
+		 * @return the number of distinct events in the days that were merged.
+		 */
+		public int getEvents() {
+			return this.events;
+		}
+
+		/**
+		 * @return the number of snapshots written.
+		 */
+		public int getSnapshots() {
+			return this.snapshots;
+		}
+
+		@Override
+		public String toString() {
+			return "Result[inputs=" + inputs + ", events=" + events + ", snapshots=" + snapshots + ']';
+		}
+
+	}
+
+	/**
+	 * Builds a {@link CacheCompactor}.
+	 */
+	public static final class Builder {
+
+		private final Path directory;
+		private boolean compress;
+		private long minimumAge = TimeUnit.MINUTES.toMillis(10);
+
+		/**
+		 * @param directory the directory of the cache files; snapshots are written there too.
+		 */
+		public Builder(final Path directory) {
+			this.directory = Preconditions.checkNotNull(directory);
+		}
+
+		/**
+		 * @param compress set true to gzip the snapshots.
+		 * @return this builder.
+		 */
+		public Builder compress(final boolean compress) {
+			this.compress = compress;
+			return this;
+		}
+
+		/**
+		 * @param age  how long a cache file must go unmodified before it is compacted, ten minutes by default.
+		 * @param unit the unit of the age.
+		 * @return this builder.
+		 */
+		public Builder minimumAge(final long age, final TimeUnit unit) {
+			Preconditions.checkArgument(age >= 0, "age must not be negative");
+			this.minimumAge = unit.toMillis(age);
+			return this;
+		}
+
+		/**
+		 * @return a new compactor.
+		 */
+		public CacheCompactor build() {
+			return new CacheCompactor(this);
+		}
+
+	}
+
+	private static final class Version {
+		private final QuakeStruct.Features feature;
+		private final long updated;
+		private final LocalDate day;
+		private final LocalDate snapshot;
+
+		private Version(final QuakeStruct.Features feature, final LocalDate snapshot) {
+			this.feature = feature;
+			this.updated = feature.getProperties().getUpdated();
+			this.day = Instant.ofEpochMilli(feature.getProperties().getTime()).atZone(ZoneOffset.UTC).toLocalDate();
+			this.snapshot = snapshot;
+		}
+	}
+
+}
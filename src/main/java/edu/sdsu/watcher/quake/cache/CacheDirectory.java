@@ -0,0 +1,145 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+import edu.sdsu.watcher.quake.io.FileIOHelper;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+/**
+ * <p>Reads every cache file of a directory that matches a glob, e.g. a week of archived
+ * polls, as a single source. Files are parsed in parallel, one task per file, through
+ * buffered streams; each file may hold several feeds back to back, as {@link Cache#append}
+ * writes them, and {@code .gz} files are decompressed on the fly. {@link EventLog} files are
+ * read through their index.</p>
+ * <p>The results are merged by event id: the version with the latest {@code updated} time
+ * wins, and on a tie the file that sorts last by name. The merged events are ordered newest
+ * first, like a usgs.gov feed.</p>
+ * <p>A file that can't be read, e.g. one cut short by a crash, is reported and skipped so
+ * the rest of the directory still loads.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final CacheDirectory archive = new CacheDirectory(Paths.get("cache"), "all_hour*.json*");
+ * final List&lt;QuakeStruct.Features&gt; features = archive.load(ForkJoinPool.commonPool());
+ * </pre>
+ */
+public final class CacheDirectory {
+
+	/**
+	 * Matches every kind of {@code json} cache file.
+	 */
+	public static final String DEFAULT_GLOB = "*.{json,json.gz,ndjson}";
+
+	private final Path directory;
+	private final String glob;
+
+	/**
+	 * @param directory the directory to read.
+	 * @param glob      the names of the files to read, e.g. {@code all_hour_*.json}.
+	 */
+	public CacheDirectory(final Path directory, final String glob) {
+		Preconditions.checkNotNull(directory);
+		Preconditions.checkNotNull(glob);
+		Preconditions.checkArgument(Files.isDirectory(directory), "%s is not a directory", directory);
+		Preconditions.checkArgument(!glob.isEmpty());
+
+		this.directory = directory;
+		this.glob = glob;
+	}
+
+	/**
+	 * @return the files that match the glob, sorted by name.
+	 * @throws IOException if the directory can't be listed.
+	 */
+	public List<Path> files() throws IOException {
+		final List<Path> files = new ArrayList<>();
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, this.glob)) {
+			for(final Path file : stream) {
+				if(Files.isRegularFile(file)) {
+					files.add(file);
+				}
+			}
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Parses every matching file on the executor and merges the results.
+	 * @param executor runs one parse task per file.
+	 * @return the latest version of every event, newest event first.
+	 * @throws IOException if the directory can't be listed.
+	 */
+	public List<QuakeStruct.Features> load(final Executor executor) throws IOException {
+		Preconditions.checkNotNull(executor);
+
+		final List<CompletableFuture<Map<String, QuakeStruct.Features>>> parsed = new ArrayList<>();
+		for(final Path file : this.files()) {
+			parsed.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return read(file);
+				} catch(IOException | RuntimeException e) {
+					System.err.println("Skipping unreadable cache file " + file);
+					e.printStackTrace();
+					return Collections.emptyMap();
+				}
+			}, executor));
+		}
+
+		// merged in file order so ties go the same way however the tasks were scheduled
+		final Map<String, QuakeStruct.Features> latest = new HashMap<>();
+		for(final CompletableFuture<Map<String, QuakeStruct.Features>> future : parsed) {
+			future.join().forEach((id, feature) -> keepLatest(latest, feature));
+		}
+
+		final List<QuakeStruct.Features> features = new ArrayList<>(latest.values());
+		features.sort((a, b) -> Long.compare(b.getProperties().getTime(), a.getProperties().getTime()));
+		return features;
+	}
+
+	/**
+	 * @param file the file to parse.
+	 * @return the latest version of every event of the file by id.
+	 */
+	private static Map<String, QuakeStruct.Features> read(final Path file) throws IOException {
+		final Map<String, QuakeStruct.Features> latest = new HashMap<>();
+
+		if(EventLog.isLog(file.toFile())) {
+			// read-only: the log may belong to a running poller
+			try(EventLog log = EventLog.openReadOnly(file.toFile())) {
+				log.latest().forEach(feature -> keepLatest(latest, feature));
+			}
+		} else {
+			try(Reader reader = new InputStreamReader(FileIOHelper.newInputStream(file), StandardCharsets.UTF_8)) {
+				DecodeStream.concatenatedFeatures(reader, feature -> keepLatest(latest, feature));
+			}
+		}
+		return latest;
+	}
+
+	private static void keepLatest(final Map<String, QuakeStruct.Features> latest, final QuakeStruct.Features feature) {
+		if(feature.getId() == null || feature.getProperties() == null) {
+			return;
+		}
+
+		final QuakeStruct.Features previous = latest.get(feature.getId());
+		if(previous == null || previous.getProperties().getUpdated() <= feature.getProperties().getUpdated()) {
+			latest.put(feature.getId(), feature);
+		}
+	}
+
+}
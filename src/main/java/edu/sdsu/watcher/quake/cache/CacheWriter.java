@@ -4,17 +4,41 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+
+import com.google.common.util.concurrent.Striped;
+import edu.sdsu.watcher.quake.metrics.Metrics;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.GzipSink;
+import okio.Okio;
+import okio.Sink;
 
 /**
  * A very simple File IO helper specifically for the {@link Cache} class. Utilizing the NIO
- * libraries, we are able to do CRUD operations on cache files easily.
+ * libraries, we are able to do CRUD operations on cache files easily. Content is encoded and
+ * written through an Okio sink segment by segment, so no second full copy of it is made, and
+ * is optionally gzip compressed on the way out. Operations on the same file are serialized
+ * through a striped lock that the {@link AsyncCacheWriter} takes as well.
  *
  * @author Dennis Thompson
  */
 final class CacheWriter {
 
+	private static final Striped<Lock> LOCKS = Striped.lock(64);
+
 	private CacheWriter() {}
 
+	/**
+	 * @param path The file to lock.
+	 * @return The lock that guards writes to the file.
+	 */
+	static Lock lockOf(Path path) {
+		return LOCKS.get(path.toAbsolutePath().normalize());
+	}
+
 	/**
 	 * Appends information to the cache file.
 	 * @param path The full path with file to work with.
@@ -22,7 +46,19 @@ final class CacheWriter {
 	 * @throws IOException Thrown upon error when writing to the file.
 	 */
 	static void append(Path path, String content) throws IOException {
-		cru(path, StandardOpenOption.APPEND, content);
+		append(path, content, false);
+	}
+
+	/**
+	 * Appends information to the cache file. Compressed content is appended as a new gzip
+	 * member, which gzip readers treat as a continuation of the file.
+	 * @param path The full path with file to work with.
+	 * @param content The content to append to the file.
+	 * @param compress Set true to gzip the content.
+	 * @throws IOException Thrown upon error when writing to the file.
+	 */
+	static void append(Path path, String content, boolean compress) throws IOException {
+		cru(path, StandardOpenOption.APPEND, content, compress);
 	}
 
 	/**
@@ -32,7 +68,18 @@ final class CacheWriter {
 	 * @throws IOException Thrown upon error when writing to the file.
 	 */
 	static void create(Path path, String content) throws IOException {
-		cru(path, StandardOpenOption.TRUNCATE_EXISTING, content);
+		create(path, content, false);
+	}
+
+	/**
+	 * Truncates an existing file if it exists, otherwise creates a new file.
+	 * @param path The full path with file to work with.
+	 * @param content The content to append to the file.
+	 * @param compress Set true to gzip the content.
+	 * @throws IOException Thrown upon error when writing to the file.
+	 */
+	static void create(Path path, String content, boolean compress) throws IOException {
+		cru(path, StandardOpenOption.TRUNCATE_EXISTING, content, compress);
 	}
 
 	/**
@@ -40,7 +87,13 @@ final class CacheWriter {
 	 * @return True if the file exists and it was removed.
 	 */
 	static boolean delete(Path path) {
+		final Lock lock = lockOf(path);
+		lock.lock();
+		try {
 			return Files.exists(path) && path.toFile().delete();
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
@@ -48,16 +101,50 @@ final class CacheWriter {
 	 * @param path The full path with file to work with.
 	 * @param mode The mode to work with.
 	 * @param content The content to append to the file.
+	 * @param compress Set true to gzip the content.
 	 * @throws IOException Thrown upon error when writing to the file.
 	 */
-	private static void cru(Path path, StandardOpenOption mode, String content) throws IOException {
+	private static void cru(Path path, StandardOpenOption mode, String content, boolean compress) throws IOException {
 		if(path != null && content != null && !content.isEmpty()) {
-			StandardOpenOption tempMode = mode;
-			if(!Files.exists(path)) {
-				tempMode = StandardOpenOption.CREATE_NEW;
+			final Lock lock = lockOf(path);
+			lock.lock();
+			final Metrics.Timing timing = Metrics.get().start(Metrics.Stage.CACHE);
+			try {
+				StandardOpenOption tempMode = mode;
+				if(!Files.exists(path)) {
+					tempMode = StandardOpenOption.CREATE_NEW;
+				}
+
+				final CountingSink file = new CountingSink(Okio.sink(path, tempMode));
+				final Sink sink = compress ? new GzipSink(file) : file;
+
+				try(BufferedSink out = Okio.buffer(sink)) {
+					out.writeUtf8(content);
+				}
+				timing.cached(path, mode == StandardOpenOption.APPEND, file.bytes);
+			} catch(IOException | RuntimeException e) {
+				timing.failed(e);
+				throw e;
+			} finally {
+				lock.unlock();
 			}
+		}
+	}
+
+	/**
+	 * Counts the bytes that reach the file.
+	 */
+	private static final class CountingSink extends ForwardingSink {
+		private long bytes;
+
+		private CountingSink(final Sink delegate) {
+			super(delegate);
+		}
 
-			Files.write(path, content.getBytes(), tempMode);
+		@Override
+		public void write(final Buffer source, final long byteCount) throws IOException {
+			super.write(source, byteCount);
+			this.bytes += byteCount;
 		}
 	}
 
@@ -0,0 +1,436 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.CountingInputStream;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+import edu.sdsu.watcher.quake.structures.QuakeStructAdapterFactory;
+
+/**
+ * <p>A log-structured cache of feed events. Every version of an event is one line of
+ * {@code json} (NDJSON) appended to {@code <name>.ndjson}; a version that is no newer than
+ * the one already in the log, by its {@code updated} time, is not written. A side file,
+ * {@code <name>.idx}, maps every id to the offset and length of its latest version so a
+ * point lookup is one positional read, however large the log grows.</p>
+ * <p>The log is always written before the index. When the two disagree after a crash, the
+ * index is rebuilt from the tail of the log on open and a partial last line is cut off; an
+ * index record cut short is cut off too, and an index that can't be parsed is rebuilt from
+ * the whole log.</p>
+ * <p>A log opened with {@link #openReadOnly(File)} changes neither file, so it can be read
+ * while another process appends to it: a partial last line is ignored and the index is
+ * caught up in memory only.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * try(EventLog log = EventLog.open(Paths.get("cache"), "all_day")) {
+ *     log.appendAll(struct.getFeatures());
+ *     final QuakeStruct.Features latest = log.get("ci37335775");
+ *     log.replay(feature -&gt; System.out.println(feature.getId()));
+ * }
+ * </pre>
+ * <p>Instances are safe to share between threads.</p>
+ */
+public final class EventLog implements Closeable {
+
+	/**
+	 * The extension of the log file.
+	 */
+	public static final String LOG_EXTENSION = ".ndjson";
+
+	/**
+	 * The extension of the index file.
+	 */
+	public static final String INDEX_EXTENSION = ".idx";
+
+	private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new QuakeStructAdapterFactory()).create();
+	private static final byte NEW_LINE = '\n';
+
+	private final Path logPath, indexPath;
+	private final boolean readOnly;
+	private final FileChannel log;
+	// null when read-only
+	private final DataOutputStream index;
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	private EventLog(final Path logPath, final Path indexPath, final boolean readOnly) throws IOException {
+		this.logPath = logPath;
+		this.indexPath = indexPath;
+		this.readOnly = readOnly;
+		this.log = readOnly
+				? FileChannel.open(logPath, StandardOpenOption.READ)
+				: FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			final long indexed = this.loadIndex();
+			this.index = readOnly ? null : new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+			this.recover(indexed);
+		} catch(IOException | RuntimeException e) {
+			this.log.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param file the file to check.
+	 * @return true if the file has the log extension.
+	 */
+	public static boolean isLog(final File file) {
+		return file.getName().endsWith(LOG_EXTENSION);
+	}
+
+	/**
+	 * Opens the log file, creating it and its index if needed.
+	 * @param file a file with the {@link #LOG_EXTENSION}.
+	 * @return the opened log.
+	 * @throws IOException if the files can't be opened or the index can't be rebuilt.
+	 */
+	public static EventLog open(final File file) throws IOException {
+		Preconditions.checkArgument(isLog(file), "%s is not an event log", file);
+		final String name = file.getName();
+		return open(file.getAbsoluteFile().toPath().getParent(), name.substring(0, name.length() - LOG_EXTENSION.length()));
+	}
+
+	/**
+	 * Opens the log, creating it if needed.
+	 * @param directory the directory of the log and index files.
+	 * @param name      the name of the files, e.g. {@code all_day}.
+	 * @return the opened log.
+	 * @throws IOException if the files can't be opened or the index can't be rebuilt.
+	 */
+	public static EventLog open(final Path directory, final String name) throws IOException {
+		Preconditions.checkNotNull(directory);
+		Preconditions.checkNotNull(name);
+		Preconditions.checkArgument(!name.isEmpty());
+
+		Files.createDirectories(directory);
+		return new EventLog(directory.resolve(name + LOG_EXTENSION), directory.resolve(name + INDEX_EXTENSION), false);
+	}
+
+	/**
+	 * Opens an existing log for reading only; neither the log nor its index is written, even
+	 * when they disagree, so it is safe to read a log another process is appending to.
+	 * @param file a file with the {@link #LOG_EXTENSION}.
+	 * @return the opened log; appending to it throws an {@link IllegalStateException}.
+	 * @throws IOException if the log doesn't exist or can't be read.
+	 */
+	public static EventLog openReadOnly(final File file) throws IOException {
+		Preconditions.checkArgument(isLog(file), "%s is not an event log", file);
+		final String name = file.getName();
+		final Path directory = file.getAbsoluteFile().toPath().getParent();
+		return new EventLog(file.toPath(), directory.resolve(name.substring(0, name.length() - LOG_EXTENSION.length()) + INDEX_EXTENSION), true);
+	}
+
+	/**
+	 * @param feature the event version to add.
+	 * @return true if it was written, false if the log already holds this version.
+	 * @throws IOException if the log can't be written.
+	 */
+	public boolean append(final QuakeStruct.Features feature) throws IOException {
+		return this.appendAll(Collections.singletonList(feature)) == 1;
+	}
+
+	/**
+	 * Appends every version newer than the one the log holds with a single write.
+	 * @param features the event versions to add, e.g. a freshly downloaded feed.
+	 * @return the number of versions written.
+	 * @throws IOException if the log can't be written.
+	 */
+	public synchronized int appendAll(final Collection<QuakeStruct.Features> features) throws IOException {
+		Preconditions.checkNotNull(features);
+		Preconditions.checkState(!this.readOnly, "The event log is read-only");
+
+		final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+		// kept in offset order so the index records follow the log lines
+		final Map<String, Entry> written = new LinkedHashMap<>();
+		final long start = this.log.size();
+		int appended = 0;
+
+		for(final QuakeStruct.Features feature : features) {
+			final String id = Preconditions.checkNotNull(feature.getId(), "The feature has no id");
+			final long updated = updatedOf(feature);
+			final Entry latest = written.containsKey(id) ? written.get(id) : this.entries.get(id);
+
+			if(latest == null || updated > latest.updated) {
+				final byte[] line = GSON.toJson(feature, QuakeStruct.Features.class).getBytes(StandardCharsets.UTF_8);
+				// removed first, or a revision within the batch would keep the older version's place
+				written.remove(id);
+				written.put(id, new Entry(updated, start + lines.size(), line.length));
+				lines.write(line);
+				lines.write(NEW_LINE);
+				appended++;
+			}
+		}
+
+		if(written.isEmpty()) {
+			return 0;
+		}
+
+		// log first: an index entry must never point past the end of the log
+		final ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+		long position = start;
+		while(buffer.hasRemaining()) {
+			position += this.log.write(buffer, position);
+		}
+
+		for(final Map.Entry<String, Entry> entry : written.entrySet()) {
+			this.index(entry.getKey(), entry.getValue());
+		}
+		this.index.flush();
+
+		return appended;
+	}
+
+	/**
+	 * @param id the id of the event.
+	 * @return the latest version of the event, or {@code null} if the log doesn't hold it.
+	 * @throws IOException if the log can't be read.
+	 */
+	public synchronized QuakeStruct.Features get(final String id) throws IOException {
+		final Entry entry = this.entries.get(id);
+		return entry == null ? null : this.read(entry);
+	}
+
+	/**
+	 * Reads the latest version of every event through the index, skipping the versions
+	 * that were revised since.
+	 * @return the latest versions, in the order they were written.
+	 * @throws IOException if the log can't be read.
+	 */
+	public synchronized List<QuakeStruct.Features> latest() throws IOException {
+		final List<Entry> sorted = new ArrayList<>(this.entries.values());
+		sorted.sort((a, b) -> Long.compare(a.offset, b.offset));
+
+		final List<QuakeStruct.Features> features = new ArrayList<>(sorted.size());
+		for(final Entry entry : sorted) {
+			features.add(this.read(entry));
+		}
+		return features;
+	}
+
+	private QuakeStruct.Features read(final Entry entry) throws IOException {
+		final ByteBuffer line = ByteBuffer.allocate(entry.length);
+		while(line.hasRemaining()) {
+			if(this.log.read(line, entry.offset + line.position()) < 0) {
+				throw new EOFException("The log ends inside the line at " + entry.offset);
+			}
+		}
+
+		return GSON.fromJson(new String(line.array(), StandardCharsets.UTF_8), QuakeStruct.Features.class);
+	}
+
+	/**
+	 * Streams every version in the log in the order it was written.
+	 * @param consumer receives every version.
+	 * @throws IOException if the log can't be read.
+	 */
+	public void replay(final Consumer<QuakeStruct.Features> consumer) throws IOException {
+		Preconditions.checkNotNull(consumer);
+
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(this.logPath), StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(!line.isEmpty()) {
+					consumer.accept(GSON.fromJson(line, QuakeStruct.Features.class));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param id the id of the event.
+	 * @return the {@code updated} time of the latest version in the log, or -1 if there is none.
+	 */
+	public synchronized long updatedOf(final String id) {
+		final Entry entry = this.entries.get(id);
+		return entry == null ? -1 : entry.updated;
+	}
+
+	/**
+	 * @return the ids of every event in the log.
+	 */
+	public synchronized Set<String> ids() {
+		return Collections.unmodifiableSet(new HashSet<>(this.entries.keySet()));
+	}
+
+	/**
+	 * @return the number of distinct events in the log.
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			if(this.index != null) {
+				this.index.close();
+			}
+		} finally {
+			this.log.close();
+		}
+	}
+
+	/**
+	 * Reads the index file into memory. A record cut short by a crash is cut off the file,
+	 * and an index that can't be parsed is dropped so the whole log is indexed again.
+	 * @return the end of the last indexed line in the log.
+	 */
+	private long loadIndex() throws IOException {
+		long end = 0;
+		if(Files.notExists(this.indexPath)) {
+			return end;
+		}
+
+		final long size = this.log.size();
+		// the end of the last complete record
+		long complete = 0;
+		boolean corrupt = false;
+		try(CountingInputStream counted = new CountingInputStream(new BufferedInputStream(Files.newInputStream(this.indexPath)));
+		    DataInputStream in = new DataInputStream(counted)) {
+			while(true) {
+				final String id;
+				final Entry entry;
+				try {
+					id = in.readUTF();
+					entry = new Entry(in.readLong(), in.readLong(), in.readInt());
+				} catch(EOFException e) {
+					// a clean end, or a record cut short by a crash; the log tail covers both
+					break;
+				} catch(UTFDataFormatException e) {
+					corrupt = true;
+					break;
+				}
+
+				if(id.isEmpty() || entry.offset < 0 || entry.length <= 0) {
+					corrupt = true;
+					break;
+				}
+				complete = counted.getCount();
+
+				if(entry.offset + entry.length < size) {
+					this.entries.put(id, entry);
+					end = Math.max(end, entry.offset + entry.length + 1);
+				}
+			}
+		}
+
+		if(corrupt) {
+			System.err.println("Rebuilding the unreadable index " + this.indexPath);
+			this.entries.clear();
+			end = 0;
+			complete = 0;
+		}
+
+		if(!this.readOnly && complete < Files.size(this.indexPath)) {
+			// records appended after a torn one would be read misaligned
+			try(FileChannel index = FileChannel.open(this.indexPath, StandardOpenOption.WRITE)) {
+				index.truncate(complete);
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Indexes whatever the log holds past the index and cuts off a partial last line, which
+	 * a read-only log ignores instead.
+	 * @param from the end of the last indexed line.
+	 */
+	private void recover(final long from) throws IOException {
+		final long size = this.log.size();
+		if(from >= size) {
+			return;
+		}
+
+		long offset = from;
+		// not closed: closing the stream would close the log channel
+		final BufferedInputStream in = new BufferedInputStream(Channels.newInputStream(this.log.position(from)));
+		final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while((b = in.read()) >= 0) {
+			if(b != NEW_LINE) {
+				line.write(b);
+				continue;
+			}
+
+			if(line.size() > 0) {
+				final QuakeStruct.Features feature = GSON.fromJson(new String(line.toByteArray(), StandardCharsets.UTF_8), QuakeStruct.Features.class);
+				final Entry entry = new Entry(updatedOf(feature), offset, line.size());
+				this.index(feature.getId(), entry);
+			}
+
+			offset += line.size() + 1;
+			line.reset();
+		}
+
+		if(this.readOnly) {
+			return;
+		}
+
+		this.index.flush();
+		if(offset < size) {
+			this.log.truncate(offset);
+		}
+	}
+
+	private void index(final String id, final Entry entry) throws IOException {
+		this.entries.put(id, entry);
+		if(this.readOnly) {
+			return;
+		}
+
+		this.index.writeUTF(id);
+		this.index.writeLong(entry.updated);
+		this.index.writeLong(entry.offset);
+		this.index.writeInt(entry.length);
+	}
+
+	private static long updatedOf(final QuakeStruct.Features feature) {
+		return feature.getProperties() == null ? 0 : feature.getProperties().getUpdated();
+	}
+
+	/**
+	 * Where the latest version of an event lives in the log.
+	 */
+	private static final class Entry {
+		private final long updated, offset;
+		private final int length;
+
+		private Entry(final long updated, final long offset, final int length) {
+			this.updated = updated;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+}
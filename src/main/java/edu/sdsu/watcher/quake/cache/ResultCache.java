@@ -0,0 +1,205 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.QuakeFilter;
+
+/**
+ * <p>A size-bounded, in-memory cache of parsed results that sits in front of the network and
+ * the file {@link Cache}. Results are kept per feed and filter, least recently used first
+ * out, and expire on the cadence usgs.gov regenerates the feed: every minute for the hour,
+ * day, and week feeds, every fifteen minutes for the month feeds.</p>
+ * <p>Within the time to live a result is returned without touching the network. When several
+ * threads ask for the same missing or expired result at once, only one of them loads it and
+ * the others wait for that result.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final SimpleEarthquake usgs = new SimpleEarthquake();
+ * usgs.setResultCache(new ResultCache.Builder().maximumSize(32).build());
+ * </pre>
+ */
+public class ResultCache {
+
+	private final com.google.common.cache.Cache<Key, Entry> results;
+	private final Map<String, Long> ttls;
+	private final Ticker ticker;
+
+	private ResultCache(final Builder builder) {
+		this.ttls = Collections.unmodifiableMap(new HashMap<>(builder.ttls));
+		this.ticker = builder.ticker;
+		this.results = CacheBuilder.newBuilder()
+				.maximumSize(builder.maximumSize)
+				.expireAfterWrite(Collections.max(this.ttls.values()), TimeUnit.NANOSECONDS)
+				.ticker(builder.ticker)
+				.build();
+	}
+
+	/**
+	 * Returns the cached result, or loads, caches, and returns it if it is missing or expired.
+	 * @param feed   the feed of the result.
+	 * @param filter the filter the result is built with.
+	 * @param loader builds the result; called at most once per miss, whatever the number of callers.
+	 * @return the unmodifiable result.
+	 */
+	public List<Earthquake> get(final Feed feed, final QuakeFilter filter, final Supplier<List<Earthquake>> loader) {
+		Preconditions.checkNotNull(feed);
+		Preconditions.checkNotNull(filter);
+		Preconditions.checkNotNull(loader);
+
+		final Key key = new Key(feed, filter);
+		final long now = this.ticker.read();
+
+		try {
+			Entry entry = this.results.getIfPresent(key);
+			if(entry != null && now - entry.loaded >= this.ttlOf(feed)) {
+				// expired for this feed, even if not yet for the cache as a whole
+				this.results.asMap().remove(key, entry);
+			}
+
+			entry = this.results.get(key, () -> new Entry(
+					Collections.unmodifiableList(new ArrayList<>(loader.get())), this.ticker.read()));
+			return entry.quakes;
+		} catch(ExecutionException | UncheckedExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	/**
+	 * @param feed the feed to look up.
+	 * @return how long a result of the feed is kept, in nanoseconds.
+	 */
+	public long ttlOf(final Feed feed) {
+		return this.ttls.get(feed.getTime());
+	}
+
+	/**
+	 * Drops every result of the feed, whatever its filter.
+	 * @param feed the feed to drop.
+	 */
+	public void invalidate(final Feed feed) {
+		this.results.asMap().keySet().removeIf(key -> key.feed.equals(feed));
+	}
+
+	/**
+	 * Drops every result.
+	 */
+	public void invalidateAll() {
+		this.results.invalidateAll();
+	}
+
+	/**
+	 * @return the approximate number of cached results.
+	 */
+	public long size() {
+		return this.results.size();
+	}
+
+	/**
+	 * Builds a {@link ResultCache}.
+	 */
+	public static final class Builder {
+
+		private long maximumSize = 64;
+		private final Map<String, Long> ttls = new HashMap<>();
+		private Ticker ticker = Ticker.systemTicker();
+
+		public Builder() {
+			this.ttls.put("hour", TimeUnit.MINUTES.toNanos(1));
+			this.ttls.put("day", TimeUnit.MINUTES.toNanos(1));
+			this.ttls.put("week", TimeUnit.MINUTES.toNanos(1));
+			this.ttls.put("month", TimeUnit.MINUTES.toNanos(15));
+		}
+
+		/**
+		 * @param maximumSize the most results to keep; the least recently used go first.
+		 * @return this builder.
+		 */
+		public Builder maximumSize(final long maximumSize) {
+			Preconditions.checkArgument(maximumSize > 0, "maximumSize must be positive");
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Overrides how long the results of the feeds of a time are kept.
+		 * @param time     the time of the feeds, e.g. {@code hour}.
+		 * @param duration how long a result is kept.
+		 * @param unit     the unit of the duration.
+		 * @return this builder.
+		 */
+		public Builder ttl(final String time, final long duration, final TimeUnit unit) {
+			Preconditions.checkNotNull(time);
+			Preconditions.checkArgument(this.ttls.containsKey(time.toLowerCase()), "Unknown time %s", time);
+			Preconditions.checkArgument(duration > 0, "duration must be positive");
+			this.ttls.put(time.toLowerCase(), unit.toNanos(duration));
+			return this;
+		}
+
+		/**
+		 * @param ticker the time source, for tests.
+		 * @return this builder.
+		 */
+		public Builder ticker(final Ticker ticker) {
+			this.ticker = Preconditions.checkNotNull(ticker);
+			return this;
+		}
+
+		/**
+		 * @return a new, empty cache.
+		 */
+		public ResultCache build() {
+			return new ResultCache(this);
+		}
+
+	}
+
+	private static final class Key {
+		private final Feed feed;
+		private final QuakeFilter filter;
+
+		private Key(final Feed feed, final QuakeFilter filter) {
+			this.feed = feed;
+			this.filter = filter;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) return true;
+			if(o == null || getClass() != o.getClass()) return false;
+
+			Key that = (Key) o;
+
+			return feed.equals(that.feed) && filter.equals(that.filter);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * feed.hashCode() + filter.hashCode();
+		}
+	}
+
+	private static final class Entry {
+		private final List<Earthquake> quakes;
+		private final long loaded;
+
+		private Entry(final List<Earthquake> quakes, final long loaded) {
+			this.quakes = quakes;
+			this.loaded = loaded;
+		}
+	}
+
+}
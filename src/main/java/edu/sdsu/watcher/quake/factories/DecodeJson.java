@@ -1,11 +1,18 @@
 package edu.sdsu.watcher.quake.factories;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import edu.sdsu.watcher.quake.io.FileIOHelper;
+import edu.sdsu.watcher.quake.metrics.Metrics;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+import edu.sdsu.watcher.quake.structures.QuakeStructAdapterFactory;
 
 /**
  * <p>A very simple class that aides in decoding {@code json} via {@link Gson} in a generic manner.</p>
@@ -13,16 +20,18 @@ import com.google.gson.Gson;
  * <pre>
  * final QuakeStruct struct = DecodeJson.parse("...", QuakeStruct.class);
  * </pre>
+ * <p>{@link edu.sdsu.watcher.quake.structures.QuakeStruct} is decoded by the hand-written adapters
+ * of {@link QuakeStructAdapterFactory}; any other class falls back to reflection.</p>
  * @author Dennis Thompson
  */
 public final class DecodeJson {
 
-	private static final Gson GSON = new Gson();
+	static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new QuakeStructAdapterFactory()).create();
 
 	private DecodeJson() {}
 
 	/**
-	 *
+	 * Decodes a file as it is read. Files ending in {@code .gz} are decompressed on the fly.
 	 * @param file the file to process that contains the {@code json} string.
 	 * @param clazz the class to apply the {@code json} to.
 	 * @param <E> the generic type of the class.
@@ -32,7 +41,13 @@ public final class DecodeJson {
 	public static <E> E parse(final File file, Class<E> clazz) throws IOException {
 		Preconditions.checkNotNull(file);
 		Preconditions.checkArgument(file.exists() && file.canRead());
-		return GSON.fromJson(new FileReader(file), clazz);
+		final Metrics.Timing timing = Metrics.get().start(Metrics.Stage.DECODE);
+		try(Reader reader = new InputStreamReader(FileIOHelper.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+			return decoded(timing, GSON.fromJson(reader, clazz));
+		} catch(IOException | RuntimeException e) {
+			timing.failed(e);
+			throw e;
+		}
 	}
 
 	/**
@@ -46,7 +61,19 @@ public final class DecodeJson {
 	public static <E> E parse(final String content, Class<E> clazz) throws IOException {
 		Preconditions.checkNotNull(content, clazz);
 		Preconditions.checkArgument(content.length() != 0);
-		return GSON.fromJson(content, clazz);
+		final Metrics.Timing timing = Metrics.get().start(Metrics.Stage.DECODE);
+		try {
+			return decoded(timing, GSON.fromJson(content, clazz));
+		} catch(RuntimeException e) {
+			timing.failed(e);
+			throw e;
+		}
+	}
+
+	private static <E> E decoded(final Metrics.Timing timing, final E decoded) {
+		final boolean feed = decoded instanceof QuakeStruct && ((QuakeStruct) decoded).getFeatures() != null;
+		timing.decoded(feed ? ((QuakeStruct) decoded).getFeatures().size() : 0);
+		return decoded;
 	}
 
 }
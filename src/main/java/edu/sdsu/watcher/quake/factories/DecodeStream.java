@@ -0,0 +1,380 @@
+package edu.sdsu.watcher.quake.factories;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.metrics.Metrics;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+/**
+ * <p>Decodes a usgs.gov feed incrementally instead of building the whole {@link QuakeStruct}
+ * first. Each feature is handed to the consumer as soon as it has been read so only one
+ * feature is held in memory at a time, no matter how large the feed is.</p>
+ * <p>{@link DecodeStream#earthquakes(Reader, Consumer)} goes one step further and projects each
+ * feature straight onto an {@link Earthquake}: only the seven values an Earthquake needs are
+ * read, everything else is skipped at the token level and never becomes a String. Given a
+ * {@link QuakeFilter}, a feature is checked as soon as its properties and its geometry have
+ * been read; a rejected feature is skipped without building its Earthquake.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * try(InputStream in = reader.open(url)) {
+ *     DecodeStream.earthquakes(in, quake -&gt; System.out.println(quake.getDescription()));
+ * }
+ * </pre>
+ */
+public final class DecodeStream {
+
+	private DecodeStream() {}
+
+	/**
+	 * @param in       the {@code UTF-8} encoded stream that contains the {@code json} feed.
+	 * @param consumer receives every feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the stream can't be read or is not a feed.
+	 */
+	public static QuakeStruct.Metadata features(final InputStream in,
+	                                            final Consumer<QuakeStruct.Features> consumer) throws IOException {
+		Preconditions.checkNotNull(in);
+		return features(new InputStreamReader(in, StandardCharsets.UTF_8), consumer);
+	}
+
+	/**
+	 * @param reader   the reader that contains the {@code json} feed.
+	 * @param consumer receives every feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the reader can't be read or is not a feed.
+	 */
+	public static QuakeStruct.Metadata features(final Reader reader,
+	                                            final Consumer<QuakeStruct.Features> consumer) throws IOException {
+		return features(reader, metadata -> true, consumer);
+	}
+
+	/**
+	 * Decodes the feed unless the metadata shows there is no need to. usgs.gov writes the
+	 * metadata before the features, so a feed that is turned down is left after its header.
+	 * @param reader   the reader that contains the {@code json} feed.
+	 * @param proceed  given the metadata as soon as it has been read; return false to stop there.
+	 * @param consumer receives every feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the reader can't be read or is not a feed.
+	 */
+	public static QuakeStruct.Metadata features(final Reader reader, final Predicate<QuakeStruct.Metadata> proceed,
+	                                            final Consumer<QuakeStruct.Features> consumer) throws IOException {
+		Preconditions.checkNotNull(reader);
+		Preconditions.checkNotNull(proceed);
+		Preconditions.checkNotNull(consumer);
+
+		return decode(new JsonReader(reader), proceed,
+				json -> consumer.accept(DecodeJson.GSON.fromJson(json, QuakeStruct.Features.class)));
+	}
+
+	/**
+	 * Reads a file of feeds written back to back, as {@code Cache#append} writes them.
+	 * @param reader   the reader that contains zero or more {@code json} feeds.
+	 * @param consumer receives every feature of every feed, in the order they appear.
+	 * @return the number of feeds read.
+	 * @throws IOException if the reader can't be read or holds something other than feeds.
+	 */
+	public static int concatenatedFeatures(final Reader reader,
+	                                       final Consumer<QuakeStruct.Features> consumer) throws IOException {
+		Preconditions.checkNotNull(reader);
+		Preconditions.checkNotNull(consumer);
+
+		final JsonReader json = new JsonReader(reader);
+		// lenient mode is what lets a reader move past the end of the first document
+		json.setLenient(true);
+
+		int feeds = 0;
+		while(true) {
+			try {
+				if(json.peek() == JsonToken.END_DOCUMENT) {
+					break;
+				}
+			} catch(EOFException e) {
+				// Gson only reports the end of a document once one has been read
+				if(feeds == 0) {
+					break;
+				}
+				throw e;
+			}
+
+			decode(json, metadata -> true, feature -> consumer.accept(DecodeJson.GSON.fromJson(feature, QuakeStruct.Features.class)));
+			feeds++;
+		}
+		return feeds;
+	}
+
+	/**
+	 * @param in       the {@code UTF-8} encoded stream that contains the {@code json} feed.
+	 * @param consumer receives an Earthquake for every feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the stream can't be read or is not a feed.
+	 */
+	public static QuakeStruct.Metadata earthquakes(final InputStream in, final Consumer<Earthquake> consumer) throws IOException {
+		return earthquakes(in, QuakeFilter.NONE, consumer);
+	}
+
+	/**
+	 * @param in       the {@code UTF-8} encoded stream that contains the {@code json} feed.
+	 * @param filter   decides which features are kept.
+	 * @param consumer receives an Earthquake for every kept feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the stream can't be read or is not a feed.
+	 */
+	public static QuakeStruct.Metadata earthquakes(final InputStream in, final QuakeFilter filter,
+	                                               final Consumer<Earthquake> consumer) throws IOException {
+		Preconditions.checkNotNull(in);
+		return earthquakes(new InputStreamReader(in, StandardCharsets.UTF_8), filter, consumer);
+	}
+
+	/**
+	 * @param reader   the reader that contains the {@code json} feed.
+	 * @param consumer receives an Earthquake for every feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the reader can't be read or is not a feed.
+	 */
+	public static QuakeStruct.Metadata earthquakes(final Reader reader, final Consumer<Earthquake> consumer) throws IOException {
+		return earthquakes(reader, QuakeFilter.NONE, consumer);
+	}
+
+	/**
+	 * @param reader   the reader that contains the {@code json} feed.
+	 * @param filter   decides which features are kept.
+	 * @param consumer receives an Earthquake for every kept feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the reader can't be read or is not a feed.
+	 */
+	public static QuakeStruct.Metadata earthquakes(final Reader reader, final QuakeFilter filter,
+	                                               final Consumer<Earthquake> consumer) throws IOException {
+		return earthquakes(reader, filter, metadata -> true, consumer);
+	}
+
+	/**
+	 * Decodes and filters the feed unless the metadata shows there is no need to.
+	 * @param reader   the reader that contains the {@code json} feed.
+	 * @param filter   decides which features are kept.
+	 * @param proceed  given the metadata as soon as it has been read; return false to stop there.
+	 * @param consumer receives an Earthquake for every kept feature in the order they appear in the feed.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 * @throws IOException if the reader can't be read or is not a feed.
+	 * @see DecodeStream#features(Reader, Predicate, Consumer)
+	 */
+	public static QuakeStruct.Metadata earthquakes(final Reader reader, final QuakeFilter filter,
+	                                               final Predicate<QuakeStruct.Metadata> proceed,
+	                                               final Consumer<Earthquake> consumer) throws IOException {
+		Preconditions.checkNotNull(reader);
+		Preconditions.checkNotNull(filter);
+		Preconditions.checkNotNull(proceed);
+		Preconditions.checkNotNull(consumer);
+
+		return decode(new JsonReader(reader), proceed, json -> {
+			final Earthquake quake = project(json, filter);
+			if(quake != null) {
+				consumer.accept(quake);
+			}
+		});
+	}
+
+	/**
+	 * Walks the top level of the feed and hands every element of the features array to the decoder.
+	 * @param json    the reader positioned before the feed.
+	 * @param proceed decides whether to go on once the metadata has been read.
+	 * @param decoder reads exactly one feature.
+	 * @return the metadata of the feed or {@code null} if the feed has none.
+	 */
+	private static QuakeStruct.Metadata decode(final JsonReader json, final Predicate<QuakeStruct.Metadata> proceed,
+	                                           final FeatureDecoder decoder) throws IOException {
+		final Metrics.Timing timing = Metrics.get().start(Metrics.Stage.DECODE);
+		QuakeStruct.Metadata metadata = null;
+		int features = 0;
+
+		try {
+			json.beginObject();
+			while(json.hasNext()) {
+				switch(json.nextName()) {
+					case "metadata":
+						metadata = DecodeJson.GSON.fromJson(json, QuakeStruct.Metadata.class);
+						if(metadata != null && !proceed.test(metadata)) {
+							// the rest of the document is left unread
+							timing.decoded(features);
+							return metadata;
+						}
+						break;
+					case "features":
+						json.beginArray();
+						while(json.hasNext()) {
+							decoder.decode(json);
+							features++;
+						}
+						json.endArray();
+						break;
+					default:
+						json.skipValue();
+				}
+			}
+			json.endObject();
+		} catch(IOException | RuntimeException e) {
+			timing.failed(e);
+			throw e;
+		}
+
+		timing.decoded(features);
+		return metadata;
+	}
+
+	/**
+	 * Reads one feature and keeps only what {@link Earthquake} and {@link Coordinate} need.
+	 * @param json   the reader positioned before the feature.
+	 * @param filter checked after the properties and after the geometry of the feature.
+	 * @return the projected Earthquake or {@code null} if the filter rejected the feature.
+	 */
+	private static Earthquake project(final JsonReader json, final QuakeFilter filter) throws IOException {
+		double lon = 0, lat = 0, depth = 0, magnitude = 0;
+		long time = 0;
+		int tsunami = 0;
+		String description = null, id = null, alert = null;
+		boolean rejected = false;
+
+		json.beginObject();
+		while(json.hasNext()) {
+			if(rejected) {
+				// the feature is out, skip whatever is left of it
+				json.nextName();
+				json.skipValue();
+				continue;
+			}
+
+			switch(json.nextName()) {
+				case "properties":
+					boolean seenMagnitude = false, seenTime = false;
+					json.beginObject();
+					while(json.hasNext()) {
+						switch(json.nextName()) {
+							case "mag":
+								magnitude = nextDouble(json);
+								seenMagnitude = true;
+								break;
+							case "time":
+								time = nextLong(json);
+								seenTime = true;
+								break;
+							case "alert":
+								if(filter.filtersAlert()) {
+									alert = nextString(json);
+								} else {
+									json.skipValue();
+								}
+								break;
+							case "tsunami":
+								tsunami = (int) nextLong(json);
+								break;
+							case "title":
+								// usgs.gov writes the title after mag and time; don't build it for a feature that's out
+								if(seenMagnitude && !filter.acceptsMagnitude(magnitude) || seenTime && !filter.acceptsTime(time)) {
+									json.skipValue();
+								} else {
+									description = nextString(json);
+								}
+								break;
+							default:
+								json.skipValue();
+						}
+					}
+					json.endObject();
+					rejected = !filter.acceptsProperties(magnitude, time, alert, tsunami);
+					break;
+				case "geometry":
+					json.beginObject();
+					while(json.hasNext()) {
+						if(json.nextName().equals("coordinates")) {
+							int index = 0;
+							json.beginArray();
+							while(json.hasNext()) {
+								switch(index++) {
+									case 0:
+										lon = json.nextDouble();
+										break;
+									case 1:
+										lat = json.nextDouble();
+										break;
+									case 2:
+										depth = json.nextDouble();
+										break;
+									default:
+										json.skipValue();
+								}
+							}
+							json.endArray();
+						} else {
+							json.skipValue();
+						}
+					}
+					json.endObject();
+					rejected = !filter.acceptsLocation(lon, lat, depth);
+					break;
+				case "id":
+					id = nextString(json);
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+		json.endObject();
+
+		// also covers features that lack their properties or geometry
+		if(rejected || !filter.acceptsProperties(magnitude, time, alert, tsunami) || !filter.acceptsLocation(lon, lat, depth)) {
+			return null;
+		}
+
+		final Earthquake quake = new Earthquake(new Coordinate(lon, lat, depth), magnitude, description, id, time);
+		return filter.acceptsEarthquake(quake) ? quake : null;
+	}
+
+	private static String nextString(final JsonReader json) throws IOException {
+		if(json.peek() == JsonToken.NULL) {
+			json.nextNull();
+			return null;
+		}
+
+		return json.nextString();
+	}
+
+	private static double nextDouble(final JsonReader json) throws IOException {
+		if(json.peek() == JsonToken.NULL) {
+			json.nextNull();
+			return 0;
+		}
+
+		return json.nextDouble();
+	}
+
+	private static long nextLong(final JsonReader json) throws IOException {
+		if(json.peek() == JsonToken.NULL) {
+			json.nextNull();
+			return 0;
+		}
+
+		return json.nextLong();
+	}
+
+	/**
+	 * Reads a single element of the features array.
+	 */
+	@FunctionalInterface
+	private interface FeatureDecoder {
+		void decode(JsonReader json) throws IOException;
+	}
+
+}
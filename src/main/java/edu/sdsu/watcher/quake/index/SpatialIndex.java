@@ -0,0 +1,310 @@
+package edu.sdsu.watcher.quake.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+
+/**
+ * <p>A fixed latitude/longitude grid over {@link Earthquake}s. Each quake lands in the cell of
+ * its {@link Coordinate}; radius, bounding-box, and nearest-neighbour queries only visit the
+ * cells that can intersect the query and measure exact distances for the quakes inside them,
+ * instead of scanning every quake of every feed.</p>
+ * <p>Quakes are keyed by id, so inserting a revised event moves it rather than duplicating
+ * it. Queries may run concurrently with each other; inserts and removals are exclusive.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final SpatialIndex index = new SpatialIndex();
+ * index.insertAll(new SimpleEarthquake().getEarthquakes("all", "day"));
+ * final List&lt;Earthquake&gt; near = index.within(new Coordinate(-117.16, 32.72, 0), 200);
+ * </pre>
+ */
+public class SpatialIndex {
+
+	private static final double KM_PER_DEGREE = Math.PI * Coordinate.EARTH_RADIUS_KM / 180;
+	private static final double HALF_CIRCUMFERENCE_KM = Math.PI * Coordinate.EARTH_RADIUS_KM;
+
+	private final double cellDegrees;
+	private final int rows, columns;
+	private final List<Earthquake>[] cells;
+	private final Map<String, Earthquake> quakes = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Creates an index with one degree cells.
+	 */
+	public SpatialIndex() {
+		this(1);
+	}
+
+	/**
+	 * @param cellDegrees the width and height of a cell in degrees. Must divide 180 evenly
+	 *                    (e.g. 0.5, 1, 2, 5); smaller cells suit small radii and dense feeds.
+	 */
+	@SuppressWarnings("unchecked")
+	public SpatialIndex(final double cellDegrees) {
+		Preconditions.checkArgument(cellDegrees > 0 && cellDegrees <= 180, "cellDegrees must be in (0, 180]");
+		final double perHalfTurn = 180 / cellDegrees;
+		Preconditions.checkArgument(Math.abs(perHalfTurn - Math.rint(perHalfTurn)) < 1e-9,
+				"cellDegrees must divide 180 evenly");
+
+		this.cellDegrees = cellDegrees;
+		this.rows = (int) Math.rint(perHalfTurn);
+		this.columns = 2 * this.rows;
+		this.cells = (List<Earthquake>[]) new List<?>[this.rows * this.columns];
+	}
+
+	/**
+	 * Adds the quake, replacing any quake already indexed under the same id.
+	 * @param quake the quake to index.
+	 */
+	public void insert(final Earthquake quake) {
+		Preconditions.checkNotNull(quake);
+		Preconditions.checkNotNull(quake.getCoordinate(), "The quake has no coordinate");
+
+		this.lock.writeLock().lock();
+		try {
+			this.insertLocked(quake);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds every quake under a single lock, e.g. a freshly downloaded feed.
+	 * @param quakes the quakes to index.
+	 */
+	public void insertAll(final Collection<Earthquake> quakes) {
+		Preconditions.checkNotNull(quakes);
+
+		this.lock.writeLock().lock();
+		try {
+			for(final Earthquake quake : quakes) {
+				Preconditions.checkNotNull(quake.getCoordinate(), "The quake has no coordinate");
+				this.insertLocked(quake);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param id the id of the quake to drop.
+	 * @return true if a quake was indexed under the id.
+	 */
+	public boolean remove(final String id) {
+		this.lock.writeLock().lock();
+		try {
+			final Earthquake previous = this.quakes.remove(id);
+			if(previous != null) {
+				this.cells[this.cellOf(previous.getCoordinate())].remove(previous);
+			}
+			return previous != null;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of indexed quakes.
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.quakes.size();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Drops every quake.
+	 */
+	public void clear() {
+		this.lock.writeLock().lock();
+		try {
+			this.quakes.clear();
+			for(final List<Earthquake> cell : this.cells) {
+				if(cell != null) {
+					cell.clear();
+				}
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param center   the center of the search.
+	 * @param radiusKm the great-circle radius in kilometers.
+	 * @return the quakes no farther than the radius from the center, in no particular order.
+	 */
+	public List<Earthquake> within(final Coordinate center, final double radiusKm) {
+		Preconditions.checkNotNull(center);
+		Preconditions.checkArgument(radiusKm >= 0, "radiusKm must not be negative");
+
+		this.lock.readLock().lock();
+		try {
+			final List<Earthquake> result = new ArrayList<>();
+			this.withinLocked(center, radiusKm, result::add);
+			return result;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the quakes inside a bounding box given in the GeoJSON {@code bbox} order. A box
+	 * whose west edge lies east of its east edge crosses the antimeridian.
+	 * @param minLongitude the west edge.
+	 * @param minLatitude  the south edge.
+	 * @param maxLongitude the east edge.
+	 * @param maxLatitude  the north edge.
+	 * @return the quakes inside the box, edges included, in no particular order.
+	 */
+	public List<Earthquake> inBox(final double minLongitude, final double minLatitude,
+	                              final double maxLongitude, final double maxLatitude) {
+		Preconditions.checkArgument(minLatitude <= maxLatitude, "minLatitude must not exceed maxLatitude");
+
+		final boolean wraps = minLongitude > maxLongitude;
+		final int first = this.columnIndexUnwrapped(minLongitude);
+		final int last = this.columnIndexUnwrapped(maxLongitude) + (wraps ? this.columns : 0);
+		final int firstColumn = Math.floorMod(first, this.columns);
+		final int span = last - first + 1;
+
+		this.lock.readLock().lock();
+		try {
+			final List<Earthquake> result = new ArrayList<>();
+			this.visit(this.rowOf(minLatitude), this.rowOf(maxLatitude), firstColumn, span, quake -> {
+				final Coordinate c = quake.getCoordinate();
+				final boolean inLongitude = wraps
+						? c.getLongitude() >= minLongitude || c.getLongitude() <= maxLongitude
+						: c.getLongitude() >= minLongitude && c.getLongitude() <= maxLongitude;
+				if(inLongitude && c.getLatitude() >= minLatitude && c.getLatitude() <= maxLatitude) {
+					result.add(quake);
+				}
+			});
+			return result;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param center the point to measure from.
+	 * @param k      the maximum number of quakes to return.
+	 * @return up to k quakes, closest first.
+	 */
+	public List<Earthquake> nearest(final Coordinate center, final int k) {
+		Preconditions.checkNotNull(center);
+		Preconditions.checkArgument(k >= 0, "k must not be negative");
+
+		final Comparator<Earthquake> byDistance = Comparator.comparingDouble(q -> center.distanceTo(q.getCoordinate()));
+
+		this.lock.readLock().lock();
+		try {
+			final List<Earthquake> candidates = new ArrayList<>();
+			if(k == 0 || this.quakes.isEmpty()) {
+				return candidates;
+			}
+
+			// grow the radius until it holds k quakes; anything outside it is farther than all of them
+			double radiusKm = this.cellDegrees * KM_PER_DEGREE;
+			while(true) {
+				candidates.clear();
+				this.withinLocked(center, radiusKm, candidates::add);
+				if(candidates.size() >= k || radiusKm >= HALF_CIRCUMFERENCE_KM) {
+					break;
+				}
+				radiusKm *= 2;
+			}
+
+			candidates.sort(byDistance);
+			return new ArrayList<>(candidates.subList(0, Math.min(k, candidates.size())));
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private void insertLocked(final Earthquake quake) {
+		final Earthquake previous = this.quakes.put(quake.getId(), quake);
+		if(previous != null) {
+			this.cells[this.cellOf(previous.getCoordinate())].remove(previous);
+		}
+
+		final int cell = this.cellOf(quake.getCoordinate());
+		if(this.cells[cell] == null) {
+			this.cells[cell] = new ArrayList<>();
+		}
+		this.cells[cell].add(quake);
+	}
+
+	private void withinLocked(final Coordinate center, final double radiusKm, final Consumer<Earthquake> sink) {
+		final double latitude = center.getLatitude();
+		final double longitude = center.getLongitude();
+		final double degrees = radiusKm / KM_PER_DEGREE;
+		final double minLatitude = latitude - degrees;
+		final double maxLatitude = latitude + degrees;
+
+		int firstColumn = 0, span = this.columns;
+
+		// the widest longitude of a spherical cap that doesn't contain a pole
+		if(minLatitude > -90 && maxLatitude < 90) {
+			final double ratio = Math.sin(radiusKm / Coordinate.EARTH_RADIUS_KM) / Math.cos(Math.toRadians(latitude));
+			if(ratio < 1) {
+				final double lonDegrees = Math.toDegrees(Math.asin(ratio));
+				final int first = this.columnIndexUnwrapped(longitude - lonDegrees);
+				final int last = this.columnIndexUnwrapped(longitude + lonDegrees);
+				if(last - first + 1 < this.columns) {
+					firstColumn = Math.floorMod(first, this.columns);
+					span = last - first + 1;
+				}
+			}
+		}
+
+		this.visit(this.rowOf(minLatitude), this.rowOf(maxLatitude), firstColumn, span, quake -> {
+			if(center.distanceTo(quake.getCoordinate()) <= radiusKm) {
+				sink.accept(quake);
+			}
+		});
+	}
+
+	private void visit(final int firstRow, final int lastRow, final int firstColumn, final int span,
+	                   final Consumer<Earthquake> visitor) {
+		for(int row = firstRow; row <= lastRow; row++) {
+			for(int i = 0; i < Math.min(span, this.columns); i++) {
+				final List<Earthquake> cell = this.cells[row * this.columns + (firstColumn + i) % this.columns];
+				if(cell != null) {
+					cell.forEach(visitor);
+				}
+			}
+		}
+	}
+
+	private int cellOf(final Coordinate coordinate) {
+		return this.rowOf(coordinate.getLatitude()) * this.columns + this.columnIndex(coordinate.getLongitude());
+	}
+
+	private int rowOf(final double latitude) {
+		final int row = (int) Math.floor((latitude + 90) / this.cellDegrees);
+		return Math.max(0, Math.min(this.rows - 1, row));
+	}
+
+	private int columnIndex(final double longitude) {
+		return Math.floorMod(this.columnIndexUnwrapped(longitude), this.columns);
+	}
+
+	private int columnIndexUnwrapped(final double longitude) {
+		return (int) Math.floor((longitude + 180) / this.cellDegrees);
+	}
+
+}
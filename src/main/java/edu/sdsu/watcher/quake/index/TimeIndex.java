@@ -0,0 +1,276 @@
+package edu.sdsu.watcher.quake.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.Earthquake;
+
+/**
+ * <p>Keeps {@link Earthquake}s ordered by {@link Earthquake#getTime()} in a primitive
+ * {@code long[]} with the quakes in a parallel array, so time windows are found with two
+ * binary searches instead of a pass over the whole feed.</p>
+ * <p>Quakes are keyed by id; inserting a revised event, even one whose time moved, replaces
+ * the previous revision at its new position. Queries may run concurrently with each other;
+ * inserts and removals are exclusive.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final TimeIndex index = new TimeIndex();
+ * index.insertAll(new SimpleEarthquake().getEarthquakes("all", "month"));
+ * final long now = System.currentTimeMillis();
+ * final List&lt;Earthquake&gt; recent = index.between(now - TimeUnit.MINUTES.toMillis(15), now);
+ * </pre>
+ */
+public class TimeIndex {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] times = new long[INITIAL_CAPACITY];
+	private Earthquake[] quakes = new Earthquake[INITIAL_CAPACITY];
+	private int size;
+	private final Map<String, Earthquake> ids = new HashMap<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Adds the quake, replacing any quake already indexed under the same id.
+	 * @param quake the quake to index.
+	 */
+	public void insert(final Earthquake quake) {
+		Preconditions.checkNotNull(quake);
+
+		this.lock.writeLock().lock();
+		try {
+			this.insertLocked(quake);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds every quake under a single lock, e.g. a freshly downloaded feed. The batch is
+	 * sorted once and merged into the index in one pass, so a feed in any order, newest first
+	 * included, costs O(n log n) rather than a shift of the arrays per quake.
+	 * @param quakes the quakes to index.
+	 */
+	public void insertAll(final Collection<Earthquake> quakes) {
+		Preconditions.checkNotNull(quakes);
+
+		// the last revision of an id wins and takes that revision's place in the arrival order
+		final Map<String, Earthquake> latest = new LinkedHashMap<>();
+		for(final Earthquake quake : quakes) {
+			latest.remove(quake.getId());
+			latest.put(quake.getId(), quake);
+		}
+
+		// stable, so quakes with the same time keep their arrival order
+		final List<Earthquake> batch = new ArrayList<>(latest.values());
+		batch.sort(Comparator.comparingLong(Earthquake::getTime));
+
+		this.lock.writeLock().lock();
+		try {
+			final Set<Earthquake> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+			for(final Earthquake quake : batch) {
+				final Earthquake previous = this.ids.put(quake.getId(), quake);
+				if(previous != null) {
+					replaced.add(previous);
+				}
+			}
+			this.removeAll(replaced);
+			this.merge(batch);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param id the id of the quake to drop.
+	 * @return true if a quake was indexed under the id.
+	 */
+	public boolean remove(final String id) {
+		this.lock.writeLock().lock();
+		try {
+			final Earthquake previous = this.ids.remove(id);
+			if(previous != null) {
+				this.removeAt(this.indexOf(previous));
+			}
+			return previous != null;
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of indexed quakes.
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.size;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param from the start of the window in epoch milliseconds, inclusive.
+	 * @param to   the end of the window in epoch milliseconds, exclusive.
+	 * @return the quakes that occurred in the window, oldest first.
+	 */
+	public List<Earthquake> between(final long from, final long to) {
+		Preconditions.checkArgument(from <= to, "from must not be after to");
+
+		this.lock.readLock().lock();
+		try {
+			return this.slice(this.lowerBound(from), this.lowerBound(to));
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @param n the maximum number of quakes to return.
+	 * @return the n most recent quakes, newest first.
+	 */
+	public List<Earthquake> latest(final int n) {
+		Preconditions.checkArgument(n >= 0, "n must not be negative");
+
+		this.lock.readLock().lock();
+		try {
+			final List<Earthquake> result = new ArrayList<>(Math.min(n, this.size));
+			for(int i = this.size - 1; i >= 0 && result.size() < n; i--) {
+				result.add(this.quakes[i]);
+			}
+			return result;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Pages forward through the index: pass the time of the last quake already seen (or
+	 * {@link Long#MIN_VALUE} to start) and get everything after it.
+	 * @param cursor the time of the last quake seen, in epoch milliseconds.
+	 * @return the quakes that occurred strictly after the cursor, oldest first.
+	 */
+	public List<Earthquake> since(final long cursor) {
+		this.lock.readLock().lock();
+		try {
+			return this.slice(cursor == Long.MAX_VALUE ? this.size : this.lowerBound(cursor + 1), this.size);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	private void insertLocked(final Earthquake quake) {
+		final Earthquake previous = this.ids.put(quake.getId(), quake);
+		if(previous != null) {
+			this.removeAt(this.indexOf(previous));
+		}
+
+		this.ensureCapacity(this.size + 1);
+
+		// after any equal times, so quakes with the same time keep their arrival order
+		final int index = quake.getTime() == Long.MAX_VALUE ? this.size : this.lowerBound(quake.getTime() + 1);
+		System.arraycopy(this.times, index, this.times, index + 1, this.size - index);
+		System.arraycopy(this.quakes, index, this.quakes, index + 1, this.size - index);
+		this.times[index] = quake.getTime();
+		this.quakes[index] = quake;
+		this.size++;
+	}
+
+	/**
+	 * Drops the given quakes with a single pass over the arrays.
+	 */
+	private void removeAll(final Set<Earthquake> removed) {
+		if(removed.isEmpty()) {
+			return;
+		}
+
+		int kept = 0;
+		for(int i = 0; i < this.size; i++) {
+			if(!removed.contains(this.quakes[i])) {
+				this.times[kept] = this.times[i];
+				this.quakes[kept++] = this.quakes[i];
+			}
+		}
+		Arrays.fill(this.quakes, kept, this.size, null);
+		this.size = kept;
+	}
+
+	/**
+	 * Merges quakes sorted by time into the arrays, filling them from the end so nothing is
+	 * moved twice. Indexed quakes go before batch quakes with the same time.
+	 */
+	private void merge(final List<Earthquake> sorted) {
+		this.ensureCapacity(this.size + sorted.size());
+
+		int i = this.size - 1;
+		int target = this.size + sorted.size() - 1;
+		for(int j = sorted.size() - 1; j >= 0; j--) {
+			final Earthquake quake = sorted.get(j);
+			while(i >= 0 && this.times[i] > quake.getTime()) {
+				this.times[target] = this.times[i];
+				this.quakes[target--] = this.quakes[i--];
+			}
+			this.times[target] = quake.getTime();
+			this.quakes[target--] = quake;
+		}
+		this.size += sorted.size();
+	}
+
+	private void removeAt(final int index) {
+		System.arraycopy(this.times, index + 1, this.times, index, this.size - index - 1);
+		System.arraycopy(this.quakes, index + 1, this.quakes, index, this.size - index - 1);
+		this.quakes[--this.size] = null;
+	}
+
+	private int indexOf(final Earthquake quake) {
+		for(int i = this.lowerBound(quake.getTime()); i < this.size && this.times[i] == quake.getTime(); i++) {
+			if(this.quakes[i] == quake) {
+				return i;
+			}
+		}
+
+		throw new IllegalStateException("Indexed quake " + quake.getId() + " is missing");
+	}
+
+	/**
+	 * @return the first index whose time is not less than the given time.
+	 */
+	private int lowerBound(final long time) {
+		int low = 0, high = this.size;
+		while(low < high) {
+			final int middle = (low + high) >>> 1;
+			if(this.times[middle] < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private List<Earthquake> slice(final int from, final int to) {
+		return new ArrayList<>(Arrays.asList(this.quakes).subList(from, Math.max(from, to)));
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if(capacity > this.times.length) {
+			final int grown = Math.max(capacity, this.times.length + (this.times.length >> 1));
+			this.times = Arrays.copyOf(this.times, grown);
+			this.quakes = Arrays.copyOf(this.quakes, grown);
+		}
+	}
+
+}
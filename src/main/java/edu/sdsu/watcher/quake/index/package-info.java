@@ -0,0 +1,7 @@
+/**
+ * <p>In-memory indexes over {@link edu.sdsu.watcher.quake.Earthquake}s so repeated queries
+ * don't have to scan a whole feed. Indexes are keyed by event id, so inserting a revised
+ * event replaces the previous revision, and they are safe to query while a feed refresh is
+ * writing to them.</p>
+ */
+package edu.sdsu.watcher.quake.index;
@@ -1,10 +1,13 @@
 package edu.sdsu.watcher.quake.io;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
 
 import com.google.common.base.Preconditions;
 
@@ -15,12 +18,20 @@ import com.google.common.base.Preconditions;
  *     <li>File creation</li>
  *     <li>File writing</li>
  *     <li>File deletion</li>
+ *     <li>File reading, compressed or not</li>
  * </ol>
  * <p>This class utilizes the Java non-blocking I/O {@code java.nio} libraries to
  * achieve better, thread-safe I/O operations.</p>
  */
 public final class FileIOHelper {
 
+	/**
+	 * The extension of gzip compressed files.
+	 */
+	public static final String GZIP_EXTENSION = ".gz";
+
+	private static final int BUFFER_SIZE = 8192;
+
 	/**
 	 * Private constructor so we don't instantiate the class &mdash; it's static.
 	 */
@@ -124,6 +135,37 @@ public final class FileIOHelper {
 		}
 	}
 
+	/**
+	 * Opens a file for reading. Files ending in {@value #GZIP_EXTENSION} are decompressed as
+	 * they are read, including files made of several appended gzip members.
+	 * @param path the file to read.
+	 * @return a buffered stream of the (decompressed) contents of the file.
+	 * @throws IOException if the file can't be opened or is not valid gzip.
+	 */
+	public static InputStream newInputStream(final Path path) throws IOException {
+		Preconditions.checkNotNull(path);
+
+		final InputStream in = new BufferedInputStream(Files.newInputStream(path));
+		if(!isCompressed(path)) {
+			return in;
+		}
+
+		try {
+			return new GZIPInputStream(in, BUFFER_SIZE);
+		} catch(IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param path the file to check.
+	 * @return true if the file has the {@value #GZIP_EXTENSION} extension.
+	 */
+	public static boolean isCompressed(final Path path) {
+		return path.getFileName().toString().endsWith(GZIP_EXTENSION);
+	}
+
 	/**
 	 * <p>Validates the arguments by ensuring the parameters are:</p>
 	 * <ol>
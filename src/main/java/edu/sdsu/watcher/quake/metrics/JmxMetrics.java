@@ -0,0 +1,237 @@
+package edu.sdsu.watcher.quake.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>Keeps counters and a latency histogram for every {@link Metrics.Stage} and exposes them
+ * as MBeans, so they can be read with jconsole, VisualVM or any JMX agent:</p>
+ * <ul>
+ *     <li>{@code edu.sdsu.watcher.quake:type=Metrics} &ndash; the counters of
+ *     {@link JmxMetricsMBean};</li>
+ *     <li>{@code edu.sdsu.watcher.quake:type=Metrics,stage=fetch} and so on &ndash; a
+ *     {@link StageStats} for every stage.</li>
+ * </ul>
+ * <p>Everything is counted with {@link LongAdder}s, so threads recording at the same time
+ * don't contend.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final JmxMetrics metrics = JmxMetrics.install();
+ * </pre>
+ */
+public final class JmxMetrics implements Metrics, JmxMetricsMBean {
+
+	/**
+	 * The domain of the names the MBeans are registered under.
+	 */
+	public static final String DOMAIN = "edu.sdsu.watcher.quake";
+
+	private final Map<Stage, StageStats> stats = new EnumMap<>(Stage.class);
+	private final LongAdder fetchedBytes = new LongAdder();
+	private final LongAdder notModified = new LongAdder();
+	private final LongAdder httpErrors = new LongAdder();
+	private final LongAdder decodedFeatures = new LongAdder();
+	private final LongAdder filteredIn = new LongAdder();
+	private final LongAdder filteredOut = new LongAdder();
+	private final LongAdder cachedBytes = new LongAdder();
+
+	private MBeanServer server;
+	private final List<ObjectName> names = new ArrayList<>();
+
+	public JmxMetrics() {
+		for(final Stage stage : Stage.values()) {
+			this.stats.put(stage, new StageStats(stage));
+		}
+	}
+
+	/**
+	 * Creates metrics, registers them with the platform MBean server and makes them the
+	 * ones the pipeline reports to.
+	 * @return the installed metrics.
+	 * @throws JMException if the MBeans can't be registered, e.g. because metrics are
+	 * already registered.
+	 */
+	public static JmxMetrics install() throws JMException {
+		final JmxMetrics metrics = new JmxMetrics().register(ManagementFactory.getPlatformMBeanServer());
+		Metrics.set(metrics);
+		return metrics;
+	}
+
+	/**
+	 * @param server the server to register the MBeans with.
+	 * @return this.
+	 * @throws JMException if the MBeans can't be registered.
+	 */
+	public synchronized JmxMetrics register(final MBeanServer server) throws JMException {
+		Preconditions.checkNotNull(server);
+		Preconditions.checkState(this.server == null, "The metrics are already registered");
+
+		try {
+			this.register(server, new ObjectName(DOMAIN + ":type=Metrics"), this);
+			for(final StageStats stats : this.stats.values()) {
+				final String stage = stats.getStage().name().toLowerCase(Locale.ROOT);
+				this.register(server, new ObjectName(DOMAIN + ":type=Metrics,stage=" + stage), stats);
+			}
+		} catch(JMException e) {
+			this.unregister(server);
+			throw e;
+		}
+
+		this.server = server;
+		return this;
+	}
+
+	/**
+	 * Removes the MBeans from the server they were registered with.
+	 */
+	public synchronized void unregister() {
+		if(this.server != null) {
+			this.unregister(this.server);
+			this.server = null;
+		}
+	}
+
+	private void register(final MBeanServer server, final ObjectName name, final Object mbean) throws JMException {
+		server.registerMBean(mbean, name);
+		this.names.add(name);
+	}
+
+	private void unregister(final MBeanServer server) {
+		for(final ObjectName name : this.names) {
+			try {
+				server.unregisterMBean(name);
+			} catch(JMException e) {
+				System.err.println("Unable to unregister " + name);
+				e.printStackTrace();
+			}
+		}
+		this.names.clear();
+	}
+
+	/**
+	 * @param stage the stage to get the statistics of.
+	 * @return the latency and errors of the stage.
+	 */
+	public StageStats getStats(final Stage stage) {
+		return this.stats.get(Preconditions.checkNotNull(stage));
+	}
+
+	@Override
+	public Timing start(final Stage stage) {
+		return new Sample(this.getStats(stage), System.nanoTime());
+	}
+
+	@Override
+	public long getFetchedBytes() {
+		return this.fetchedBytes.sum();
+	}
+
+	@Override
+	public long getNotModified() {
+		return this.notModified.sum();
+	}
+
+	@Override
+	public long getHttpErrors() {
+		return this.httpErrors.sum();
+	}
+
+	@Override
+	public long getDecodedFeatures() {
+		return this.decodedFeatures.sum();
+	}
+
+	@Override
+	public long getFilteredIn() {
+		return this.filteredIn.sum();
+	}
+
+	@Override
+	public long getFilteredOut() {
+		return this.filteredOut.sum();
+	}
+
+	@Override
+	public long getCachedBytes() {
+		return this.cachedBytes.sum();
+	}
+
+	@Override
+	public void reset() {
+		this.stats.values().forEach(StageStats::reset);
+		this.fetchedBytes.reset();
+		this.notModified.reset();
+		this.httpErrors.reset();
+		this.decodedFeatures.reset();
+		this.filteredIn.reset();
+		this.filteredOut.reset();
+		this.cachedBytes.reset();
+	}
+
+	/**
+	 * The timing of one operation.
+	 */
+	private final class Sample implements Timing {
+
+		private final StageStats stats;
+		private final long start;
+
+		private Sample(final StageStats stats, final long start) {
+			this.stats = stats;
+			this.start = start;
+		}
+
+		@Override
+		public void fetched(final String url, final int status, final long bytes) {
+			this.end();
+			fetchedBytes.add(bytes);
+			if(status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				notModified.increment();
+			} else if(status >= HttpURLConnection.HTTP_BAD_REQUEST) {
+				httpErrors.increment();
+			}
+		}
+
+		@Override
+		public void decoded(final int features) {
+			this.end();
+			decodedFeatures.add(features);
+		}
+
+		@Override
+		public void filtered(final int in, final int out) {
+			this.end();
+			filteredIn.add(in);
+			filteredOut.add(out);
+		}
+
+		@Override
+		public void cached(final Path path, final boolean append, final long bytes) {
+			this.end();
+			cachedBytes.add(bytes);
+		}
+
+		@Override
+		public void failed(final Throwable e) {
+			this.stats.fail();
+		}
+
+		private void end() {
+			this.stats.record(System.nanoTime() - this.start);
+		}
+
+	}
+
+}
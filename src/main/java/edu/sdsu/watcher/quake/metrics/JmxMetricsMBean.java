@@ -0,0 +1,48 @@
+package edu.sdsu.watcher.quake.metrics;
+
+/**
+ * The management interface of the counters of {@link JmxMetrics}.
+ */
+public interface JmxMetricsMBean {
+
+	/**
+	 * @return the bytes of every response body read, as they came over the wire.
+	 */
+	long getFetchedBytes();
+
+	/**
+	 * @return the number of responses that were {@code 304 Not Modified}.
+	 */
+	long getNotModified();
+
+	/**
+	 * @return the number of responses with a status of 400 or more.
+	 */
+	long getHttpErrors();
+
+	/**
+	 * @return the number of features decoded.
+	 */
+	long getDecodedFeatures();
+
+	/**
+	 * @return the number of features checked by a filter.
+	 */
+	long getFilteredIn();
+
+	/**
+	 * @return the number of earthquakes a filter kept.
+	 */
+	long getFilteredOut();
+
+	/**
+	 * @return the bytes written to cache files, after compression.
+	 */
+	long getCachedBytes();
+
+	/**
+	 * Starts the counters and the statistics of every stage over.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,79 @@
+package edu.sdsu.watcher.quake.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free histogram of durations with one bucket per power of two nanoseconds, so a
+ * percentile is accurate to within a factor of two. Recording is a couple of
+ * {@link LongAdder} increments; reading walks the 64 buckets.
+ */
+final class LatencyHistogram {
+
+	private final LongAdder[] buckets = new LongAdder[Long.SIZE];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	LatencyHistogram() {
+		for(int i = 0; i < this.buckets.length; i++) {
+			this.buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * @param nanos the duration to record; negative durations count as 0.
+	 */
+	void record(final long nanos) {
+		final long duration = Math.max(0, nanos);
+		this.buckets[Long.SIZE - Long.numberOfLeadingZeros(duration)].increment();
+		this.count.increment();
+		this.total.add(duration);
+		this.max.accumulate(duration);
+	}
+
+	long count() {
+		return this.count.sum();
+	}
+
+	long totalNanos() {
+		return this.total.sum();
+	}
+
+	long maxNanos() {
+		return this.max.get();
+	}
+
+	/**
+	 * @param fraction the percentile as a fraction, e.g. {@code 0.99}.
+	 * @return the upper bound of the bucket that holds the percentile, at most the longest
+	 * duration recorded, or 0 if nothing has been recorded.
+	 */
+	long percentileNanos(final double fraction) {
+		final long count = this.count();
+		if(count == 0) {
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for(int i = 0; i < this.buckets.length; i++) {
+			seen += this.buckets[i].sum();
+			if(seen >= rank) {
+				final long upper = (1L << i) - 1;
+				return Math.min(upper, this.maxNanos());
+			}
+		}
+		return this.maxNanos();
+	}
+
+	void reset() {
+		for(final LongAdder bucket : this.buckets) {
+			bucket.reset();
+		}
+		this.count.reset();
+		this.total.reset();
+		this.max.reset();
+	}
+
+}
@@ -0,0 +1,141 @@
+package edu.sdsu.watcher.quake.metrics;
+
+import java.nio.file.Path;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>Receives the timings of the stages every feed goes through: the fetch from usgs.gov,
+ * the decoding of the {@code json}, the filtering of the features, and the writes to the
+ * cache. Each operation is timed by the {@link Timing} returned from {@link #start(Stage)},
+ * which is ended exactly once with the outcome of the operation.</p>
+ * <p>The instrumented classes report to the implementation set with {@link #set(Metrics)}.
+ * By default that is {@link #NONE}, which hands out a single {@link Timing} that does
+ * nothing, so the instrumentation doesn't allocate or read the clock unless it's enabled.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final JmxMetrics metrics = JmxMetrics.install();
+ * usgs.getEarthquakes(feed, filter);
+ * System.out.println(metrics.getStats(Metrics.Stage.FETCH).getP99Millis());
+ * </pre>
+ */
+public interface Metrics {
+
+	/**
+	 * Records nothing.
+	 */
+	Metrics NONE = new Metrics() {
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public Timing start(final Stage stage) {
+			return Timing.NONE;
+		}
+	};
+
+	/**
+	 * The stages of the pipeline.
+	 */
+	enum Stage {
+		/**
+		 * A request to usgs.gov, from sending it until the body has been read.
+		 */
+		FETCH,
+		/**
+		 * Decoding a feed into {@link edu.sdsu.watcher.quake.structures.QuakeStruct}s or
+		 * {@link edu.sdsu.watcher.quake.Earthquake}s.
+		 */
+		DECODE,
+		/**
+		 * Filtering and converting decoded features.
+		 */
+		FILTER,
+		/**
+		 * A write to a cache file.
+		 */
+		CACHE
+	}
+
+	/**
+	 * @return the implementation the instrumented classes report to.
+	 */
+	static Metrics get() {
+		return MetricsHolder.metrics;
+	}
+
+	/**
+	 * @param metrics the implementation the instrumented classes report to from now on,
+	 *                {@link #NONE} to turn the instrumentation off.
+	 */
+	static void set(final Metrics metrics) {
+		MetricsHolder.metrics = Preconditions.checkNotNull(metrics);
+	}
+
+	/**
+	 * Callers may skip work that is only done for the metrics, e.g. counting bytes, if this
+	 * returns false.
+	 * @return true if the timings are recorded.
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+	/**
+	 * Called as an operation begins.
+	 * @param stage the stage of the operation.
+	 * @return the timing to end once the operation is done.
+	 */
+	Timing start(Stage stage);
+
+	/**
+	 * The timing of one operation. Only the method that matches the stage of the operation,
+	 * or {@link #failed(Throwable)}, is called, and only once.
+	 */
+	interface Timing {
+
+		/**
+		 * Ends nothing.
+		 */
+		Timing NONE = new Timing() {};
+
+		/**
+		 * Ends a {@link Stage#FETCH}.
+		 * @param url    the URL that was requested.
+		 * @param status the HTTP status of the response.
+		 * @param bytes  the number of bytes of the body, as they came over the wire.
+		 */
+		default void fetched(final String url, final int status, final long bytes) {}
+
+		/**
+		 * Ends a {@link Stage#DECODE}.
+		 * @param features the number of features decoded.
+		 */
+		default void decoded(final int features) {}
+
+		/**
+		 * Ends a {@link Stage#FILTER}.
+		 * @param in  the number of features checked.
+		 * @param out the number of earthquakes kept.
+		 */
+		default void filtered(final int in, final int out) {}
+
+		/**
+		 * Ends a {@link Stage#CACHE}.
+		 * @param path   the file written to.
+		 * @param append true if the content was appended, false if it replaced the file.
+		 * @param bytes  the number of bytes written, after compression.
+		 */
+		default void cached(final Path path, final boolean append, final long bytes) {}
+
+		/**
+		 * Ends an operation of any stage that didn't complete.
+		 * @param e the reason.
+		 */
+		default void failed(final Throwable e) {}
+
+	}
+
+}
@@ -0,0 +1,12 @@
+package edu.sdsu.watcher.quake.metrics;
+
+/**
+ * Holds the implementation behind {@link Metrics#get()}; interfaces can't have mutable fields.
+ */
+final class MetricsHolder {
+
+	static volatile Metrics metrics = Metrics.NONE;
+
+	private MetricsHolder() {}
+
+}
@@ -0,0 +1,87 @@
+package edu.sdsu.watcher.quake.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency and error count of one {@link Metrics.Stage}, as kept by {@link JmxMetrics}.
+ * Percentiles are accurate to within a factor of two.
+ */
+public final class StageStats implements StageStatsMBean {
+
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final Metrics.Stage stage;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder errors = new LongAdder();
+
+	StageStats(final Metrics.Stage stage) {
+		this.stage = stage;
+	}
+
+	public Metrics.Stage getStage() {
+		return this.stage;
+	}
+
+	void record(final long nanos) {
+		this.latency.record(nanos);
+	}
+
+	void fail() {
+		this.errors.increment();
+	}
+
+	@Override
+	public long getCount() {
+		return this.latency.count();
+	}
+
+	@Override
+	public long getErrors() {
+		return this.errors.sum();
+	}
+
+	@Override
+	public double getTotalMillis() {
+		return this.latency.totalNanos() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getMeanMillis() {
+		final long count = this.getCount();
+		return count == 0 ? 0 : this.getTotalMillis() / count;
+	}
+
+	@Override
+	public double getMaxMillis() {
+		return this.latency.maxNanos() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP50Millis() {
+		return this.latency.percentileNanos(0.5) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP90Millis() {
+		return this.latency.percentileNanos(0.9) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getP99Millis() {
+		return this.latency.percentileNanos(0.99) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public void reset() {
+		this.latency.reset();
+		this.errors.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "StageStats[" + stage + ": count=" + getCount() + ", errors=" + getErrors()
+				+ ", p50=" + getP50Millis() + "ms, p99=" + getP99Millis() + "ms, max=" + getMaxMillis() + "ms]";
+	}
+
+}
@@ -0,0 +1,38 @@
+package edu.sdsu.watcher.quake.metrics;
+
+/**
+ * The management interface of {@link StageStats}.
+ */
+public interface StageStatsMBean {
+
+	/**
+	 * @return the number of operations that completed.
+	 */
+	long getCount();
+
+	/**
+	 * @return the number of operations that failed.
+	 */
+	long getErrors();
+
+	/**
+	 * @return the total time spent in completed operations, in milliseconds.
+	 */
+	double getTotalMillis();
+
+	double getMeanMillis();
+
+	double getMaxMillis();
+
+	double getP50Millis();
+
+	double getP90Millis();
+
+	double getP99Millis();
+
+	/**
+	 * Starts the statistics over.
+	 */
+	void reset();
+
+}
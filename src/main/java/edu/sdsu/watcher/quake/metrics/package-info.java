@@ -0,0 +1,6 @@
+/**
+ * <p>Timings and counters for the stages of the pipeline: fetching, decoding, filtering and
+ * caching feeds. Off by default; {@link edu.sdsu.watcher.quake.metrics.JmxMetrics} exposes
+ * them over JMX.</p>
+ */
+package edu.sdsu.watcher.quake.metrics;
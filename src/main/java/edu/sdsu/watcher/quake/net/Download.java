@@ -0,0 +1,46 @@
+package edu.sdsu.watcher.quake.net;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>The result of a conditional request: the body, unless the server answered
+ * {@code 304 Not Modified}, and the {@link Validators} to send with the next request for the
+ * same resource. Keep the validators together with the body they came with.</p>
+ * @param <T> the type of the body, a String or an InputStream the caller must close.
+ */
+public final class Download<T> {
+
+	private final T body;
+	private final Validators validators;
+
+	/**
+	 * @param body       the body, or {@code null} if the resource was not modified.
+	 * @param validators the validators of the body.
+	 */
+	public Download(final T body, final Validators validators) {
+		this.body = body;
+		this.validators = Preconditions.checkNotNull(validators);
+	}
+
+	/**
+	 * @return the body, or {@code null} if the resource was not modified.
+	 */
+	public T getBody() {
+		return this.body;
+	}
+
+	/**
+	 * @return true if the body held with the validators that were sent is still current.
+	 */
+	public boolean isNotModified() {
+		return this.body == null;
+	}
+
+	/**
+	 * @return the validators to send with the next request for the resource.
+	 */
+	public Validators getValidators() {
+		return this.validators;
+	}
+
+}
@@ -1,30 +1,69 @@
 package edu.sdsu.watcher.quake.net;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.metrics.Metrics;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
 
 /**
- * A singleton that grabs a remote {@code json} String and stores the
- * result as a String so it can be passed on for additional processing.
+ * <p>Grabs a remote {@code json} resource, either as a String or as a stream, so it can be
+ * passed on for additional processing. Readers are built with {@link JsonReader.Builder};
+ * {@link JsonReader#getInstance()} returns a shared reader with the default settings.</p>
+ * <p>Each instance owns exactly one {@link OkHttpClient} so every call shares the same
+ * connection pool and dispatcher. Connections are kept alive between polls and
+ * HTTP/2 is negotiated whenever the server supports it. Use {@link JsonReader.Builder}
+ * to tune the pool, the timeouts, or the dispatcher limits:</p>
+ * <pre>
+ * final Reader reader = new JsonReader.Builder()
+ *         .maxIdleConnections(8)
+ *         .readTimeout(30, TimeUnit.SECONDS)
+ *         .build();
+ * </pre>
+ * <p>The reader keeps no state per URL: {@link JsonReader#getIfModified(String, Validators)}
+ * sends the {@code ETag} and {@code Last-Modified} validators the caller kept with its copy
+ * of the feed, so the download is skipped entirely when that copy is still current, and
+ * returns the validators of the new copy otherwise. Callers sharing one reader never see
+ * each other's validators.</p>
  * @author Dennis Thompson
  */
 public final class JsonReader implements Reader {
 
 	private static class InstanceHolder {
-		private static final Reader instance = new JsonReader();
+		private static final Reader instance = new Builder().build();
 	}
 
-	private JsonReader() {}
+	private final OkHttpClient client;
+
+	private JsonReader(final OkHttpClient client) {
+		this.client = client;
+	}
 
 	/**
-	 * @return the instance of JsonReader.
+	 * @return the shared JsonReader with the default settings, built on first use.
 	 */
 	public static Reader getInstance() {
 		return InstanceHolder.instance;
 	}
 
+	/**
+	 * @return the client shared by every call made through this reader.
+	 */
+	public OkHttpClient getClient() {
+		return this.client;
+	}
+
 	/**
 	 * Gets a remote resource and returns a String of said resource.
 	 * @param url The URL to read from.
@@ -32,11 +71,149 @@ public final class JsonReader implements Reader {
 	 * @see OkHttpClient
 	 */
 	public String get(final String url) throws IOException {
+		return this.read(url, Validators.NONE).getBody();
+	}
+
+	/**
+	 * Sends a request that is conditional on the given validators.
+	 * @param url        The URL to read from.
+	 * @param validators The validators of the copy the caller holds, {@link Validators#NONE} if none.
+	 * @return A String representing what was read from the URL, or no body if the server
+	 * answered with {@code 304 Not Modified}, with the validators to send next time.
+	 */
+	@Override
+	public Download<String> getIfModified(final String url, final Validators validators) throws IOException {
+		return this.read(url, validators);
+	}
+
+	/**
+	 * Opens the response body without reading it so it can be decoded as it arrives.
+	 * Closing the stream releases the connection back to the pool.
+	 * @param url The URL to read from.
+	 * @return The response body as a stream.
+	 */
+	@Override
+	public InputStream open(final String url) throws IOException {
+		return this.stream(url, Validators.NONE).getBody();
+	}
+
+	/**
+	 * Conditional version of {@link JsonReader#open(String)}.
+	 * @param url        The URL to read from.
+	 * @param validators The validators of the copy the caller holds, {@link Validators#NONE} if none.
+	 * @return The response body as a stream, or no body if the server answered with
+	 * {@code 304 Not Modified}, with the validators to send next time.
+	 */
+	@Override
+	public Download<InputStream> openIfModified(final String url, final Validators validators) throws IOException {
+		return this.stream(url, validators);
+	}
+
+	/**
+	 * Reads the whole body of a response as a String and reports the fetch to the {@link Metrics}.
+	 * @param url        The URL to read from.
+	 * @param validators The validators to send.
+	 * @return The body, or none if the server answered with {@code 304 Not Modified}.
+	 */
+	private Download<String> read(final String url, final Validators validators) throws IOException {
+		final Metrics metrics = Metrics.get();
+		final Metrics.Timing timing = metrics.start(Metrics.Stage.FETCH);
+		try(Response response = this.execute(url, validators)) {
+			if(isNotModified(response)) {
+				timing.fetched(url, response.code(), 0);
+				return new Download<>(null, validatorsOf(response, validators));
+			}
+
+			long bytes = 0;
+			if(metrics.isEnabled()) {
+				// buffered up front only to be counted, string() then reads from the buffer
+				final BufferedSource source = response.body().source();
+				source.request(Long.MAX_VALUE);
+				bytes = source.buffer().size();
+			}
+
+			final String content = response.body().string();
+			timing.fetched(url, response.code(), bytes);
+			return new Download<>(content, validatorsOf(response, validators));
+		} catch(IOException | RuntimeException e) {
+			timing.failed(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens the body of a response as a stream. With {@link Metrics} enabled, the fetch is
+	 * reported once the stream is closed, so its duration includes the time it took the
+	 * caller to consume the body.
+	 * @param url        The URL to read from.
+	 * @param validators The validators to send.
+	 * @return The body, or none if the server answered with {@code 304 Not Modified}.
+	 */
+	private Download<InputStream> stream(final String url, final Validators validators) throws IOException {
+		final Metrics metrics = Metrics.get();
+		final Metrics.Timing timing = metrics.start(Metrics.Stage.FETCH);
+		final Response response;
+		try {
+			response = this.execute(url, validators);
+		} catch(IOException | RuntimeException e) {
+			timing.failed(e);
+			throw e;
+		}
+
+		if(isNotModified(response)) {
+			response.close();
+			timing.fetched(url, response.code(), 0);
+			return new Download<>(null, validatorsOf(response, validators));
+		}
+
+		final InputStream body = response.body().byteStream();
+		return new Download<>(metrics.isEnabled() ? new MeteredStream(body, url, response.code(), timing) : body,
+				validatorsOf(response, validators));
+	}
+
+	/**
+	 * Executes a request on the shared client.
+	 * @param url        The URL to read from.
+	 * @param validators The validators to make the request conditional on.
+	 * @return The response, which the caller must close.
+	 */
+	private Response execute(final String url, final Validators validators) throws IOException {
 		checkArgs(url);
-		final OkHttpClient client = new OkHttpClient();
+		Preconditions.checkNotNull(validators);
+
+		final Request.Builder builder = new Request.Builder().url(url);
+		if(validators.getEtag() != null) {
+			builder.header("If-None-Match", validators.getEtag());
+		}
+		if(validators.getLastModified() != null) {
+			builder.header("If-Modified-Since", validators.getLastModified());
+		}
+
+		return this.client.newCall(builder.build()).execute();
+	}
+
+	private static boolean isNotModified(final Response response) {
+		return response.code() == HttpURLConnection.HTTP_NOT_MODIFIED;
+	}
+
+	/**
+	 * @param response The response to take the validators from.
+	 * @param sent     The validators the request was sent with.
+	 * @return The validators to send with the next request for the same URL.
+	 */
+	private static Validators validatorsOf(final Response response, final Validators sent) {
+		if(isNotModified(response)) {
+			// a 304 may refresh the validators, otherwise the ones we hold stay valid
+			final String etag = response.header("ETag");
+			final String lastModified = response.header("Last-Modified");
+			return etag == null && lastModified == null ? sent : new Validators(
+					etag == null ? sent.getEtag() : etag, lastModified == null ? sent.getLastModified() : lastModified);
+		}
 
-		final Request request = new Request.Builder().url(url).build();
-		return client.newCall(request).execute().body().string();
+		if(!response.isSuccessful()) {
+			return Validators.NONE;
+		}
+		return new Validators(response.header("ETag"), response.header("Last-Modified"));
 	}
 
 	/**
@@ -55,4 +232,207 @@ public final class JsonReader implements Reader {
 		}
 	}
 
+	/**
+	 * Counts the bytes read from a response body and ends the timing of the fetch on close.
+	 */
+	private static final class MeteredStream extends FilterInputStream {
+		private final String url;
+		private final int status;
+		private final Metrics.Timing timing;
+		private long bytes;
+		private boolean ended;
+
+		private MeteredStream(final InputStream in, final String url, final int status, final Metrics.Timing timing) {
+			super(in);
+			this.url = url;
+			this.status = status;
+			this.timing = timing;
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				final int read = super.read();
+				if(read != -1) {
+					this.bytes++;
+				}
+				return read;
+			} catch(IOException e) {
+				this.fail(e);
+				throw e;
+			}
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			try {
+				final int read = super.read(b, off, len);
+				if(read > 0) {
+					this.bytes += read;
+				}
+				return read;
+			} catch(IOException e) {
+				this.fail(e);
+				throw e;
+			}
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final long skipped = super.skip(n);
+			this.bytes += skipped;
+			return skipped;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				if(!this.ended) {
+					this.ended = true;
+					this.timing.fetched(this.url, this.status, this.bytes);
+				}
+			}
+		}
+
+		private void fail(final IOException e) {
+			if(!this.ended) {
+				this.ended = true;
+				this.timing.failed(e);
+			}
+		}
+	}
+
+	/**
+	 * Configures the single {@link OkHttpClient} owned by a {@link JsonReader}. Every
+	 * setting has a sensible default so {@code new JsonReader.Builder().build()} is
+	 * equivalent to {@link JsonReader#getInstance()}.
+	 */
+	public static final class Builder {
+
+		private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+		private static final long DEFAULT_KEEP_ALIVE_MINUTES = 5;
+		private static final long DEFAULT_CONNECT_TIMEOUT_SECONDS = 10;
+		private static final long DEFAULT_READ_TIMEOUT_SECONDS = 30;
+		private static final long DEFAULT_WRITE_TIMEOUT_SECONDS = 10;
+		private static final int DEFAULT_MAX_REQUESTS = 64;
+		private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 8;
+
+		private OkHttpClient base;
+		private int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+		private long keepAliveMillis = TimeUnit.MINUTES.toMillis(DEFAULT_KEEP_ALIVE_MINUTES);
+		private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_CONNECT_TIMEOUT_SECONDS);
+		private long readTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_READ_TIMEOUT_SECONDS);
+		private long writeTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_WRITE_TIMEOUT_SECONDS);
+		private int maxRequests = DEFAULT_MAX_REQUESTS;
+		private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+
+		/**
+		 * Derives the client from an existing one so interceptors, proxies, etc. are kept.
+		 * @param base The client to derive from.
+		 * @return this builder.
+		 */
+		public Builder client(final OkHttpClient base) {
+			this.base = Preconditions.checkNotNull(base);
+			return this;
+		}
+
+		/**
+		 * @param maxIdleConnections The number of idle connections to keep alive in the pool.
+		 * @return this builder.
+		 */
+		public Builder maxIdleConnections(final int maxIdleConnections) {
+			Preconditions.checkArgument(maxIdleConnections >= 0);
+			this.maxIdleConnections = maxIdleConnections;
+			return this;
+		}
+
+		/**
+		 * @param duration How long an idle connection is kept alive.
+		 * @param unit     The unit of the duration.
+		 * @return this builder.
+		 */
+		public Builder keepAlive(final long duration, final TimeUnit unit) {
+			this.keepAliveMillis = toMillis(duration, unit);
+			return this;
+		}
+
+		/**
+		 * @param duration The connect timeout, {@code 0} for no timeout.
+		 * @param unit     The unit of the duration.
+		 * @return this builder.
+		 */
+		public Builder connectTimeout(final long duration, final TimeUnit unit) {
+			this.connectTimeoutMillis = toMillis(duration, unit);
+			return this;
+		}
+
+		/**
+		 * @param duration The read timeout, {@code 0} for no timeout.
+		 * @param unit     The unit of the duration.
+		 * @return this builder.
+		 */
+		public Builder readTimeout(final long duration, final TimeUnit unit) {
+			this.readTimeoutMillis = toMillis(duration, unit);
+			return this;
+		}
+
+		/**
+		 * @param duration The write timeout, {@code 0} for no timeout.
+		 * @param unit     The unit of the duration.
+		 * @return this builder.
+		 */
+		public Builder writeTimeout(final long duration, final TimeUnit unit) {
+			this.writeTimeoutMillis = toMillis(duration, unit);
+			return this;
+		}
+
+		/**
+		 * @param maxRequests The maximum number of requests the dispatcher runs concurrently.
+		 * @return this builder.
+		 */
+		public Builder maxRequests(final int maxRequests) {
+			Preconditions.checkArgument(maxRequests > 0);
+			this.maxRequests = maxRequests;
+			return this;
+		}
+
+		/**
+		 * @param maxRequestsPerHost The maximum number of concurrent requests for each host.
+		 * @return this builder.
+		 */
+		public Builder maxRequestsPerHost(final int maxRequestsPerHost) {
+			Preconditions.checkArgument(maxRequestsPerHost > 0);
+			this.maxRequestsPerHost = maxRequestsPerHost;
+			return this;
+		}
+
+		/**
+		 * @return a new JsonReader that owns the configured client.
+		 */
+		public JsonReader build() {
+			final Dispatcher dispatcher = new Dispatcher();
+			dispatcher.setMaxRequests(this.maxRequests);
+			dispatcher.setMaxRequestsPerHost(this.maxRequestsPerHost);
+
+			final OkHttpClient.Builder builder = this.base == null ? new OkHttpClient.Builder() : this.base.newBuilder();
+			return new JsonReader(builder
+					.connectionPool(new ConnectionPool(this.maxIdleConnections, this.keepAliveMillis, TimeUnit.MILLISECONDS))
+					.dispatcher(dispatcher)
+					.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+					.connectTimeout(this.connectTimeoutMillis, TimeUnit.MILLISECONDS)
+					.readTimeout(this.readTimeoutMillis, TimeUnit.MILLISECONDS)
+					.writeTimeout(this.writeTimeoutMillis, TimeUnit.MILLISECONDS)
+					.build());
+		}
+
+		private static long toMillis(final long duration, final TimeUnit unit) {
+			Preconditions.checkNotNull(unit);
+			Preconditions.checkArgument(duration >= 0);
+			return unit.toMillis(duration);
+		}
+
+	}
+
 }
@@ -1,6 +1,9 @@
 package edu.sdsu.watcher.quake.net;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Creates the scaffolding for any future Readers.
@@ -16,4 +19,45 @@ public interface Reader {
 	 */
 	String get(String source) throws IOException;
 
+	/**
+	 * <p>Gets a remote resource only if it changed since the response the validators came
+	 * with. Readers that can't tell simply return the resource as {@link Reader#get(String)}
+	 * would, without validators.</p>
+	 * @param source     The remote resource to pull from.
+	 * @param validators The validators of the copy the caller holds, {@link Validators#NONE} if none.
+	 * @return The resource as a String, or no body if it has not been modified, with the
+	 * validators to send next time.
+	 * @throws IOException is there is an IO error.
+	 */
+	default Download<String> getIfModified(String source, Validators validators) throws IOException {
+		return new Download<>(get(source), Validators.NONE);
+	}
+
+	/**
+	 * <p>Opens a remote resource as a stream so it can be processed without holding the
+	 * whole resource in memory. The caller is responsible for closing the stream.</p>
+	 * @param source The remote resource to pull from.
+	 * @return The resource as a {@code UTF-8} encoded stream.
+	 * @throws IOException is there is an IO error.
+	 */
+	default InputStream open(String source) throws IOException {
+		return new ByteArrayInputStream(get(source).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Conditional version of {@link Reader#open(String)}.
+	 * @param source     The remote resource to pull from.
+	 * @param validators The validators of the copy the caller holds, {@link Validators#NONE} if none.
+	 * @return The resource as a stream, or no body if it has not been modified, with the
+	 * validators to send next time.
+	 * @throws IOException is there is an IO error.
+	 * @see Reader#getIfModified(String, Validators)
+	 */
+	default Download<InputStream> openIfModified(String source, Validators validators) throws IOException {
+		final Download<String> download = getIfModified(source, validators);
+		final InputStream body = download.isNotModified() ? null
+				: new ByteArrayInputStream(download.getBody().getBytes(StandardCharsets.UTF_8));
+		return new Download<>(body, download.getValidators());
+	}
+
 }
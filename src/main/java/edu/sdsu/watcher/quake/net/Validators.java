@@ -0,0 +1,69 @@
+package edu.sdsu.watcher.quake.net;
+
+import java.util.Objects;
+
+/**
+ * <p>The cache validators a server gave for one response: its {@code ETag} and its
+ * {@code Last-Modified} date. They belong to whoever keeps the body of that response, and
+ * are sent back with the next request for it so the server can answer
+ * {@code 304 Not Modified} if the body is still current.</p>
+ */
+public final class Validators {
+
+	/**
+	 * No validators; a request sent with them is unconditional.
+	 */
+	public static final Validators NONE = new Validators(null, null);
+
+	private final String etag, lastModified;
+
+	/**
+	 * @param etag         the {@code ETag} header, or {@code null}.
+	 * @param lastModified the {@code Last-Modified} header, or {@code null}.
+	 */
+	public Validators(final String etag, final String lastModified) {
+		this.etag = etag;
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * @return the {@code ETag} header, or {@code null}.
+	 */
+	public String getEtag() {
+		return this.etag;
+	}
+
+	/**
+	 * @return the {@code Last-Modified} header, or {@code null}.
+	 */
+	public String getLastModified() {
+		return this.lastModified;
+	}
+
+	/**
+	 * @return true if there is nothing to send.
+	 */
+	public boolean isEmpty() {
+		return this.etag == null && this.lastModified == null;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(o == null || getClass() != o.getClass()) return false;
+
+		Validators that = (Validators) o;
+		return Objects.equals(etag, that.etag) && Objects.equals(lastModified, that.lastModified);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(etag, lastModified);
+	}
+
+	@Override
+	public String toString() {
+		return "Validators[etag=" + etag + ", lastModified=" + lastModified + ']';
+	}
+
+}
@@ -0,0 +1,73 @@
+package edu.sdsu.watcher.quake.poll;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+/**
+ * The difference between two consecutive polls of a feed. Events are matched by
+ * {@link QuakeStruct.Features#getId()} and an event counts as revised when its
+ * {@link QuakeStruct.Features.Properties#getUpdated()} time changed.
+ */
+public final class FeedDelta {
+
+	private final Feed feed;
+	private final List<QuakeStruct.Features> inserted, updated, removed;
+
+	FeedDelta(final Feed feed, final List<QuakeStruct.Features> inserted,
+	          final List<QuakeStruct.Features> updated, final List<QuakeStruct.Features> removed) {
+		this.feed = Preconditions.checkNotNull(feed);
+		this.inserted = Collections.unmodifiableList(inserted);
+		this.updated = Collections.unmodifiableList(updated);
+		this.removed = Collections.unmodifiableList(removed);
+	}
+
+	/**
+	 * @return the feed that was polled.
+	 */
+	public Feed getFeed() {
+		return this.feed;
+	}
+
+	/**
+	 * @return the events that were not in the previous poll.
+	 */
+	public List<QuakeStruct.Features> getInserted() {
+		return this.inserted;
+	}
+
+	/**
+	 * @return the new version of every event that was revised since the previous poll.
+	 */
+	public List<QuakeStruct.Features> getUpdated() {
+		return this.updated;
+	}
+
+	/**
+	 * @return the last known version of every event that dropped out of the feed.
+	 */
+	public List<QuakeStruct.Features> getRemoved() {
+		return this.removed;
+	}
+
+	/**
+	 * @return true if nothing changed.
+	 */
+	public boolean isEmpty() {
+		return this.inserted.isEmpty() && this.updated.isEmpty() && this.removed.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "FeedDelta[" +
+				"feed=" + feed +
+				", inserted=" + inserted.size() +
+				", updated=" + updated.size() +
+				", removed=" + removed.size() +
+				']';
+	}
+
+}
@@ -0,0 +1,15 @@
+package edu.sdsu.watcher.quake.poll;
+
+/**
+ * Receives the changes a {@link FeedPoller} found in a feed.
+ */
+@FunctionalInterface
+public interface FeedListener {
+
+	/**
+	 * Called once per poll, and only when something changed.
+	 * @param delta the events that were inserted, revised, or dropped since the previous poll.
+	 */
+	void onChange(FeedDelta delta);
+
+}
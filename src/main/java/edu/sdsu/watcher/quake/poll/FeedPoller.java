@@ -0,0 +1,277 @@
+package edu.sdsu.watcher.quake.poll;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+import edu.sdsu.watcher.quake.net.Download;
+import edu.sdsu.watcher.quake.net.JsonReader;
+import edu.sdsu.watcher.quake.net.Reader;
+import edu.sdsu.watcher.quake.net.Validators;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+/**
+ * <p>Polls usgs.gov feeds on a fixed delay and hands subscribers only what changed. For each
+ * feed the poller keeps the last snapshot keyed by event id; every poll is compared against
+ * it and the inserted, revised, and dropped events are published as one {@link FeedDelta}.
+ * Polls are conditional, so a feed that was not regenerated costs a single round trip.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final FeedPoller poller = new FeedPoller(1, TimeUnit.MINUTES);
+ * poller.subscribe(new Feed("all", "hour"), delta -&gt; System.out.println(delta));
+ * ...
+ * poller.close();
+ * </pre>
+ */
+public class FeedPoller implements Closeable {
+
+	private final Reader reader;
+	private final long period;
+	private final TimeUnit unit;
+	private final ScheduledExecutorService scheduler;
+	private final Map<Feed, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+	/**
+	 * Polls through the shared {@link JsonReader}.
+	 * @param period the delay between the end of one poll and the start of the next.
+	 * @param unit   the unit of the period.
+	 */
+	public FeedPoller(final long period, final TimeUnit unit) {
+		this(JsonReader.getInstance(), period, unit);
+	}
+
+	/**
+	 * @param reader the reader used to download the feeds.
+	 * @param period the delay between the end of one poll and the start of the next.
+	 * @param unit   the unit of the period.
+	 */
+	public FeedPoller(final Reader reader, final long period, final TimeUnit unit) {
+		Preconditions.checkNotNull(reader);
+		Preconditions.checkNotNull(unit);
+		Preconditions.checkArgument(period > 0);
+
+		this.reader = reader;
+		this.period = period;
+		this.unit = unit;
+		this.scheduler = Executors.newScheduledThreadPool(1,
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("quake-poller-%d").build());
+	}
+
+	/**
+	 * Starts polling the feed, if it isn't polled already, and registers the listener. The
+	 * first poll reports every event in the feed as inserted. A listener that joins a feed
+	 * already polled is first sent the events of the last poll as inserted, on the polling
+	 * thread and before any later delta, so every listener starts from the whole feed.
+	 * @param feed     the feed to watch.
+	 * @param listener receives the changes of the feed.
+	 */
+	public void subscribe(final Feed feed, final FeedListener listener) {
+		Preconditions.checkNotNull(feed);
+		Preconditions.checkNotNull(listener);
+
+		// one compute per change, so a listener can't be added to a subscription being removed
+		this.subscriptions.compute(feed, (key, current) -> {
+			if(current != null) {
+				// sent what the others already have before it joins them
+				current.joining.add(listener);
+				this.scheduler.execute(() -> admit(current));
+				return current;
+			}
+
+			final Subscription subscription = new Subscription(key);
+			subscription.listeners.add(listener);
+
+			// scheduled only now so the first poll can't run before the listener is registered
+			subscription.task = this.scheduler.scheduleWithFixedDelay(() -> this.pollQuietly(subscription),
+					0, this.period, this.unit);
+			return subscription;
+		});
+	}
+
+	/**
+	 * Removes the listener and stops polling the feed once nobody listens to it anymore.
+	 * @param feed     the feed being watched.
+	 * @param listener the listener to remove.
+	 */
+	public void unsubscribe(final Feed feed, final FeedListener listener) {
+		this.subscriptions.computeIfPresent(feed, (key, subscription) -> {
+			subscription.listeners.remove(listener);
+			subscription.joining.remove(listener);
+			if(!subscription.listeners.isEmpty() || !subscription.joining.isEmpty()) {
+				return subscription;
+			}
+
+			if(subscription.task != null) {
+				subscription.task.cancel(false);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Polls a subscribed feed right away instead of waiting for the next scheduled poll.
+	 * @param feed the feed to poll.
+	 * @return the changes since the previous poll, which were also sent to the listeners.
+	 * @throws IOException if the feed can't be read.
+	 */
+	public FeedDelta poll(final Feed feed) throws IOException {
+		final Subscription subscription = this.subscriptions.get(feed);
+		Preconditions.checkArgument(subscription != null, "%s is not subscribed", feed);
+		return this.poll(subscription);
+	}
+
+	/**
+	 * Stops polling every feed.
+	 */
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+		this.subscriptions.clear();
+	}
+
+	private void pollQuietly(final Subscription subscription) {
+		try {
+			this.poll(subscription);
+		} catch(IOException | RuntimeException e) {
+			// keep the schedule alive, the next poll may well succeed
+			System.err.println("Unable to poll " + subscription.feed.getUrl());
+			e.printStackTrace();
+		}
+	}
+
+	private FeedDelta poll(final Subscription subscription) throws IOException {
+		// one poll per feed at a time, so listeners see the deltas in order
+		synchronized(subscription) {
+			admit(subscription);
+
+			final String url = subscription.feed.getUrl();
+			final Map<String, QuakeStruct.Features> previous = subscription.snapshot;
+			final FeedDelta delta;
+
+			final Download<InputStream> download = this.reader.openIfModified(url, subscription.validators);
+			if(download.isNotModified()) {
+				return empty(subscription.feed);
+			}
+
+			try(InputStream body = download.getBody()) {
+				final Map<String, QuakeStruct.Features> current = new LinkedHashMap<>();
+				DecodeStream.features(body, feature -> current.put(feature.getId(), feature));
+
+				delta = diff(subscription.feed, previous == null ? Collections.emptyMap() : previous, current);
+				subscription.snapshot = current;
+				subscription.validators = download.getValidators();
+			}
+
+			if(!delta.isEmpty()) {
+				for(final FeedListener listener : subscription.listeners) {
+					send(subscription, listener, delta);
+				}
+			}
+
+			return delta;
+		}
+	}
+
+	/**
+	 * Sends the listeners that joined since the last poll the events of that poll, as
+	 * inserted, and adds them to the listeners of the next poll.
+	 * @param subscription the feed the listeners joined.
+	 */
+	private static void admit(final Subscription subscription) {
+		synchronized(subscription) {
+			FeedListener listener;
+			while((listener = subscription.joining.poll()) != null) {
+				final Map<String, QuakeStruct.Features> snapshot = subscription.snapshot;
+				if(snapshot != null && !snapshot.isEmpty()) {
+					send(subscription, listener, new FeedDelta(subscription.feed, new ArrayList<>(snapshot.values()),
+							Collections.emptyList(), Collections.emptyList()));
+				}
+				subscription.listeners.add(listener);
+			}
+		}
+	}
+
+	private static void send(final Subscription subscription, final FeedListener listener, final FeedDelta delta) {
+		try {
+			listener.onChange(delta);
+		} catch(RuntimeException e) {
+			System.err.println("A listener of " + subscription.feed + " failed.");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @param feed     the feed that was polled.
+	 * @param previous the last snapshot, keyed by event id.
+	 * @param current  the new snapshot, keyed by event id.
+	 * @return the changes between the two snapshots.
+	 */
+	static FeedDelta diff(final Feed feed, final Map<String, QuakeStruct.Features> previous,
+	                      final Map<String, QuakeStruct.Features> current) {
+		final List<QuakeStruct.Features> inserted = new ArrayList<>();
+		final List<QuakeStruct.Features> updated = new ArrayList<>();
+		final List<QuakeStruct.Features> removed = new ArrayList<>();
+
+		current.forEach((id, feature) -> {
+			final QuakeStruct.Features old = previous.get(id);
+			if(old == null) {
+				inserted.add(feature);
+			} else if(updatedTime(old) != updatedTime(feature)) {
+				updated.add(feature);
+			}
+		});
+
+		previous.forEach((id, feature) -> {
+			if(!current.containsKey(id)) {
+				removed.add(feature);
+			}
+		});
+
+		return new FeedDelta(feed, inserted, updated, removed);
+	}
+
+	private static long updatedTime(final QuakeStruct.Features feature) {
+		return feature.getProperties() == null ? 0 : feature.getProperties().getUpdated();
+	}
+
+	private static FeedDelta empty(final Feed feed) {
+		return new FeedDelta(feed, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+	}
+
+	/**
+	 * The state kept for every watched feed.
+	 */
+	private static final class Subscription {
+		private final Feed feed;
+		private final List<FeedListener> listeners = new CopyOnWriteArrayList<>();
+		// registered, but not yet sent the last poll
+		private final Queue<FeedListener> joining = new ConcurrentLinkedQueue<>();
+		private Map<String, QuakeStruct.Features> snapshot;
+		// the validators of the snapshot, not of whatever else the reader fetched
+		private Validators validators = Validators.NONE;
+		// only touched inside a compute on the subscriptions map
+		private ScheduledFuture<?> task;
+
+		private Subscription(final Feed feed) {
+			this.feed = feed;
+		}
+	}
+
+}
@@ -0,0 +1,5 @@
+/**
+ * <p>Long-running pollers that watch usgs.gov feeds and tell subscribers only about the
+ * events that changed between two polls.</p>
+ */
+package edu.sdsu.watcher.quake.poll;
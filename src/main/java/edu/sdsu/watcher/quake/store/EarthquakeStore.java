@@ -0,0 +1,237 @@
+package edu.sdsu.watcher.quake.store;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+
+/**
+ * <p>Stores earthquakes column by column: one primitive array per numeric field and one
+ * array of references per string. An {@link Earthquake} and its {@link Coordinate} cost two
+ * object headers, two references, and padding on top of their data; here an event costs only
+ * its primitives and the two string references.</p>
+ * <p>The strings are kept as given rather than dictionary-encoded: usgs.gov titles and ids
+ * are nearly all distinct, and a dictionary entry per distinct string costs more than the
+ * reference it replaces.</p>
+ * <p>Events are read through a {@link View}, a flyweight cursor that reads the arrays in
+ * place; {@link View#toEarthquake()} materializes an event when an object is needed. The
+ * store is append-only and not thread-safe: fill it, then share it.</p>
+ * <p>Sample usage:</p>
+ * <pre>
+ * final EarthquakeStore store = new EarthquakeStore();
+ * store.addAll(new SimpleEarthquake().getEarthquakes("all", "month"));
+ * store.forEach(quake -&gt; {
+ *     if(quake.getMagnitude() &gt;= 4.5) {
+ *         System.out.println(quake.getDescription());
+ *     }
+ * });
+ * </pre>
+ */
+public class EarthquakeStore {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private double[] longitudes, latitudes, depths, magnitudes;
+	private long[] times;
+	private String[] descriptions, ids;
+	private int size;
+
+	public EarthquakeStore() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the number of events to make room for up front.
+	 */
+	public EarthquakeStore(final int capacity) {
+		Preconditions.checkArgument(capacity >= 0, "capacity must not be negative");
+
+		this.longitudes = new double[capacity];
+		this.latitudes = new double[capacity];
+		this.depths = new double[capacity];
+		this.magnitudes = new double[capacity];
+		this.times = new long[capacity];
+		this.descriptions = new String[capacity];
+		this.ids = new String[capacity];
+	}
+
+	/**
+	 * @param quake the quake to append.
+	 * @return the position of the event in the store.
+	 */
+	public int add(final Earthquake quake) {
+		Preconditions.checkNotNull(quake);
+		final Coordinate coordinate = quake.getCoordinate();
+		return this.add(coordinate.getLongitude(), coordinate.getLatitude(), coordinate.getDepth(),
+				quake.getMagnitude(), quake.getDescription(), quake.getId(), quake.getTime());
+	}
+
+	/**
+	 * Appends an event without building an {@link Earthquake} for it first.
+	 * @param longitude   the longitude of the epicenter.
+	 * @param latitude    the latitude of the epicenter.
+	 * @param depth       the depth of the hypocenter.
+	 * @param magnitude   the magnitude of the event.
+	 * @param description the human-readable description.
+	 * @param id          the id of the event.
+	 * @param time        the epoch time of the event.
+	 * @return the position of the event in the store.
+	 */
+	public int add(final double longitude, final double latitude, final double depth, final double magnitude,
+	               final String description, final String id, final long time) {
+		this.ensureCapacity(this.size + 1);
+
+		final int index = this.size++;
+		this.longitudes[index] = longitude;
+		this.latitudes[index] = latitude;
+		this.depths[index] = depth;
+		this.magnitudes[index] = magnitude;
+		this.times[index] = time;
+		this.descriptions[index] = description;
+		this.ids[index] = id;
+
+		return index;
+	}
+
+	/**
+	 * @param quakes the quakes to append, in order.
+	 */
+	public void addAll(final Collection<Earthquake> quakes) {
+		Preconditions.checkNotNull(quakes);
+		this.ensureCapacity(this.size + quakes.size());
+		quakes.forEach(this::add);
+	}
+
+	/**
+	 * @return the number of events in the store.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return a new cursor, positioned on the first event if there is one.
+	 */
+	public View view() {
+		return new View();
+	}
+
+	/**
+	 * @param index the position of the event.
+	 * @return a new cursor positioned on the event.
+	 */
+	public View view(final int index) {
+		return new View().moveTo(index);
+	}
+
+	/**
+	 * Visits every event in order through a single reused {@link View}. Don't keep the view
+	 * past the call to the action; call {@link View#toEarthquake()} to keep an event.
+	 * @param action receives the view, positioned on each event in turn.
+	 */
+	public void forEach(final Consumer<View> action) {
+		Preconditions.checkNotNull(action);
+
+		final View view = new View();
+		for(int i = 0; i < this.size; i++) {
+			action.accept(view.moveTo(i));
+		}
+	}
+
+	/**
+	 * Trims the columns to the number of events once the store is filled.
+	 */
+	public void trimToSize() {
+		this.resize(this.size);
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if(capacity > this.times.length) {
+			this.resize(Math.max(capacity, Math.max(INITIAL_CAPACITY, this.times.length + (this.times.length >> 1))));
+		}
+	}
+
+	private void resize(final int capacity) {
+		this.longitudes = Arrays.copyOf(this.longitudes, capacity);
+		this.latitudes = Arrays.copyOf(this.latitudes, capacity);
+		this.depths = Arrays.copyOf(this.depths, capacity);
+		this.magnitudes = Arrays.copyOf(this.magnitudes, capacity);
+		this.times = Arrays.copyOf(this.times, capacity);
+		this.descriptions = Arrays.copyOf(this.descriptions, capacity);
+		this.ids = Arrays.copyOf(this.ids, capacity);
+	}
+
+	/**
+	 * A movable window onto one event of the store. Getters read the columns directly, so a
+	 * view costs nothing per event; it mirrors the getters of {@link Earthquake}.
+	 */
+	public final class View {
+
+		private int index;
+
+		private View() {}
+
+		/**
+		 * @param index the position of the event to look at.
+		 * @return this view.
+		 */
+		public View moveTo(final int index) {
+			Preconditions.checkElementIndex(index, size);
+			this.index = index;
+			return this;
+		}
+
+		/**
+		 * @return the position of the event the view is on.
+		 */
+		public int getIndex() {
+			return this.index;
+		}
+
+		public double getLongitude() {
+			return longitudes[this.index];
+		}
+
+		public double getLatitude() {
+			return latitudes[this.index];
+		}
+
+		public double getDepth() {
+			return depths[this.index];
+		}
+
+		public double getMagnitude() {
+			return magnitudes[this.index];
+		}
+
+		public long getTime() {
+			return times[this.index];
+		}
+
+		public String getId() {
+			return ids[this.index];
+		}
+
+		public String getDescription() {
+			return descriptions[this.index];
+		}
+
+		/**
+		 * @return a new {@link Earthquake} holding the event the view is on.
+		 */
+		public Earthquake toEarthquake() {
+			return new Earthquake(new Coordinate(this.getLongitude(), this.getLatitude(), this.getDepth()),
+					this.getMagnitude(), this.getDescription(), this.getId(), this.getTime());
+		}
+
+		@Override
+		public String toString() {
+			return "View[" + this.index + "=" + this.getId() + ']';
+		}
+
+	}
+
+}
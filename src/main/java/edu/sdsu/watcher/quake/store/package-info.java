@@ -0,0 +1,5 @@
+/**
+ * <p>Compact in-memory storage for large numbers of
+ * {@link edu.sdsu.watcher.quake.Earthquake}s, e.g. months of the {@code all} feeds.</p>
+ */
+package edu.sdsu.watcher.quake.store;
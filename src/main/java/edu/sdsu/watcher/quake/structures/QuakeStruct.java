@@ -3,6 +3,7 @@ package edu.sdsu.watcher.quake.structures;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.google.common.primitives.Doubles;
 import edu.sdsu.watcher.quake.SimpleEarthquake;
 
 /**
@@ -13,15 +14,17 @@ import edu.sdsu.watcher.quake.SimpleEarthquake;
  * <p>A design choice of this class is to give users <strong>all</strong> information possible
  * that we're given from usgs. Additional processing is done in {@link SimpleEarthquake}
  * so we strip the "necessary" information for one particular use case.</p>
+ * <p>The fields are filled in by {@link QuakeStructAdapterFactory} rather than through
+ * reflection, which is why they are package-private.</p>
  */
 public class QuakeStruct {
 
 	private static final int COORD_LEN = 3;
 
-	private String type;
-	private List<Features> features = new ArrayList<>();
-	private List<Double> bbox = new ArrayList<>();
-	private Metadata metadata;
+	String type;
+	List<Features> features = new ArrayList<>();
+	List<Double> bbox = new ArrayList<>();
+	Metadata metadata;
 
 	private static class InstanceHolder {
 		private static final QuakeStruct instance = new QuakeStruct();
@@ -35,10 +38,10 @@ public class QuakeStruct {
 	 * Maps the metadata object from the returning Json string.
 	 */
 	public static class Metadata {
-		private long generated;
-		private String url, title, api;
-		private short status;
-		private int count;
+		long generated;
+		String url, title, api;
+		short status;
+		int count;
 
 		public final long getGenerated() {
 			return this.generated;
@@ -70,9 +73,9 @@ public class QuakeStruct {
 	 * Maps the features object from the returning Json string.
 	 */
 	public static class Features {
-		private String type, id;
-		private Properties properties;
-		private Geometry geometry;
+		String type, id;
+		Properties properties;
+		Geometry geometry;
 
 		public final String getType() {
 			return this.type;
@@ -91,12 +94,12 @@ public class QuakeStruct {
 		}
 
 		public static class Properties {
-			private double mag, cdi, mmi, dmin, rms, gap;
-			private long time, updated;
-			private String place, url, detail, alert, status,
+			double mag, cdi, mmi, dmin, rms, gap;
+			long time, updated;
+			String place, url, detail, alert, status,
 			net, code, ids, sources, types,
 			type, title;
-			private int tz, felt, tsunami, sig, nst;
+			int tz, felt, tsunami, sig, nst;
 
 			public final double getMag() {
 				return this.mag;
@@ -204,15 +207,30 @@ public class QuakeStruct {
 		 * Maps the geometry object from the returning Json string.
 		 */
 		public static class Geometry {
-			private String type;
-			private List<Double> coordinates = new ArrayList<>(COORD_LEN);
+			String type;
+			double[] coordinates = new double[COORD_LEN];
 
 			public final String getType() {
 				return this.type;
 			}
 
+			/**
+			 * @return a view of the primitive coordinates in {@code [longitude, latitude, depth]} order.
+			 */
 			public final List<Double> getCoordinates() {
-				return this.coordinates;
+				return Doubles.asList(this.coordinates);
+			}
+
+			public final double getLongitude() {
+				return this.coordinates[0];
+			}
+
+			public final double getLatitude() {
+				return this.coordinates[1];
+			}
+
+			public final double getDepth() {
+				return this.coordinates[2];
 			}
 		}
 	}
@@ -0,0 +1,461 @@
+package edu.sdsu.watcher.quake.structures;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <p>Hand-written {@link TypeAdapter}s for {@link QuakeStruct} and its nested classes. Binding
+ * the feed through reflection costs a field lookup and a boxed value for every property of
+ * every feature; these adapters decode straight into the fields instead, keep the coordinates
+ * primitive, and skip any key they don't know without building a tree for it. Fields that
+ * only take a few dozen values across a feed ({@code net}, {@code status}, {@code type},
+ * {@code alert}, {@code sources}, {@code types}) go through a shared {@link StringDictionary},
+ * so every feature points at the same instance of each value.</p>
+ * <p>Register the factory on a {@link com.google.gson.GsonBuilder}:</p>
+ * <pre>
+ * final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new QuakeStructAdapterFactory()).create();
+ * </pre>
+ */
+public final class QuakeStructAdapterFactory implements TypeAdapterFactory {
+
+	/**
+	 * Shared by every feed; a few hundred values covers usgs.gov many times over.
+	 */
+	private static final StringDictionary DICTIONARY = new StringDictionary(1024, 128);
+
+	private static final TypeAdapter<QuakeStruct.Metadata> METADATA = new MetadataAdapter().nullSafe();
+	private static final TypeAdapter<QuakeStruct.Features.Properties> PROPERTIES = new PropertiesAdapter().nullSafe();
+	private static final TypeAdapter<QuakeStruct.Features.Geometry> GEOMETRY = new GeometryAdapter().nullSafe();
+	private static final TypeAdapter<QuakeStruct.Features> FEATURES = new FeaturesAdapter().nullSafe();
+	private static final TypeAdapter<QuakeStruct> STRUCT = new StructAdapter().nullSafe();
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+		final Class<? super T> raw = type.getRawType();
+
+		if(raw == QuakeStruct.class) {
+			return (TypeAdapter<T>) STRUCT;
+		} else if(raw == QuakeStruct.Features.class) {
+			return (TypeAdapter<T>) FEATURES;
+		} else if(raw == QuakeStruct.Features.Properties.class) {
+			return (TypeAdapter<T>) PROPERTIES;
+		} else if(raw == QuakeStruct.Features.Geometry.class) {
+			return (TypeAdapter<T>) GEOMETRY;
+		} else if(raw == QuakeStruct.Metadata.class) {
+			return (TypeAdapter<T>) METADATA;
+		}
+
+		return null;
+	}
+
+	private static final class StructAdapter extends TypeAdapter<QuakeStruct> {
+
+		@Override
+		public void write(final JsonWriter out, final QuakeStruct value) throws IOException {
+			out.beginObject();
+			out.name("type").value(value.type);
+			out.name("metadata");
+			METADATA.write(out, value.metadata);
+			out.name("features").beginArray();
+			for(final QuakeStruct.Features feature : value.features) {
+				FEATURES.write(out, feature);
+			}
+			out.endArray();
+			out.name("bbox").beginArray();
+			for(final Double coordinate : value.bbox) {
+				out.value(coordinate);
+			}
+			out.endArray();
+			out.endObject();
+		}
+
+		@Override
+		public QuakeStruct read(final JsonReader in) throws IOException {
+			final QuakeStruct struct = new QuakeStruct();
+
+			in.beginObject();
+			while(in.hasNext()) {
+				switch(in.nextName()) {
+					case "type":
+						struct.type = nextString(in);
+						break;
+					case "metadata":
+						struct.metadata = METADATA.read(in);
+						break;
+					case "features":
+						struct.features = readFeatures(in);
+						break;
+					case "bbox":
+						struct.bbox = readBbox(in);
+						break;
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return struct;
+		}
+
+		private static List<QuakeStruct.Features> readFeatures(final JsonReader in) throws IOException {
+			final List<QuakeStruct.Features> features = new ArrayList<>();
+			if(in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return features;
+			}
+
+			in.beginArray();
+			while(in.hasNext()) {
+				features.add(FEATURES.read(in));
+			}
+			in.endArray();
+
+			return features;
+		}
+
+		private static List<Double> readBbox(final JsonReader in) throws IOException {
+			final List<Double> bbox = new ArrayList<>();
+			if(in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return bbox;
+			}
+
+			in.beginArray();
+			while(in.hasNext()) {
+				bbox.add(in.nextDouble());
+			}
+			in.endArray();
+
+			return bbox;
+		}
+
+	}
+
+	private static final class MetadataAdapter extends TypeAdapter<QuakeStruct.Metadata> {
+
+		@Override
+		public void write(final JsonWriter out, final QuakeStruct.Metadata value) throws IOException {
+			out.beginObject();
+			out.name("generated").value(value.generated);
+			out.name("url").value(value.url);
+			out.name("title").value(value.title);
+			out.name("status").value(value.status);
+			out.name("api").value(value.api);
+			out.name("count").value(value.count);
+			out.endObject();
+		}
+
+		@Override
+		public QuakeStruct.Metadata read(final JsonReader in) throws IOException {
+			final QuakeStruct.Metadata metadata = new QuakeStruct.Metadata();
+
+			in.beginObject();
+			while(in.hasNext()) {
+				switch(in.nextName()) {
+					case "generated":
+						metadata.generated = nextLong(in);
+						break;
+					case "url":
+						metadata.url = nextString(in);
+						break;
+					case "title":
+						metadata.title = nextString(in);
+						break;
+					case "status":
+						metadata.status = (short) nextInt(in);
+						break;
+					case "api":
+						metadata.api = nextString(in);
+						break;
+					case "count":
+						metadata.count = nextInt(in);
+						break;
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return metadata;
+		}
+
+	}
+
+	private static final class FeaturesAdapter extends TypeAdapter<QuakeStruct.Features> {
+
+		@Override
+		public void write(final JsonWriter out, final QuakeStruct.Features value) throws IOException {
+			out.beginObject();
+			out.name("type").value(value.type);
+			out.name("properties");
+			PROPERTIES.write(out, value.properties);
+			out.name("geometry");
+			GEOMETRY.write(out, value.geometry);
+			out.name("id").value(value.id);
+			out.endObject();
+		}
+
+		@Override
+		public QuakeStruct.Features read(final JsonReader in) throws IOException {
+			final QuakeStruct.Features features = new QuakeStruct.Features();
+
+			in.beginObject();
+			while(in.hasNext()) {
+				switch(in.nextName()) {
+					case "type":
+						features.type = DICTIONARY.intern(nextString(in));
+						break;
+					case "properties":
+						features.properties = PROPERTIES.read(in);
+						break;
+					case "geometry":
+						features.geometry = GEOMETRY.read(in);
+						break;
+					case "id":
+						features.id = nextString(in);
+						break;
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return features;
+		}
+
+	}
+
+	private static final class PropertiesAdapter extends TypeAdapter<QuakeStruct.Features.Properties> {
+
+		@Override
+		public void write(final JsonWriter out, final QuakeStruct.Features.Properties value) throws IOException {
+			out.beginObject();
+			out.name("mag").value(value.mag);
+			out.name("place").value(value.place);
+			out.name("time").value(value.time);
+			out.name("updated").value(value.updated);
+			out.name("tz").value(value.tz);
+			out.name("url").value(value.url);
+			out.name("detail").value(value.detail);
+			out.name("felt").value(value.felt);
+			out.name("cdi").value(value.cdi);
+			out.name("mmi").value(value.mmi);
+			out.name("alert").value(value.alert);
+			out.name("status").value(value.status);
+			out.name("tsunami").value(value.tsunami);
+			out.name("sig").value(value.sig);
+			out.name("net").value(value.net);
+			out.name("code").value(value.code);
+			out.name("ids").value(value.ids);
+			out.name("sources").value(value.sources);
+			out.name("types").value(value.types);
+			out.name("nst").value(value.nst);
+			out.name("dmin").value(value.dmin);
+			out.name("rms").value(value.rms);
+			out.name("gap").value(value.gap);
+			out.name("type").value(value.type);
+			out.name("title").value(value.title);
+			out.endObject();
+		}
+
+		@Override
+		public QuakeStruct.Features.Properties read(final JsonReader in) throws IOException {
+			final QuakeStruct.Features.Properties properties = new QuakeStruct.Features.Properties();
+
+			in.beginObject();
+			while(in.hasNext()) {
+				switch(in.nextName()) {
+					case "mag":
+						properties.mag = nextDouble(in);
+						break;
+					case "place":
+						properties.place = nextString(in);
+						break;
+					case "time":
+						properties.time = nextLong(in);
+						break;
+					case "updated":
+						properties.updated = nextLong(in);
+						break;
+					case "tz":
+						properties.tz = nextInt(in);
+						break;
+					case "url":
+						properties.url = nextString(in);
+						break;
+					case "detail":
+						properties.detail = nextString(in);
+						break;
+					case "felt":
+						properties.felt = nextInt(in);
+						break;
+					case "cdi":
+						properties.cdi = nextDouble(in);
+						break;
+					case "mmi":
+						properties.mmi = nextDouble(in);
+						break;
+					case "alert":
+						properties.alert = DICTIONARY.intern(nextString(in));
+						break;
+					case "status":
+						properties.status = DICTIONARY.intern(nextString(in));
+						break;
+					case "tsunami":
+						properties.tsunami = nextInt(in);
+						break;
+					case "sig":
+						properties.sig = nextInt(in);
+						break;
+					case "net":
+						properties.net = DICTIONARY.intern(nextString(in));
+						break;
+					case "code":
+						properties.code = nextString(in);
+						break;
+					case "ids":
+						properties.ids = nextString(in);
+						break;
+					case "sources":
+						properties.sources = DICTIONARY.intern(nextString(in));
+						break;
+					case "types":
+						properties.types = DICTIONARY.intern(nextString(in));
+						break;
+					case "nst":
+						properties.nst = nextInt(in);
+						break;
+					case "dmin":
+						properties.dmin = nextDouble(in);
+						break;
+					case "rms":
+						properties.rms = nextDouble(in);
+						break;
+					case "gap":
+						properties.gap = nextDouble(in);
+						break;
+					case "type":
+						properties.type = DICTIONARY.intern(nextString(in));
+						break;
+					case "title":
+						properties.title = nextString(in);
+						break;
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return properties;
+		}
+
+	}
+
+	private static final class GeometryAdapter extends TypeAdapter<QuakeStruct.Features.Geometry> {
+
+		@Override
+		public void write(final JsonWriter out, final QuakeStruct.Features.Geometry value) throws IOException {
+			out.beginObject();
+			out.name("type").value(value.type);
+			out.name("coordinates").beginArray();
+			for(final double coordinate : value.coordinates) {
+				out.value(coordinate);
+			}
+			out.endArray();
+			out.endObject();
+		}
+
+		@Override
+		public QuakeStruct.Features.Geometry read(final JsonReader in) throws IOException {
+			final QuakeStruct.Features.Geometry geometry = new QuakeStruct.Features.Geometry();
+
+			in.beginObject();
+			while(in.hasNext()) {
+				switch(in.nextName()) {
+					case "type":
+						geometry.type = DICTIONARY.intern(nextString(in));
+						break;
+					case "coordinates":
+						readCoordinates(in, geometry.coordinates);
+						break;
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+
+			return geometry;
+		}
+
+		private static void readCoordinates(final JsonReader in, final double[] coordinates) throws IOException {
+			if(in.peek() == JsonToken.NULL) {
+				in.nextNull();
+				return;
+			}
+
+			int i = 0;
+			in.beginArray();
+			while(in.hasNext()) {
+				if(i < coordinates.length) {
+					coordinates[i++] = in.nextDouble();
+				} else {
+					in.skipValue();
+				}
+			}
+			in.endArray();
+		}
+
+	}
+
+	/*
+	 * usgs.gov sends null for values it doesn't have (felt, cdi, alert, ...). Like the
+	 * reflective binding, a null leaves the field at its default value.
+	 */
+
+	private static String nextString(final JsonReader in) throws IOException {
+		if(in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return null;
+		}
+
+		return in.nextString();
+	}
+
+	private static double nextDouble(final JsonReader in) throws IOException {
+		if(in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return 0;
+		}
+
+		return in.nextDouble();
+	}
+
+	private static long nextLong(final JsonReader in) throws IOException {
+		if(in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return 0;
+		}
+
+		return in.nextLong();
+	}
+
+	private static int nextInt(final JsonReader in) throws IOException {
+		if(in.peek() == JsonToken.NULL) {
+			in.nextNull();
+			return 0;
+		}
+
+		return in.nextInt();
+	}
+
+}
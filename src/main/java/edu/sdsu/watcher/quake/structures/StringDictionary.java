@@ -0,0 +1,65 @@
+package edu.sdsu.watcher.quake.structures;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>Shares one instance per distinct value of a low-cardinality field (network codes,
+ * statuses, event types, ...). Every decoded feature would otherwise retain its own copy of
+ * strings like {@code "automatic"} or {@code "earthquake"}; passing them through the
+ * dictionary drops the duplicates as soon as the feature is read and lets equal values be
+ * compared by reference.</p>
+ * <p>Unlike {@link String#intern()} the dictionary is bounded: values longer than the length
+ * limit, and new values once the size limit is reached, are returned as they are. A feed
+ * with unexpectedly many distinct values therefore costs no more than it did without the
+ * dictionary. Instances are safe to share between threads.</p>
+ */
+public final class StringDictionary {
+
+	private final int maxSize, maxLength;
+	private final ConcurrentMap<String, String> values = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxSize   the largest number of distinct values kept.
+	 * @param maxLength the longest value kept, in chars.
+	 */
+	public StringDictionary(final int maxSize, final int maxLength) {
+		Preconditions.checkArgument(maxSize > 0, "maxSize must be positive");
+		Preconditions.checkArgument(maxLength > 0, "maxLength must be positive");
+		this.maxSize = maxSize;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * @param value the value to share, may be {@code null}.
+	 * @return the shared instance equal to the value, or the value itself if it isn't kept.
+	 */
+	public String intern(final String value) {
+		if(value == null || value.length() > this.maxLength) {
+			return value;
+		}
+
+		final String shared = this.values.get(value);
+		if(shared != null) {
+			return shared;
+		}
+
+		// the size check races with other writers; going slightly over the limit is harmless
+		if(this.values.size() >= this.maxSize) {
+			return value;
+		}
+
+		final String previous = this.values.putIfAbsent(value, value);
+		return previous == null ? value : previous;
+	}
+
+	/**
+	 * @return the number of distinct values kept.
+	 */
+	public int size() {
+		return this.values.size();
+	}
+
+}
@@ -0,0 +1,56 @@
+package edu.sdsu.watcher.quake;
+
+import org.junit.Test;
+
+public class FeedTest {
+
+	@Test
+	public void testName() {
+		assert new Feed("significant", "hour").getName().equals("significant_hour");
+	}
+
+	@Test
+	public void testUrl() {
+		assert new Feed("2.5", "week").getUrl().equals("https://earthquake.usgs.gov/earthquakes/feed/v1.0/summary/2.5_week.geojson");
+	}
+
+	@Test
+	public void testCaseInsensitive() {
+		final Feed feed = new Feed("ALL", "Week");
+		assert feed.getThreshold().equals("all");
+		assert feed.getTime().equals("week");
+	}
+
+	@Test
+	public void testEquals() {
+		assert new Feed("4.5", "day").equals(new Feed("4.5", "DAY"));
+		assert !new Feed("4.5", "day").equals(new Feed("2.5", "day"));
+		assert !new Feed("4.5", "day").equals(new Object());
+	}
+
+	@Test
+	public void testHashCode() {
+		assert new Feed("4.5", "day").hashCode() == new Feed("4.5", "day").hashCode();
+	}
+
+	@Test
+	public void testToString() {
+		assert new Feed("all", "month").toString().equals("Feed[all_month]");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidThreshold() {
+		new Feed("minor", "hour");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidTime() {
+		new Feed("all", "year");
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullTime() {
+		new Feed("all", null);
+	}
+
+}
@@ -0,0 +1,91 @@
+package edu.sdsu.watcher.quake;
+
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+public class QuakeFilterTest {
+
+	@Test
+	public void testNoneAcceptsEverything() {
+		assert QuakeFilter.NONE.acceptsProperties(-1, 0, null, 0);
+		assert QuakeFilter.NONE.acceptsLocation(180, -90, 700);
+		assert QuakeFilter.NONE.acceptsEarthquake(new Earthquake(new Coordinate(0, 0, 0), 0, "", "", 0));
+		assert !QuakeFilter.NONE.filtersAlert();
+	}
+
+	@Test
+	public void testMagnitudeAndTime() {
+		final QuakeFilter filter = new QuakeFilter.Builder().magnitude(2.5, 5).time(100, 200).build();
+
+		assert filter.acceptsProperties(2.5, 100, null, 0);
+		assert filter.acceptsProperties(5, 199, null, 0);
+		assert !filter.acceptsProperties(2.4, 150, null, 0);
+		assert !filter.acceptsProperties(3, 200, null, 0);
+	}
+
+	@Test
+	public void testAlertAndTsunami() {
+		final QuakeFilter filter = new QuakeFilter.Builder().alerts("Orange", "red").tsunami(true).build();
+
+		assert filter.filtersAlert();
+		assert filter.acceptsProperties(6, 0, "orange", 1);
+		assert !filter.acceptsProperties(6, 0, "green", 1);
+		assert !filter.acceptsProperties(6, 0, null, 1);
+		assert !filter.acceptsProperties(6, 0, "red", 0);
+	}
+
+	@Test
+	public void testBoxAndDepth() {
+		final QuakeFilter filter = new QuakeFilter.Builder().box(-125, 32, -114, 42).depth(0, 20).build();
+
+		assert filter.acceptsLocation(-117, 33, 10);
+		assert !filter.acceptsLocation(-117, 33, 30);
+		assert !filter.acceptsLocation(-110, 33, 10);
+		assert !filter.acceptsLocation(-117, 45, 10);
+	}
+
+	@Test
+	public void testBoxAcrossAntimeridian() {
+		final QuakeFilter filter = new QuakeFilter.Builder().box(170, -20, -170, 20).build();
+
+		assert filter.acceptsLocation(175, 0, 0);
+		assert filter.acceptsLocation(-175, 0, 0);
+		assert !filter.acceptsLocation(0, 0, 0);
+	}
+
+	@Test
+	public void testPredicates() {
+		final QuakeFilter filter = new QuakeFilter.Builder()
+				.matching(quake -> quake.getDescription().contains("CA"))
+				.matching(quake -> quake.getId().startsWith("ci"))
+				.build();
+
+		assert filter.acceptsEarthquake(new Earthquake(new Coordinate(0, 0, 0), 1, "5km SSE of Hemet, CA", "ci1", 0));
+		assert !filter.acceptsEarthquake(new Earthquake(new Coordinate(0, 0, 0), 1, "5km SSE of Hemet, CA", "nc1", 0));
+		assert !filter.acceptsEarthquake(new Earthquake(new Coordinate(0, 0, 0), 1, "Alaska", "ci1", 0));
+	}
+
+	@Test
+	public void testEquality() {
+		final Predicate<Earthquake> predicate = quake -> true;
+		final QuakeFilter a = new QuakeFilter.Builder().magnitude(1, 2).matching(predicate).build();
+		final QuakeFilter b = new QuakeFilter.Builder().magnitude(1, 2).matching(predicate).build();
+		final QuakeFilter c = new QuakeFilter.Builder().magnitude(1, 2).matching(quake -> true).build();
+
+		assert a.equals(b) && a.hashCode() == b.hashCode();
+		assert !a.equals(c);
+		assert QuakeFilter.NONE.equals(new QuakeFilter.Builder().build());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMagnitude() {
+		new QuakeFilter.Builder().magnitude(5, 2.5);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoAlerts() {
+		new QuakeFilter.Builder().alerts();
+	}
+
+}
@@ -5,11 +5,28 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.AfterClass;
 import org.junit.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.io.Resources;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import edu.sdsu.watcher.quake.cache.BinaryCache;
+import edu.sdsu.watcher.quake.net.FakeFeed;
+import edu.sdsu.watcher.quake.net.JsonReader;
 
 public class SimpleEarthquakeTest {
 
@@ -53,11 +70,267 @@ public class SimpleEarthquakeTest {
 		new SimpleEarthquake(new File(Shared.BUILD_RESOURCES_PATH + "/bad.json"));
 	}
 
+	@Test
+	public void testNotModifiedFeedIsNotParsedAgain() throws IOException {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), "\"v1\"");
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+
+		final List<Earthquake> first = fake.getEarthquakes("all", "hour");
+		final List<Earthquake> second = fake.getEarthquakes("all", "hour");
+
+		assert first.size() == 2;
+		assert first.equals(second) && first != second;
+		assert feed.getRequests() == 2 && feed.getDownloads() == 1;
+	}
+
+	@Test
+	public void testFetchPublishesSnapshot() throws IOException {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), "\"v1\"");
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		final Feed allHour = new Feed("all", "hour");
+
+		assert fake.getSnapshot(allHour) == null;
+		final List<Earthquake> quakes = fake.getEarthquakes(allHour);
+
+		final FeedSnapshot first = fake.getSnapshot(allHour);
+		assert first.getVersion() == 1 && first.getGenerated() == 1461399586000L;
+		assert first.getQuakes().equals(quakes) && first.getFilter().equals(QuakeFilter.NONE);
+
+		// not modified: the snapshot stays as it is
+		fake.getEarthquakes(allHour);
+		assert fake.getSnapshot(allHour) == first;
+
+		fake.getEarthquakes(allHour, new QuakeFilter.Builder().magnitude(1, 10).build());
+		assert fake.getSnapshot(allHour).getVersion() == 2 && fake.getSnapshot(allHour).getQuakes().size() == 1;
+		assert first.getQuakes().size() == 2;
+	}
+
+	@Test
+	public void testUnchangedStampIsNotDecodedAgain() throws IOException {
+		final String json = Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8);
+		// no ETag, so every poll downloads the whole feed
+		final FakeFeed feed = new FakeFeed(json, null);
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		final Feed allHour = new Feed("all", "hour");
+		final AtomicInteger decoded = new AtomicInteger();
+		final QuakeFilter filter = new QuakeFilter.Builder().matching(quake -> decoded.incrementAndGet() > 0).build();
+
+		final List<Earthquake> first = fake.getEarthquakes(allHour, filter);
+		final FeedSnapshot snapshot = fake.getSnapshot(allHour);
+		assert fake.getEarthquakes(allHour, filter).equals(first);
+		assert feed.getDownloads() == 2 && decoded.get() == 2;
+		assert fake.getSnapshot(allHour) == snapshot;
+
+		feed.update(json.replace("1461399586000", "1461399646000"), null);
+		assert fake.getEarthquakes(allHour, filter).size() == 2;
+		assert decoded.get() == 4 && fake.getSnapshot(allHour).getVersion() == 2;
+	}
+
+	@Test
+	public void testHashingWithoutCacheKeepsResult() throws IOException {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), null);
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		final Feed allHour = new Feed("all", "hour");
+		// nothing is cached, so there is no raw text to hash and the stamp decides
+		fake.setContentHashing(true);
+
+		assert fake.getEarthquakes(allHour, QuakeFilter.NONE).size() == 2;
+		assert fake.getEarthquakes(allHour, QuakeFilter.NONE).size() == 2;
+		assert feed.getDownloads() == 2 && fake.getSnapshot(allHour).getVersion() == 1;
+	}
+
+	@Test
+	public void testInstancesSharingReaderSeeUpdates() throws IOException {
+		final String json = Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8);
+		final FakeFeed feed = new FakeFeed(json, "\"v1\"");
+		final JsonReader shared = feed.reader();
+		final SimpleEarthquake a = new SimpleEarthquake(shared);
+		final SimpleEarthquake b = new SimpleEarthquake(shared);
+		final Feed allHour = new Feed("all", "hour");
+
+		a.getEarthquakes(allHour, QuakeFilter.NONE);
+		b.getEarthquakes(allHour, QuakeFilter.NONE);
+		feed.update(json.replace("1461399586000", "1461399646000"), "\"v2\"");
+
+		b.getEarthquakes(allHour, QuakeFilter.NONE);
+		assert b.getSnapshot(allHour).getGenerated() == 1461399646000L;
+		// b's refresh must not make a's copy look current
+		a.getEarthquakes(allHour, QuakeFilter.NONE);
+		assert a.getSnapshot(allHour).getGenerated() == 1461399646000L;
+	}
+
+	@Test
+	public void testLiveFetchWritesBinaryCache() throws IOException {
+		final String json = Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8);
+		final FakeFeed feed = new FakeFeed(json, "\"v1\"");
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		final Feed allHour = new Feed("all", "hour");
+		final QuakeFilter strong = new QuakeFilter.Builder().magnitude(1, 10).build();
+		final Path directory = Files.createTempDirectory("binary");
+		final File snapshot = new File(directory.toFile(), "all_hour" + BinaryCache.EXTENSION);
+
+		try {
+			fake.setBinaryCache(directory.toFile());
+			// the snapshot keeps every event, not only the filtered ones
+			assert fake.getEarthquakes(allHour, strong).size() == 1;
+
+			final SimpleEarthquake restarted = new SimpleEarthquake(snapshot);
+			assert restarted.getEarthquakes(allHour, QuakeFilter.NONE).equals(fake.getEarthquakes(allHour, QuakeFilter.NONE));
+			assert restarted.getEarthquakes(allHour, strong).size() == 1;
+
+			feed.update(json.replace("1461399586000", "1461399646000").replace("\"mag\":0.93", "\"mag\":2.93"), "\"v2\"");
+			fake.getEarthquakes(allHour, strong);
+			// the replaced snapshot is mapped again
+			assert restarted.getEarthquakes(allHour, strong).size() == 2;
+		} finally {
+			Files.deleteIfExists(snapshot.toPath());
+			Files.delete(directory);
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSnapshotIsImmutable() throws IOException {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), "\"v1\"");
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+
+		fake.getEarthquakes("all", "hour").clear();
+		fake.getSnapshot(new Feed("all", "hour")).getQuakes().clear();
+	}
+
+	@Test
+	public void testFilteredResultIsOnlyReusedForTheSameFilter() throws IOException {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), "\"v1\"");
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		final Feed allHour = new Feed("all", "hour");
+		final QuakeFilter filter = new QuakeFilter.Builder().magnitude(1, 10).build();
+
+		assert fake.getEarthquakes(allHour, filter).size() == 1;
+		assert fake.getEarthquakes(allHour, filter).size() == 1;
+		assert feed.getDownloads() == 1;
+
+		assert fake.getEarthquakes(allHour).size() == 2;
+		assert feed.getDownloads() == 2;
+	}
+
+	@Test
+	public void testFilterCachedData() {
+		final QuakeFilter filter = new QuakeFilter.Builder().magnitude(1, 10).build();
+		final List<Earthquake> quakes = usgsCachedData.getEarthquakes(new Feed("all", "week"), filter);
+		assert quakes.size() == 1 && quakes.get(0).getId().equals("nc72626465");
+	}
+
+	@Test
+	public void testAsync() throws IOException {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), null);
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		final AtomicInteger tasks = new AtomicInteger();
+		fake.setExecutor(command -> {
+			tasks.incrementAndGet();
+			executor.execute(command);
+		});
+
+		assert fake.getEarthquakesAsync("all", "hour").join().size() == 2;
+		assert tasks.get() == 1;
+		executor.shutdown();
+	}
+
+	@Test
+	public void testAsyncBatch() throws IOException {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), null);
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		final List<Feed> feeds = Arrays.asList(
+				new Feed("significant", "hour"), new Feed("4.5", "day"), new Feed("2.5", "week"),
+				new Feed("all", "hour"), new Feed("ALL", "HOUR")
+		);
+
+		final Map<Feed, List<Earthquake>> quakes = fake.getEarthquakesAsync(feeds).join();
+
+		assert quakes.size() == 4;
+		assert quakes.keySet().iterator().next().equals(new Feed("significant", "hour"));
+		assert quakes.values().stream().allMatch(list -> list.size() == 2);
+		assert feed.getRequests() == 4;
+	}
+
+	@Test
+	public void testAsyncFailureCompletesFuture() throws IOException, InterruptedException {
+		final String json = Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8);
+		// one feed of the batch is unreachable
+		final SimpleEarthquake fake = new SimpleEarthquake(url -> {
+			if(url.contains("significant")) {
+				throw new IOException("Connection reset");
+			}
+			return json;
+		});
+
+		try {
+			fake.getEarthquakesAsync(new Feed("significant", "hour")).get();
+			assert false;
+		} catch(ExecutionException e) {
+			assert e.getCause() instanceof IOException;
+		}
+
+		final CompletableFuture<Map<Feed, List<Earthquake>>> batch = fake.getEarthquakesAsync(
+				Arrays.asList(new Feed("all", "hour"), new Feed("significant", "hour")));
+		try {
+			batch.join();
+			assert false;
+		} catch(CompletionException e) {
+			assert e.getCause() instanceof IOException;
+		}
+		assert fake.getEarthquakesAsync(new Feed("all", "hour")).join().size() == 2;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAsyncInvalidFeed() {
+		usgsLiveData.getEarthquakesAsync("minor", "hour");
+	}
+
 	@Test
 	public void testCacheDataLength() {
 		assert usgsCachedData.getEarthquakes().size() == 2;
 	}
 
+	@Test
+	public void testParallelConversionKeepsOrder() throws IOException {
+		final JsonObject feed = new JsonParser().parse(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8)).getAsJsonObject();
+		final String template = feed.getAsJsonArray("features").get(0).toString();
+		final JsonArray features = new JsonArray();
+		for(int i = 0; i < 5000; i++) {
+			final JsonObject feature = new JsonParser().parse(template).getAsJsonObject();
+			feature.addProperty("id", "ci" + i);
+			feature.getAsJsonObject("properties").addProperty("mag", (i % 50) / 10.0);
+			features.add(feature);
+		}
+		feed.add("features", features);
+
+		final Path file = Files.createTempFile("all_month", ".json");
+		Files.write(file, feed.toString().getBytes(Charsets.UTF_8));
+
+		try {
+			final QuakeFilter filter = new QuakeFilter.Builder().magnitude(2.5, 10).build();
+			final SimpleEarthquake sequential = new SimpleEarthquake(file.toFile());
+			final SimpleEarthquake parallel = new SimpleEarthquake(file.toFile());
+			final ForkJoinPool pool = new ForkJoinPool(4);
+			parallel.setParallelConversion(pool, 64);
+
+			final List<Earthquake> expected = sequential.getEarthquakes(new Feed("all", "month"), filter);
+			final List<Earthquake> actual = parallel.getEarthquakes(new Feed("all", "month"), filter);
+
+			assert expected.size() == 2500;
+			assert actual.equals(expected);
+			assert actual.get(0).getId().equals("ci25") && actual.get(1).getId().equals("ci26");
+			pool.shutdown();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidParallelThreshold() {
+		usgsCachedData.setParallelConversion(ForkJoinPool.commonPool(), 0);
+	}
+
 	@Test
 	public void testCacheDirCreation() {
 		assert Files.exists(Paths.get("cache_data"));
@@ -0,0 +1,170 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+import edu.sdsu.watcher.quake.Shared;
+import edu.sdsu.watcher.quake.io.FileIOHelper;
+
+public class AsyncCacheWriterTest {
+
+	private static final Path path = Paths.get(Shared.RESOURCES_PATH, "async.json");
+	private static final Path compressed = Paths.get(Shared.RESOURCES_PATH, "async.json.gz");
+
+	@Test
+	public void testAppendsAreWrittenInOrder() throws IOException {
+		final StringBuilder expected = new StringBuilder();
+		try(AsyncCacheWriter writer = new AsyncCacheWriter.Builder().sync(AsyncCacheWriter.Sync.BATCH).build()) {
+			for(int i = 0; i < 500; i++) {
+				writer.append(path, i + ",", false);
+				expected.append(i).append(',');
+			}
+			writer.flush().join();
+
+			assert read(path).equals(expected.toString());
+		}
+	}
+
+	@Test
+	public void testCompressedAppendsAreReadable() throws IOException {
+		try(AsyncCacheWriter writer = new AsyncCacheWriter.Builder().build()) {
+			writer.append(compressed, "{\"a\":1}", true);
+			writer.append(compressed, "{\"b\":2}", true).join();
+			writer.append(compressed, "{\"c\":3}", true);
+		}
+
+		assert read(compressed).equals("{\"a\":1}{\"b\":2}{\"c\":3}");
+	}
+
+	@Test
+	public void testFullQueueFailsWithoutBlocking() throws IOException {
+		final Lock lock = CacheWriter.lockOf(path);
+
+		try(AsyncCacheWriter writer = new AsyncCacheWriter.Builder().queueCapacity(2).build()) {
+			lock.lock();
+			try {
+				// the writer takes the first append and waits for the lock
+				final CompletableFuture<Void> first = writer.append(path, "1", false);
+				while(writer.pending() > 0) {
+					Thread.yield();
+				}
+
+				final List<CompletableFuture<Void>> queued = new ArrayList<>();
+				queued.add(writer.append(path, "2", false));
+				queued.add(writer.append(path, "3", false));
+				final CompletableFuture<Void> rejected = writer.append(path, "4", false);
+
+				assert rejected.isCompletedExceptionally();
+				assert !first.isDone() && !queued.get(0).isDone();
+			} finally {
+				lock.unlock();
+			}
+
+			writer.flush().join();
+			assert read(path).equals("123");
+		}
+	}
+
+	@Test
+	public void testClosedWriterRejectsAppends() throws IOException {
+		final AsyncCacheWriter writer = new AsyncCacheWriter.Builder().sync(AsyncCacheWriter.Sync.NONE).build();
+		final CompletableFuture<Void> pending = writer.append(path, "written", false);
+		writer.close();
+
+		assert pending.isDone() && !pending.isCompletedExceptionally();
+		assert read(path).equals("written");
+
+		try {
+			writer.append(path, "lost", false).join();
+			assert false;
+		} catch(CompletionException e) {
+			assert e.getCause() instanceof IOException;
+		}
+	}
+
+	@Test
+	public void testWritesRacingCloseComplete() throws Exception {
+		final AsyncCacheWriter writer = new AsyncCacheWriter.Builder().sync(AsyncCacheWriter.Sync.NONE).build();
+		final List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+		final List<Thread> writers = new ArrayList<>();
+		for(int i = 0; i < 4; i++) {
+			final Thread thread = new Thread(() -> {
+				for(int j = 0; j < 2000; j++) {
+					futures.add(j % 100 == 0 ? writer.flush() : writer.append(path, "x", false));
+				}
+			});
+			writers.add(thread);
+			thread.start();
+		}
+
+		writer.close();
+		for(final Thread thread : writers) {
+			thread.join();
+		}
+
+		// each future is written or failed, none is left waiting
+		for(final CompletableFuture<Void> future : futures) {
+			try {
+				future.get(10, TimeUnit.SECONDS);
+			} catch(ExecutionException e) {
+				assert e.getCause() instanceof IOException;
+			}
+		}
+	}
+
+	@Test
+	public void testClosedWriterFailsFlush() throws IOException {
+		final AsyncCacheWriter writer = new AsyncCacheWriter.Builder().sync(AsyncCacheWriter.Sync.NONE).build();
+		writer.close();
+
+		final CompletableFuture<Void> flush = writer.flush();
+		assert flush.isCompletedExceptionally();
+		try {
+			flush.join();
+			assert false;
+		} catch(CompletionException e) {
+			assert e.getCause() instanceof IOException;
+		}
+	}
+
+	@Test
+	public void testCacheAppendsThroughWriter() throws IOException {
+		final Cache cache = new Cache("async", Shared.RESOURCES_PATH, false);
+		try(AsyncCacheWriter writer = new AsyncCacheWriter.Builder().build()) {
+			cache.setWriter(writer);
+			cache.append("[1]");
+			cache.appendAsync("[2]").join();
+		}
+
+		assert read(path).equals("[1][2]");
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		Files.deleteIfExists(path);
+		Files.deleteIfExists(compressed);
+	}
+
+	private static String read(final Path file) throws IOException {
+		try(InputStream in = FileIOHelper.newInputStream(file)) {
+			return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+		}
+	}
+
+}
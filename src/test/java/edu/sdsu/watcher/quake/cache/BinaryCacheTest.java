@@ -0,0 +1,85 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.Shared;
+import edu.sdsu.watcher.quake.SimpleEarthquake;
+import edu.sdsu.watcher.quake.factories.DecodeJson;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+public class BinaryCacheTest {
+
+	private static final Path path = Paths.get(Shared.RESOURCES_PATH, "all_hour" + BinaryCache.EXTENSION);
+	private static List<Earthquake> expected;
+	private static BinaryCache cache;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		final File json = new File(Shared.RESOURCES_PATH, "all_hour.json");
+		expected = new SimpleEarthquake(json).getEarthquakes();
+
+		BinaryCache.write(path, DecodeJson.parse(json, QuakeStruct.class).getFeatures());
+		cache = BinaryCache.open(path);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		assert cache.size() == 2;
+		assert cache.readAll().equals(expected);
+		assert cache.get(1).equals(expected.get(1));
+		assert cache.getUpdated(0) > 0;
+	}
+
+	@Test
+	public void testFilteredRead() {
+		final List<Earthquake> quakes = cache.read(new QuakeFilter.Builder().magnitude(1, 10).build());
+		assert quakes.size() == 1 && quakes.get(0).getId().equals("nc72626465");
+		assert cache.read(new QuakeFilter.Builder().alerts("red").build()).isEmpty();
+	}
+
+	@Test
+	public void testSimpleEarthquakeReadsBinaryCache() {
+		assert BinaryCache.isBinary(path.toFile());
+		assert new SimpleEarthquake(path.toFile()).getEarthquakes(new Feed("all", "hour"), QuakeFilter.NONE).equals(expected);
+	}
+
+	@Test
+	public void testRewriteReplacesFile() throws IOException {
+		final Path copy = Paths.get(Shared.RESOURCES_PATH, "rewrite" + BinaryCache.EXTENSION);
+		try {
+			BinaryCache.write(copy, DecodeJson.parse(new File(Shared.RESOURCES_PATH, "all_hour.json"), QuakeStruct.class).getFeatures());
+			BinaryCache.write(copy, DecodeJson.parse(new File(Shared.RESOURCES_PATH, "all_hour.json"), QuakeStruct.class).getFeatures().subList(0, 1));
+			assert BinaryCache.open(copy).size() == 1;
+		} finally {
+			Files.deleteIfExists(copy);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotABinaryCache() throws IOException {
+		BinaryCache.open(Paths.get(Shared.RESOURCES_PATH, "all_hour.json"));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		cache.get(2);
+	}
+
+	@AfterClass
+	public static void cleanup() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+}
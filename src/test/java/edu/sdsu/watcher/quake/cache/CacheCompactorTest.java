@@ -0,0 +1,188 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.Shared;
+import edu.sdsu.watcher.quake.SimpleEarthquake;
+
+public class CacheCompactorTest {
+
+	private static final LocalDate day = LocalDate.of(2016, 4, 23);
+	private static String json, revised;
+	private Path directory;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		json = new String(Files.readAllBytes(Paths.get(Shared.RESOURCES_PATH, "all_hour.json")), StandardCharsets.UTF_8);
+		revised = json.replace("1461399363577", "1461399999999").replace("\"mag\":0.93", "\"mag\":1.21");
+	}
+
+	@Before
+	public void createDirectory() throws IOException {
+		this.directory = Files.createTempDirectory("compactor");
+	}
+
+	@Test
+	public void testLatestVersionIsKept() throws IOException {
+		write("all_hour_1461399586000.json", json + json);
+		write("all_hour_1461399646000.json", revised);
+		write("all_day_1461399646000.json", json);
+
+		final CacheCompactor.Result result = compactor(false).compact("all_hour");
+		assert result.getInputs() == 2 && result.getEvents() == 2 && result.getSnapshots() == 1;
+
+		final Path snapshot = this.directory.resolve("all_hour-" + day + ".json");
+		assert Files.notExists(this.directory.resolve("all_hour_1461399586000.json"));
+		assert Files.notExists(this.directory.resolve("all_hour_1461399646000.json"));
+		assert Files.exists(this.directory.resolve("all_day_1461399646000.json"));
+
+		final List<Earthquake> quakes = new SimpleEarthquake(snapshot.toFile()).getEarthquakes();
+		assert quakes.size() == 2;
+		assert quakes.get(0).getId().equals("ci37335775") && quakes.get(0).getMagnitude() == 1.21;
+	}
+
+	@Test
+	public void testUnchangedDaysAreNotRewritten() throws IOException {
+		write("all_hour_1461399586000.json", revised);
+		compactor(false).compact("all_hour");
+
+		// an older poll that turns up late doesn't replace the revision
+		write("all_hour1461399000000.json", json);
+		final CacheCompactor.Result result = compactor(false).compact("all_hour");
+		assert result.getInputs() == 1 && result.getSnapshots() == 0;
+		assert Files.notExists(this.directory.resolve("all_hour1461399000000.json"));
+
+		final Map<LocalDate, Path> snapshots = compactor(false).snapshots("all_hour");
+		assert snapshots.size() == 1;
+		assert new SimpleEarthquake(snapshots.get(day).toFile()).getEarthquakes().get(0).getMagnitude() == 1.21;
+	}
+
+	@Test
+	public void testRecentFilesAreLeftAlone() throws IOException {
+		write("all_hour_1461399586000.json", json);
+
+		final CacheCompactor.Result result = new CacheCompactor.Builder(this.directory).build().compact("all_hour");
+		assert result.getInputs() == 0 && result.getSnapshots() == 0;
+		assert Files.exists(this.directory.resolve("all_hour_1461399586000.json"));
+	}
+
+	@Test
+	public void testUnreadableInputIsKept() throws IOException {
+		write("all_hour_1461399586000.json", json);
+		write("all_hour_1461399646000.json", json.substring(0, json.length() / 2));
+
+		final CacheCompactor.Result result = compactor(false).compact("all_hour");
+		assert result.getInputs() == 1;
+		assert Files.exists(this.directory.resolve("all_hour_1461399646000.compacting.json"));
+	}
+
+	@Test
+	public void testInputNamedLikeUnreadableClaimIsCompacted() throws IOException {
+		write("all_hour_1461399586000.compacting.json", json.substring(0, json.length() / 2));
+		write("all_hour_1461399586000.json", json);
+
+		assert compactor(false).compact("all_hour").getInputs() == 1;
+		assert Files.exists(this.directory.resolve("all_hour-" + day + ".json"));
+		assert Files.notExists(this.directory.resolve("all_hour_1461399586000.json"));
+		assert Files.notExists(this.directory.resolve("all_hour_1461399586000.compacting-1.json"));
+		// the unreadable claim is kept as it was
+		assert Files.size(this.directory.resolve("all_hour_1461399586000.compacting.json")) == json.length() / 2;
+	}
+
+	@Test
+	public void testAppendInProgressIsNotLost() throws Exception {
+		final Cache cache = new Cache("all_hour", this.directory.toString(), ".json", true);
+		cache.append(json);
+		final Path input = compactor(false).inputs("all_hour").get(0);
+
+		final Lock lock = CacheWriter.lockOf(input);
+		final FutureTask<CacheCompactor.Result> compaction = new FutureTask<>(() -> compactor(false).compact("all_hour"));
+		final Thread compactor = new Thread(compaction);
+		lock.lock();
+		try {
+			compactor.start();
+			// the compactor waits for the write in progress before it claims the file
+			while(compactor.getState() != Thread.State.WAITING) {
+				assert compactor.isAlive();
+				Thread.sleep(1);
+			}
+			cache.append(revised);
+		} finally {
+			lock.unlock();
+		}
+
+		assert compaction.get(10, TimeUnit.SECONDS).getInputs() == 1;
+		final Path snapshot = this.directory.resolve("all_hour-" + day + ".json");
+		assert new SimpleEarthquake(snapshot.toFile()).getEarthquakes().get(0).getMagnitude() == 1.21;
+
+		// the next append starts a new file
+		cache.append(json);
+		assert Files.exists(input);
+	}
+
+	@Test
+	public void testClaimedInputOfStoppedRunIsMerged() throws IOException {
+		write("all_hour_1461399586000.compacting.json", json);
+
+		assert compactor(false).compact("all_hour").getInputs() == 1;
+		assert Files.notExists(this.directory.resolve("all_hour_1461399586000.compacting.json"));
+		assert Files.exists(this.directory.resolve("all_hour-" + day + ".json"));
+	}
+
+	@Test
+	public void testOnlyTouchedDaysAreRead() throws IOException {
+		// would fail the compaction if it were read
+		write("all_hour-2000-01-01.json", "{\"type\":\"FeatureCollection\",\"feat");
+		write("all_hour_1461399586000.json", json);
+
+		final CacheCompactor.Result result = compactor(false).compact("all_hour");
+		assert result.getInputs() == 1 && result.getSnapshots() == 1;
+	}
+
+	@Test
+	public void testCompressedSnapshot() throws IOException {
+		final Cache cache = new Cache("all_hour", this.directory.toString(), ".json", true, true);
+		cache.append(json);
+		cache.append(revised);
+
+		assert compactor(true).compact("all_hour").getInputs() == 1;
+
+		final File snapshot = this.directory.resolve("all_hour-" + day + ".json.gz").toFile();
+		assert new SimpleEarthquake(snapshot).getEarthquakes().size() == 2;
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try(Stream<Path> files = Files.walk(this.directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	private CacheCompactor compactor(final boolean compress) {
+		return new CacheCompactor.Builder(this.directory).compress(compress).minimumAge(0, TimeUnit.MILLISECONDS).build();
+	}
+
+	private void write(final String name, final String content) throws IOException {
+		Files.write(this.directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,133 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.Shared;
+import edu.sdsu.watcher.quake.SimpleEarthquake;
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+public class CacheDirectoryTest {
+
+	private static String json, revised;
+	private Path directory;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		json = new String(Files.readAllBytes(Paths.get(Shared.RESOURCES_PATH, "all_hour.json")), StandardCharsets.UTF_8);
+		revised = json.replace("1461399363577", "1461399999999").replace("\"mag\":0.93", "\"mag\":1.21");
+	}
+
+	@Before
+	public void createDirectory() throws IOException {
+		this.directory = Files.createTempDirectory("archive");
+
+		write("all_hour_1461399586000.json", json + json);
+		new Cache("all_hour", this.directory.toString(), ".json", true, true).append(revised);
+		write("all_day_1461399586000.json", json.replace("ci37335775", "ci00000001"));
+		write("notes.txt", "not a feed");
+	}
+
+	@Test
+	public void testGlobSelectsFiles() throws IOException {
+		assert new CacheDirectory(this.directory, "all_hour*").files().size() == 2;
+		assert new CacheDirectory(this.directory, CacheDirectory.DEFAULT_GLOB).files().size() == 3;
+	}
+
+	@Test
+	public void testLatestVersionWins() throws IOException {
+		final List<QuakeStruct.Features> features = new CacheDirectory(this.directory, "all_hour*").load(ForkJoinPool.commonPool());
+
+		assert features.size() == 2;
+		assert features.get(0).getId().equals("ci37335775");
+		assert features.get(0).getProperties().getMag() == 1.21;
+	}
+
+	@Test
+	public void testEventLogIsMerged() throws IOException {
+		final List<QuakeStruct.Features> logged = new ArrayList<>();
+		DecodeStream.features(new StringReader(json.replace("nc72626465", "nc00000002")), logged::add);
+		try(EventLog log = EventLog.open(this.directory, "archive")) {
+			log.appendAll(logged);
+		}
+
+		assert new CacheDirectory(this.directory, CacheDirectory.DEFAULT_GLOB).load(Runnable::run).size() == 4;
+	}
+
+	@Test
+	public void testLiveEventLogIsNotModified() throws IOException {
+		final List<QuakeStruct.Features> logged = new ArrayList<>();
+		DecodeStream.features(new StringReader(json), logged::add);
+		try(EventLog log = EventLog.open(this.directory, "archive")) {
+			log.appendAll(logged);
+		}
+		// a line the poller is still writing
+		final Path log = this.directory.resolve("archive" + EventLog.LOG_EXTENSION);
+		final Path index = this.directory.resolve("archive" + EventLog.INDEX_EXTENSION);
+		Files.write(log, "{\"type\":\"Feat".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		final byte[] logBytes = Files.readAllBytes(log);
+		final byte[] indexBytes = Files.readAllBytes(index);
+
+		assert new CacheDirectory(this.directory, "archive*").load(Runnable::run).size() == 2;
+		assert Arrays.equals(Files.readAllBytes(log), logBytes);
+		assert Arrays.equals(Files.readAllBytes(index), indexBytes);
+	}
+
+	@Test
+	public void testSimpleEarthquakeReadsDirectory() {
+		final List<Earthquake> all = new SimpleEarthquake(this.directory.toFile()).getEarthquakes();
+		assert all.size() == 3;
+
+		final SimpleEarthquake hour = new SimpleEarthquake(this.directory.toFile(), "all_hour*");
+		final List<Earthquake> quakes = hour.getEarthquakes(new Feed("all", "hour"),
+				new QuakeFilter.Builder().magnitude(1.5, 2).build());
+		assert quakes.size() == 1 && quakes.get(0).getId().equals("nc72626465");
+	}
+
+	@Test
+	public void testUnreadableFileIsSkipped() throws IOException {
+		write("all_hour_1461399646000.json", json.substring(0, 100));
+		write("all_hour_1461399706000.json", "{\"type\":\"FeatureCollection\",\"features\":[{\"id\":[]}]}");
+
+		final List<QuakeStruct.Features> features = new CacheDirectory(this.directory, "all_hour*").load(ForkJoinPool.commonPool());
+		assert features.size() == 2 && features.get(0).getProperties().getMag() == 1.21;
+		assert new SimpleEarthquake(this.directory.toFile(), "all_hour*").getEarthquakes().size() == 2;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotADirectory() {
+		new CacheDirectory(this.directory.resolve("notes.txt"), "*");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try(Stream<Path> files = Files.walk(this.directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	private void write(final String name, final String content) throws IOException {
+		Files.write(this.directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -1,6 +1,9 @@
 package edu.sdsu.watcher.quake.cache;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -8,7 +11,13 @@ import java.nio.file.Paths;
 import org.junit.AfterClass;
 import org.junit.Test;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
 import edu.sdsu.watcher.quake.Shared;
+import edu.sdsu.watcher.quake.SimpleEarthquake;
+import edu.sdsu.watcher.quake.factories.DecodeJson;
+import edu.sdsu.watcher.quake.io.FileIOHelper;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
 
 public class CacheTest {
 
@@ -78,6 +87,39 @@ public class CacheTest {
 		assert c2.getLocation().equals(Shared.RESOURCES_PATH);
 	}
 
+	@Test
+	public void testCompressedCache() throws IOException {
+		final Cache compressed = new Cache("compressed", Shared.RESOURCES_PATH, ".json", false, true);
+		final Path path = Paths.get(Shared.RESOURCES_PATH, "compressed.json.gz");
+
+		assert compressed.isCompressed();
+		assert compressed.getName().equals("compressed.json.gz");
+
+		compressed.create("{\"a\":1}");
+		compressed.append("{\"b\":2}");
+
+		try(InputStream in = FileIOHelper.newInputStream(path)) {
+			assert new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8).equals("{\"a\":1}{\"b\":2}");
+		}
+		assert compressed.delete();
+	}
+
+	@Test
+	public void testCompressedFeedIsDecoded() throws IOException {
+		final String json = Resources.toString(Resources.getResource("all_hour.json"), StandardCharsets.UTF_8);
+		final Cache compressed = new Cache("all_hour", Shared.RESOURCES_PATH, ".json", false, true);
+		compressed.create(json);
+
+		final File file = Paths.get(Shared.RESOURCES_PATH, compressed.getName()).toFile();
+		try {
+			assert file.length() < json.length();
+			assert DecodeJson.parse(file, QuakeStruct.class).getFeatures().size() == 2;
+			assert new SimpleEarthquake(file).getEarthquakes().size() == 2;
+		} finally {
+			assert compressed.delete();
+		}
+	}
+
 	@AfterClass
 	public static void cleanup() throws IOException {
 		final Path path = Paths.get(Shared.RESOURCES_PATH, "test.json");
@@ -0,0 +1,237 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.Shared;
+import edu.sdsu.watcher.quake.SimpleEarthquake;
+import edu.sdsu.watcher.quake.factories.DecodeStream;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+public class EventLogTest {
+
+	private static final Path directory = Paths.get(Shared.RESOURCES_PATH);
+	private static final String name = "event_log";
+	private static final Path logPath = directory.resolve(name + EventLog.LOG_EXTENSION);
+	private static final Path indexPath = directory.resolve(name + EventLog.INDEX_EXTENSION);
+
+	private static String json;
+	private static List<QuakeStruct.Features> features;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		json = new String(Files.readAllBytes(directory.resolve("all_hour.json")), StandardCharsets.UTF_8);
+		features = decode(json);
+	}
+
+	@Test
+	public void testUnchangedVersionsAreWrittenOnce() throws IOException {
+		try(EventLog log = EventLog.open(directory, name)) {
+			assert log.appendAll(features) == 2;
+			assert log.appendAll(features) == 0;
+			assert !log.append(features.get(0));
+			assert log.size() == 2;
+		}
+
+		assert Files.readAllLines(logPath).size() == 2;
+	}
+
+	@Test
+	public void testRevisionIsAppended() throws IOException {
+		final List<QuakeStruct.Features> revised = decode(json.replace("1461399363577", "1461399999999"));
+
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(features);
+			assert log.appendAll(revised) == 1;
+			assert log.updatedOf("ci37335775") == 1461399999999L;
+			assert log.get("ci37335775").getProperties().getUpdated() == 1461399999999L;
+			assert log.get("unknown") == null;
+			assert log.latest().size() == 2;
+
+			final List<QuakeStruct.Features> replayed = new ArrayList<>();
+			log.replay(replayed::add);
+			assert replayed.size() == 3;
+			assert replayed.get(0).getProperties().getUpdated() == 1461399363577L;
+		}
+	}
+
+	@Test
+	public void testOlderVersionIsNotAppended() throws IOException {
+		final List<QuakeStruct.Features> revised = decode(json.replace("1461399363577", "1461399999999"));
+
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(revised);
+			assert log.appendAll(features) == 0;
+			assert log.updatedOf("ci37335775") == 1461399999999L;
+		}
+		assert Files.readAllLines(logPath).size() == 2;
+	}
+
+	@Test
+	public void testIndexIsWrittenInLogOrder() throws IOException {
+		final List<QuakeStruct.Features> batch = new ArrayList<>();
+		for(int i = 0; i < 32; i++) {
+			batch.addAll(decode(json.replace("ci37335775", "ci" + i)));
+		}
+		// a revision within the batch is indexed at its own line
+		batch.addAll(decode(json.replace("1461399363577", "1461399999999").replace("ci37335775", "ci0")));
+
+		try(EventLog log = EventLog.open(directory, name)) {
+			assert log.appendAll(batch) == 34;
+		}
+
+		try(DataInputStream in = new DataInputStream(Files.newInputStream(indexPath))) {
+			long last = -1;
+			// one record per event, the revision replacing the first version of ci0
+			for(int i = 0; i < 33; i++) {
+				in.readUTF();
+				in.readLong();
+				final long offset = in.readLong();
+				in.readInt();
+				assert offset > last;
+				last = offset;
+			}
+			assert in.read() == -1;
+		}
+	}
+
+	@Test
+	public void testIndexSurvivesReopen() throws IOException {
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(features);
+		}
+
+		try(EventLog log = EventLog.open(directory, name)) {
+			assert log.size() == 2;
+			assert log.appendAll(features) == 0;
+			assert log.get("nc72626465").getProperties().getMag() == 1.68;
+		}
+	}
+
+	@Test
+	public void testIndexIsRebuiltFromLog() throws IOException {
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(features);
+		}
+		Files.delete(indexPath);
+
+		// a line cut short by a crash is dropped
+		final long intact = Files.size(logPath);
+		Files.write(logPath, "{\"type\":\"Feature\",\"prop".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		try(EventLog log = EventLog.open(directory, name)) {
+			assert log.size() == 2;
+			assert log.get("ci37335775").getId().equals("ci37335775");
+			assert log.ids().contains("nc72626465");
+		}
+		assert Files.size(logPath) == intact;
+	}
+
+	@Test
+	public void testIndexCutMidRecord() throws IOException {
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(features);
+		}
+		final byte[] logBytes = Files.readAllBytes(logPath);
+		final byte[] indexBytes = Files.readAllBytes(indexPath);
+		final List<QuakeStruct.Features> revised = decode(json.replace("1461399363577", "1461399999999"));
+
+		// the first record is 32 bytes long
+		for(int cut = 1; cut < 32; cut++) {
+			Files.write(logPath, logBytes);
+			Files.write(indexPath, indexBytes);
+			Files.write(indexPath, Arrays.copyOf(indexBytes, cut), StandardOpenOption.APPEND);
+
+			try(EventLog log = EventLog.open(directory, name)) {
+				assert log.size() == 2;
+				assert log.appendAll(revised) == 1;
+			}
+			assert Files.size(indexPath) == indexBytes.length + 32;
+
+			try(EventLog log = EventLog.open(directory, name)) {
+				assert log.size() == 2;
+				assert log.get("ci37335775").getProperties().getUpdated() == 1461399999999L;
+				assert log.get("nc72626465").getId().equals("nc72626465");
+			}
+		}
+	}
+
+	@Test
+	public void testUnreadableIndexIsRebuilt() throws IOException {
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(features);
+		}
+		// a record with a negative offset
+		Files.write(indexPath, new byte[] {0, 1, 'x', 0, 0, 0, 0, 0, 0, 0, 0, -1, -1, -1, -1, -1, -1, -1, -1, 0, 0, 0, 1});
+
+		try(EventLog log = EventLog.open(directory, name)) {
+			assert log.size() == 2;
+			assert log.get("ci37335775").getId().equals("ci37335775");
+		}
+	}
+
+	@Test
+	public void testReadOnlyChangesNothing() throws IOException {
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(features);
+		}
+		Files.delete(indexPath);
+		// a line another process is still writing
+		Files.write(logPath, "{\"type\":\"Feature\",\"prop".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		final long size = Files.size(logPath);
+
+		try(EventLog log = EventLog.openReadOnly(logPath.toFile())) {
+			assert log.size() == 2;
+			assert log.get("nc72626465").getId().equals("nc72626465");
+			try {
+				log.append(features.get(0));
+				assert false;
+			} catch(IllegalStateException e) {
+				// expected
+			}
+		}
+		assert Files.size(logPath) == size;
+		assert Files.notExists(indexPath);
+	}
+
+	@Test
+	public void testSimpleEarthquakeReadsLog() throws IOException {
+		try(EventLog log = EventLog.open(directory, name)) {
+			log.appendAll(features);
+		}
+
+		final List<Earthquake> expected = new SimpleEarthquake(new File(Shared.RESOURCES_PATH, "all_hour.json")).getEarthquakes();
+		assert EventLog.isLog(logPath.toFile());
+		assert new SimpleEarthquake(logPath.toFile()).getEarthquakes(new Feed("all", "hour"), QuakeFilter.NONE).equals(expected);
+	}
+
+	@After
+	public void cleanup() throws IOException {
+		Files.deleteIfExists(logPath);
+		Files.deleteIfExists(indexPath);
+	}
+
+	private static List<QuakeStruct.Features> decode(final String json) throws IOException {
+		final List<QuakeStruct.Features> features = new ArrayList<>();
+		DecodeStream.features(new StringReader(json), features::add);
+		return features;
+	}
+
+}
@@ -0,0 +1,165 @@
+package edu.sdsu.watcher.quake.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Ticker;
+import com.google.common.io.Resources;
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.SimpleEarthquake;
+import edu.sdsu.watcher.quake.net.FakeFeed;
+
+public class ResultCacheTest {
+
+	private static final Feed HOUR = new Feed("all", "hour");
+	private static final Feed MONTH = new Feed("all", "month");
+	private static final List<Earthquake> QUAKES = Collections.singletonList(
+			new Earthquake(new Coordinate(1, 2, 3), 4.5, "M 4.5 - test", "us1", 1));
+
+	private final AtomicLong nanos = new AtomicLong();
+	private final Ticker ticker = new Ticker() {
+		@Override
+		public long read() {
+			return nanos.get();
+		}
+	};
+
+	@Test
+	public void testHitWithinTtl() {
+		final ResultCache cache = new ResultCache.Builder().ticker(this.ticker).build();
+		final AtomicInteger loads = new AtomicInteger();
+
+		cache.get(HOUR, QuakeFilter.NONE, () -> count(loads));
+		this.nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+		assert cache.get(HOUR, QuakeFilter.NONE, () -> count(loads)).equals(QUAKES);
+		assert loads.get() == 1;
+	}
+
+	@Test
+	public void testTtlFollowsFeedCadence() {
+		final ResultCache cache = new ResultCache.Builder().ticker(this.ticker).build();
+		final AtomicInteger hour = new AtomicInteger(), month = new AtomicInteger();
+
+		cache.get(HOUR, QuakeFilter.NONE, () -> count(hour));
+		cache.get(MONTH, QuakeFilter.NONE, () -> count(month));
+		this.nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+		cache.get(HOUR, QuakeFilter.NONE, () -> count(hour));
+		cache.get(MONTH, QuakeFilter.NONE, () -> count(month));
+
+		assert hour.get() == 2 && month.get() == 1;
+
+		this.nanos.addAndGet(TimeUnit.MINUTES.toNanos(15));
+		cache.get(MONTH, QuakeFilter.NONE, () -> count(month));
+		assert month.get() == 2;
+	}
+
+	@Test
+	public void testKeyedByFilter() {
+		final ResultCache cache = new ResultCache.Builder().ticker(this.ticker).build();
+		final AtomicInteger loads = new AtomicInteger();
+
+		cache.get(HOUR, QuakeFilter.NONE, () -> count(loads));
+		cache.get(HOUR, new QuakeFilter.Builder().magnitude(2.5, 10).build(), () -> count(loads));
+		cache.get(HOUR, new QuakeFilter.Builder().magnitude(2.5, 10).build(), () -> count(loads));
+
+		assert loads.get() == 2;
+		assert cache.size() == 2;
+
+		cache.invalidate(HOUR);
+		assert cache.size() == 0;
+	}
+
+	@Test
+	public void testSizeBound() {
+		final ResultCache cache = new ResultCache.Builder().maximumSize(1).ticker(this.ticker).build();
+		cache.get(HOUR, QuakeFilter.NONE, () -> QUAKES);
+		cache.get(MONTH, QuakeFilter.NONE, () -> QUAKES);
+
+		assert cache.size() == 1;
+	}
+
+	@Test
+	public void testConcurrentMissLoadsOnce() throws Exception {
+		final ResultCache cache = new ResultCache.Builder().build();
+		final AtomicInteger loads = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		final Future<?>[] futures = new Future<?>[8];
+		for(int i = 0; i < futures.length; i++) {
+			futures[i] = executor.submit(() -> {
+				start.await();
+				return cache.get(HOUR, QuakeFilter.NONE, () -> {
+					sleep();
+					return count(loads);
+				});
+			});
+		}
+		start.countDown();
+		for(final Future<?> future : futures) {
+			assert future.get().equals(QUAKES);
+		}
+
+		assert loads.get() == 1;
+		executor.shutdown();
+	}
+
+	@Test
+	public void testSimpleEarthquakeUsesResultCache() throws Exception {
+		final FakeFeed feed = new FakeFeed(Resources.toString(Resources.getResource("all_hour.json"), Charsets.UTF_8), null);
+		final SimpleEarthquake fake = new SimpleEarthquake(feed.reader());
+		fake.setResultCache(new ResultCache.Builder().ticker(this.ticker).build());
+
+		final List<Earthquake> first = fake.getEarthquakes(HOUR);
+		final List<Earthquake> second = fake.getEarthquakes(HOUR);
+
+		assert first.size() == 2 && first == second;
+		assert feed.getRequests() == 1;
+
+		try {
+			first.clear();
+			assert false;
+		} catch(UnsupportedOperationException e) {
+			assert fake.getEarthquakes(HOUR).size() == 2;
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testLoaderFailure() {
+		new ResultCache.Builder().build().get(HOUR, QuakeFilter.NONE, () -> {
+			throw new IllegalStateException();
+		});
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownTime() {
+		new ResultCache.Builder().ttl("year", 1, TimeUnit.DAYS);
+	}
+
+	private static List<Earthquake> count(final AtomicInteger loads) {
+		loads.incrementAndGet();
+		return QUAKES;
+	}
+
+	private static void sleep() {
+		try {
+			Thread.sleep(50);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+package edu.sdsu.watcher.quake.factories;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.io.Resources;
+import com.google.gson.JsonSyntaxException;
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+public class DecodeStreamTest {
+
+	private static final List<QuakeStruct.Features> features = new ArrayList<>();
+	private static final List<Earthquake> quakes = new ArrayList<>();
+	private static QuakeStruct.Metadata metadata = null;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		try(InputStream in = Resources.getResource("all_hour.json").openStream()) {
+			metadata = DecodeStream.features(in, features::add);
+		}
+
+		try(InputStream in = Resources.getResource("all_hour.json").openStream()) {
+			DecodeStream.earthquakes(in, quakes::add);
+		}
+	}
+
+	@Test
+	public void testFeatureCount() {
+		assert features.size() == 2;
+	}
+
+	@Test
+	public void testFeatureOrder() {
+		assert features.get(0).getId().equals("ci37335775");
+		assert features.get(1).getId().equals("nc72626465");
+	}
+
+	@Test
+	public void testFeatureProperties() {
+		assert features.get(0).getProperties().getMag() == 0.93;
+		assert features.get(0).getProperties().getTitle().equals("M 0.9 - 5km SSE of Hemet, CA");
+	}
+
+	@Test
+	public void testFeatureGeometry() {
+		assert features.get(0).getGeometry().getCoordinates().get(0) == -116.9568333;
+	}
+
+	@Test
+	public void testMetadata() {
+		assert metadata.getGenerated() == 1461399586000L;
+		assert metadata.getCount() == 2;
+	}
+
+	@Test
+	public void testProjectionMatchesFeatures() {
+		assert quakes.size() == features.size();
+
+		for(int i = 0; i < features.size(); i++) {
+			final QuakeStruct.Features feature = features.get(i);
+			final Earthquake expected = new Earthquake(
+					new Coordinate(feature.getGeometry().getLongitude(), feature.getGeometry().getLatitude(), feature.getGeometry().getDepth()),
+					feature.getProperties().getMag(), feature.getProperties().getTitle(), feature.getId(), feature.getProperties().getTime()
+			);
+			assert quakes.get(i).equals(expected);
+		}
+	}
+
+	@Test
+	public void testFilterPushdown() throws IOException {
+		final List<Earthquake> kept = new ArrayList<>();
+		final QuakeFilter filter = new QuakeFilter.Builder().magnitude(1, 10).build();
+		try(InputStream in = Resources.getResource("all_hour.json").openStream()) {
+			DecodeStream.earthquakes(in, filter, kept::add);
+		}
+
+		assert kept.size() == 1 && kept.get(0).getId().equals("nc72626465");
+		assert kept.get(0).equals(quakes.get(1));
+	}
+
+	@Test
+	public void testFilterOnLocationAndPredicate() throws IOException {
+		final List<Earthquake> kept = new ArrayList<>();
+		final QuakeFilter filter = new QuakeFilter.Builder()
+				.box(-118, 33, -116, 34)
+				.matching(quake -> quake.getDescription().endsWith("CA"))
+				.build();
+		try(InputStream in = Resources.getResource("all_hour.json").openStream()) {
+			DecodeStream.earthquakes(in, filter, kept::add);
+		}
+
+		assert kept.size() == 1 && kept.get(0).getId().equals("ci37335775");
+	}
+
+	@Test
+	public void testFilterWithoutProperties() throws IOException {
+		final List<Earthquake> kept = new ArrayList<>();
+		DecodeStream.earthquakes(new StringReader("{\"features\":[{\"id\":\"x\"}]}"),
+				new QuakeFilter.Builder().magnitude(1, 10).build(), kept::add);
+
+		assert kept.isEmpty();
+	}
+
+	@Test
+	public void testProjectionSkipsUnknownValues() throws IOException {
+		final List<Earthquake> projected = new ArrayList<>();
+		DecodeStream.earthquakes(new StringReader("{\"features\":[{\"extra\":[{\"a\":1}],\"properties\":{\"mag\":null,"
+				+ "\"place\":\"x\",\"time\":5,\"title\":\"t\"},\"geometry\":{\"coordinates\":[1.5,2.5,3.5,9]},\"id\":\"a\"}]}"), projected::add);
+
+		assert projected.size() == 1;
+		assert projected.get(0).equals(new Earthquake(new Coordinate(1.5, 2.5, 3.5), 0, "t", "a", 5));
+	}
+
+	@Test
+	public void testPrettyFeed() throws IOException {
+		final List<QuakeStruct.Features> pretty = new ArrayList<>();
+		try(InputStream in = Resources.getResource("pretty_all_hour.json").openStream()) {
+			DecodeStream.features(in, pretty::add);
+		}
+		assert pretty.size() == features.size();
+	}
+
+	@Test
+	public void testMissingMetadata() throws IOException {
+		final List<QuakeStruct.Features> empty = new ArrayList<>();
+		assert DecodeStream.features(new StringReader("{\"type\":\"FeatureCollection\",\"features\":[]}"), empty::add) == null;
+		assert empty.isEmpty();
+	}
+
+	@Test
+	public void testConcatenatedFeeds() throws IOException {
+		final String feed = Resources.toString(Resources.getResource("all_hour.json"), StandardCharsets.UTF_8);
+		final List<QuakeStruct.Features> all = new ArrayList<>();
+
+		assert DecodeStream.concatenatedFeatures(new StringReader(feed + feed + "\n" + feed), all::add) == 3;
+		assert all.size() == 3 * features.size();
+		assert all.get(features.size()).getId().equals(features.get(0).getId());
+		assert DecodeStream.concatenatedFeatures(new StringReader(""), all::add) == 0;
+	}
+
+	@Test
+	public void testStopAfterMetadata() throws IOException {
+		final List<Earthquake> skipped = new ArrayList<>();
+		final List<QuakeStruct.Features> decoded = new ArrayList<>();
+
+		try(InputStream in = Resources.getResource("all_hour.json").openStream()) {
+			final QuakeStruct.Metadata header = DecodeStream.earthquakes(new InputStreamReader(in, StandardCharsets.UTF_8),
+					QuakeFilter.NONE, read -> read.getGenerated() != metadata.getGenerated(), skipped::add);
+			assert header.getGenerated() == metadata.getGenerated();
+		}
+		assert skipped.isEmpty();
+
+		try(InputStream in = Resources.getResource("all_hour.json").openStream()) {
+			DecodeStream.features(new InputStreamReader(in, StandardCharsets.UTF_8), read -> true, decoded::add);
+		}
+		assert decoded.size() == features.size();
+	}
+
+	@Test(expected = JsonSyntaxException.class)
+	public void testMalformedFeature() throws IOException {
+		DecodeStream.features(new StringReader("{\"features\":[{]}"), feature -> {});
+	}
+
+	@Test(expected = IOException.class)
+	public void testMalformedFeed() throws IOException {
+		DecodeStream.features(new StringReader("{\"features\" []}"), feature -> {});
+	}
+
+}
@@ -0,0 +1,117 @@
+package edu.sdsu.watcher.quake.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+
+public class SpatialIndexTest {
+
+	private static final List<Earthquake> quakes = new ArrayList<>();
+	private static SpatialIndex index;
+
+	@BeforeClass
+	public static void setup() {
+		final Random random = new Random(42);
+		for(int i = 0; i < 5000; i++) {
+			final Coordinate coordinate = new Coordinate(random.nextDouble() * 360 - 180, random.nextDouble() * 180 - 90, 10);
+			quakes.add(new Earthquake(coordinate, 2.5, "quake " + i, "id" + i, i));
+		}
+
+		index = new SpatialIndex(2);
+		index.insertAll(quakes);
+	}
+
+	@Test
+	public void testDistance() {
+		final Coordinate sanDiego = new Coordinate(-117.1611, 32.7157, 0);
+		final Coordinate losAngeles = new Coordinate(-118.2437, 34.0522, 0);
+		final double distance = sanDiego.distanceTo(losAngeles);
+		assert distance > 178 && distance < 181;
+		assert sanDiego.distanceTo(sanDiego) == 0;
+	}
+
+	@Test
+	public void testWithinMatchesScan() {
+		final Coordinate[] centers = {
+				new Coordinate(-117.16, 32.72, 0),
+				new Coordinate(179.5, -10, 0),
+				new Coordinate(0, 89.5, 0),
+				new Coordinate(-179.9, 0, 0)
+		};
+
+		for(final Coordinate center : centers) {
+			for(final double radius : new double[] {0, 200, 1500, 9000, 25000}) {
+				assert ids(index.within(center, radius)).equals(ids(scan(center, radius))) : center + " " + radius;
+			}
+		}
+	}
+
+	@Test
+	public void testInBox() {
+		final List<Earthquake> box = index.inBox(-120, 30, -110, 40);
+		assert ids(box).equals(ids(quakes.stream().filter(q -> q.getCoordinate().getLongitude() >= -120
+				&& q.getCoordinate().getLongitude() <= -110 && q.getCoordinate().getLatitude() >= 30
+				&& q.getCoordinate().getLatitude() <= 40).collect(Collectors.toList())));
+	}
+
+	@Test
+	public void testInBoxAcrossAntimeridian() {
+		final List<Earthquake> box = index.inBox(170, -20, -170, 20);
+		assert !box.isEmpty();
+		assert ids(box).equals(ids(quakes.stream().filter(q -> (q.getCoordinate().getLongitude() >= 170
+				|| q.getCoordinate().getLongitude() <= -170) && Math.abs(q.getCoordinate().getLatitude()) <= 20)
+				.collect(Collectors.toList())));
+	}
+
+	@Test
+	public void testNearest() {
+		final Coordinate center = new Coordinate(-117.16, 32.72, 0);
+		final List<Earthquake> nearest = index.nearest(center, 10);
+		final List<Earthquake> expected = quakes.stream()
+				.sorted(Comparator.comparingDouble(q -> center.distanceTo(q.getCoordinate())))
+				.limit(10)
+				.collect(Collectors.toList());
+
+		assert nearest.equals(expected);
+		assert index.nearest(center, 0).isEmpty();
+	}
+
+	@Test
+	public void testInsertReplacesAndRemove() {
+		final SpatialIndex small = new SpatialIndex();
+		small.insert(new Earthquake(new Coordinate(10, 10, 5), 3, "first", "ci1", 1));
+		small.insert(new Earthquake(new Coordinate(-50, -50, 5), 3, "revised", "ci1", 2));
+
+		assert small.size() == 1;
+		assert small.within(new Coordinate(10, 10, 0), 100).isEmpty();
+		assert small.within(new Coordinate(-50, -50, 0), 100).get(0).getDescription().equals("revised");
+
+		assert small.remove("ci1");
+		assert !small.remove("ci1");
+		assert small.size() == 0;
+		assert small.nearest(new Coordinate(0, 0, 0), 3).isEmpty();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCellSize() {
+		new SpatialIndex(0.7);
+	}
+
+	private static List<Earthquake> scan(final Coordinate center, final double radius) {
+		return quakes.stream().filter(q -> center.distanceTo(q.getCoordinate()) <= radius).collect(Collectors.toList());
+	}
+
+	private static HashSet<String> ids(final List<Earthquake> quakes) {
+		return quakes.stream().map(Earthquake::getId).collect(Collectors.toCollection(HashSet::new));
+	}
+
+}
@@ -0,0 +1,132 @@
+package edu.sdsu.watcher.quake.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+
+public class TimeIndexTest {
+
+	private static final List<Earthquake> quakes = new ArrayList<>();
+	private static TimeIndex index;
+
+	@BeforeClass
+	public static void setup() {
+		final Random random = new Random(7);
+		for(int i = 0; i < 2000; i++) {
+			quakes.add(quake("id" + i, random.nextInt(100_000)));
+		}
+
+		index = new TimeIndex();
+		index.insertAll(quakes);
+	}
+
+	@Test
+	public void testBetweenMatchesScan() {
+		for(final long[] window : new long[][] {{0, 100_000}, {25_000, 25_500}, {-10, 0}, {99_999, 200_000}, {500, 500}}) {
+			final List<Earthquake> expected = quakes.stream()
+					.filter(q -> q.getTime() >= window[0] && q.getTime() < window[1])
+					.sorted(Comparator.comparingLong(Earthquake::getTime))
+					.collect(Collectors.toList());
+			assert times(index.between(window[0], window[1])).equals(times(expected));
+		}
+	}
+
+	@Test
+	public void testLatest() {
+		final List<Earthquake> latest = index.latest(5);
+		final List<Long> expected = quakes.stream().map(Earthquake::getTime)
+				.sorted(Collections.reverseOrder()).limit(5).collect(Collectors.toList());
+
+		assert times(latest).equals(expected);
+		assert index.latest(0).isEmpty();
+		assert index.latest(10_000).size() == quakes.size();
+	}
+
+	@Test
+	public void testSince() {
+		final List<Earthquake> page = index.since(90_000);
+		assert !page.isEmpty();
+		assert page.stream().allMatch(q -> q.getTime() > 90_000);
+		assert page.size() == quakes.stream().filter(q -> q.getTime() > 90_000).count();
+
+		final long cursor = page.get(page.size() - 1).getTime();
+		assert index.since(cursor).isEmpty();
+		assert index.since(Long.MIN_VALUE).size() == quakes.size();
+	}
+
+	@Test
+	public void testOutOfOrderRevision() {
+		final TimeIndex small = new TimeIndex();
+		small.insert(quake("a", 30));
+		small.insert(quake("b", 10));
+		small.insert(quake("c", 20));
+		small.insert(quake("b", 40));
+
+		assert small.size() == 3;
+		assert ids(small.since(Long.MIN_VALUE)).equals(Arrays.asList("c", "a", "b"));
+
+		assert small.remove("a");
+		assert !small.remove("a");
+		assert ids(small.between(0, 100)).equals(Arrays.asList("c", "b"));
+	}
+
+	@Test
+	public void testEqualTimesKeepArrivalOrder() {
+		final TimeIndex small = new TimeIndex();
+		small.insert(quake("x", 5));
+		small.insert(quake("y", 5));
+		small.insert(quake("z", 5));
+		small.remove("y");
+
+		assert ids(small.between(5, 6)).equals(Arrays.asList("x", "z"));
+	}
+
+	@Test
+	public void testInsertAllMatchesInserts() {
+		final Random random = new Random(11);
+		final TimeIndex batched = new TimeIndex();
+		final TimeIndex single = new TimeIndex();
+
+		for(int round = 0; round < 5; round++) {
+			// newest first, with revisions of earlier rounds, repeated ids and equal times
+			final List<Earthquake> batch = new ArrayList<>();
+			for(int i = 0; i < 300; i++) {
+				batch.add(quake("id" + random.nextInt(500), random.nextInt(50)));
+			}
+			batch.sort(Comparator.comparingLong(Earthquake::getTime).reversed());
+
+			batched.insertAll(batch);
+			batch.forEach(single::insert);
+			assert batched.size() == single.size();
+			assert ids(batched.since(Long.MIN_VALUE)).equals(ids(single.since(Long.MIN_VALUE)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidWindow() {
+		index.between(10, 5);
+	}
+
+	private static Earthquake quake(final String id, final long time) {
+		return new Earthquake(new Coordinate(0, 0, 0), 1, id, id, time);
+	}
+
+	private static List<Long> times(final List<Earthquake> quakes) {
+		return quakes.stream().map(Earthquake::getTime).collect(Collectors.toList());
+	}
+
+	private static List<String> ids(final List<Earthquake> quakes) {
+		return quakes.stream().map(Earthquake::getId).collect(Collectors.toList());
+	}
+
+}
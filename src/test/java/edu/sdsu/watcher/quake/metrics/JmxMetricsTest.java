@@ -0,0 +1,161 @@
+package edu.sdsu.watcher.quake.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Earthquake;
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.QuakeFilter;
+import edu.sdsu.watcher.quake.Shared;
+import edu.sdsu.watcher.quake.SimpleEarthquake;
+import edu.sdsu.watcher.quake.cache.Cache;
+import edu.sdsu.watcher.quake.factories.DecodeJson;
+import edu.sdsu.watcher.quake.net.Download;
+import edu.sdsu.watcher.quake.net.FakeFeed;
+import edu.sdsu.watcher.quake.net.JsonReader;
+import edu.sdsu.watcher.quake.net.Validators;
+import edu.sdsu.watcher.quake.structures.QuakeStruct;
+
+public class JmxMetricsTest {
+
+	private static final String URL = "https://earthquake.usgs.gov/earthquakes/feed/v1.0/summary/all_hour.geojson";
+	private static String json;
+	private JmxMetrics metrics;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		json = new String(Files.readAllBytes(Paths.get(Shared.RESOURCES_PATH, "all_hour.json")), StandardCharsets.UTF_8);
+	}
+
+	@Before
+	public void install() {
+		this.metrics = new JmxMetrics();
+		Metrics.set(this.metrics);
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		Metrics.set(Metrics.NONE);
+		assert !Metrics.get().isEnabled();
+		assert Metrics.get().start(Metrics.Stage.FETCH) == Metrics.Timing.NONE;
+	}
+
+	@Test
+	public void testPercentiles() {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000L);
+		}
+
+		assert histogram.count() == 100;
+		assert histogram.maxNanos() == 100000;
+		// accurate to within a factor of two
+		assert histogram.percentileNanos(0.5) >= 50000 && histogram.percentileNanos(0.5) < 100000;
+		assert histogram.percentileNanos(0.99) >= 99000 && histogram.percentileNanos(0.99) <= 100000;
+
+		histogram.reset();
+		assert histogram.count() == 0 && histogram.percentileNanos(0.5) == 0;
+	}
+
+	@Test
+	public void testFetchIsCounted() throws IOException {
+		final FakeFeed feed = new FakeFeed(json, "\"v1\"");
+		final JsonReader reader = feed.reader();
+
+		final Download<String> download = reader.getIfModified(URL, Validators.NONE);
+		assert download.getBody().equals(json);
+		assert reader.getIfModified(URL, download.getValidators()).isNotModified();
+		try(InputStream in = reader.open(URL)) {
+			while(in.read() != -1) {
+				// drain the body
+			}
+		}
+
+		final long bytes = json.getBytes(StandardCharsets.UTF_8).length;
+		assert this.metrics.getStats(Metrics.Stage.FETCH).getCount() == 3;
+		assert this.metrics.getNotModified() == 1;
+		assert this.metrics.getFetchedBytes() == 2 * bytes;
+	}
+
+	@Test
+	public void testDecodeAndFilterAreCounted() throws IOException {
+		final QuakeStruct struct = DecodeJson.parse(json, QuakeStruct.class);
+		assert struct.getFeatures().size() == 2;
+
+		final List<Earthquake> quakes = new SimpleEarthquake(new File(Shared.RESOURCES_PATH, "all_hour.json"))
+				.getEarthquakes(new Feed("all", "hour"), new QuakeFilter.Builder().magnitude(1.5, 2).build());
+		assert quakes.size() == 1;
+
+		assert this.metrics.getStats(Metrics.Stage.DECODE).getCount() == 2;
+		assert this.metrics.getDecodedFeatures() == 4;
+		assert this.metrics.getStats(Metrics.Stage.FILTER).getCount() == 1;
+		assert this.metrics.getFilteredIn() == 2 && this.metrics.getFilteredOut() == 1;
+	}
+
+	@Test
+	public void testDecodeErrorIsCounted() {
+		try {
+			DecodeJson.parse(json.substring(0, 100), QuakeStruct.class);
+			assert false;
+		} catch(IOException | RuntimeException e) {
+			assert this.metrics.getStats(Metrics.Stage.DECODE).getErrors() == 1;
+			assert this.metrics.getStats(Metrics.Stage.DECODE).getCount() == 0;
+		}
+	}
+
+	@Test
+	public void testCacheWriteIsCounted() throws IOException {
+		final Path directory = Files.createTempDirectory("metrics");
+		try {
+			final Cache cache = new Cache("all_hour", directory.toString(), ".json", false);
+			cache.append(json);
+			cache.append(json);
+
+			final long size = Files.size(directory.resolve("all_hour.json"));
+			assert this.metrics.getStats(Metrics.Stage.CACHE).getCount() == 2;
+			assert this.metrics.getCachedBytes() == size;
+			assert cache.delete();
+		} finally {
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testMBeansAreRegistered() throws JMException {
+		final MBeanServer server = MBeanServerFactory.newMBeanServer();
+		this.metrics.register(server);
+		this.metrics.start(Metrics.Stage.FILTER).filtered(10, 4);
+
+		final ObjectName counters = new ObjectName(JmxMetrics.DOMAIN + ":type=Metrics");
+		final ObjectName filter = new ObjectName(JmxMetrics.DOMAIN + ":type=Metrics,stage=filter");
+		assert (Long) server.getAttribute(counters, "FilteredOut") == 4;
+		assert (Long) server.getAttribute(filter, "Count") == 1;
+
+		server.invoke(counters, "reset", null, null);
+		assert (Long) server.getAttribute(filter, "Count") == 0;
+
+		this.metrics.unregister();
+		assert !server.isRegistered(counters) && !server.isRegistered(filter);
+	}
+
+	@After
+	public void uninstall() {
+		Metrics.set(Metrics.NONE);
+	}
+
+}
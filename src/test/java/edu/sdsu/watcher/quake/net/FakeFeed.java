@@ -0,0 +1,82 @@
+package edu.sdsu.watcher.quake.net;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Serves a fixed body for every URL and honors {@code If-None-Match} so tests can
+ * exercise the network layer without reaching usgs.gov.
+ */
+public class FakeFeed implements Interceptor {
+
+	private static final MediaType JSON = MediaType.parse("application/json");
+
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger downloads = new AtomicInteger();
+	private volatile String body;
+	private volatile String etag;
+	private volatile Request lastRequest;
+
+	public FakeFeed(String body, String etag) {
+		this.body = body;
+		this.etag = etag;
+	}
+
+	public void update(String body, String etag) {
+		this.body = body;
+		this.etag = etag;
+	}
+
+	public JsonReader reader() {
+		return new JsonReader.Builder().client(new OkHttpClient.Builder().addInterceptor(this).build()).build();
+	}
+
+	public int getRequests() {
+		return this.requests.get();
+	}
+
+	public int getDownloads() {
+		return this.downloads.get();
+	}
+
+	public Request getLastRequest() {
+		return this.lastRequest;
+	}
+
+	@Override
+	public Response intercept(Chain chain) throws IOException {
+		final Request request = chain.request();
+		this.lastRequest = request;
+		this.requests.incrementAndGet();
+
+		final Response.Builder builder = new Response.Builder()
+				.request(request)
+				.protocol(Protocol.HTTP_1_1);
+
+		if(this.etag != null && this.etag.equals(request.header("If-None-Match"))) {
+			return builder.code(HttpURLConnection.HTTP_NOT_MODIFIED)
+					.message("Not Modified")
+					.header("ETag", this.etag)
+					.body(ResponseBody.create(JSON, ""))
+					.build();
+		}
+
+		this.downloads.incrementAndGet();
+		builder.code(HttpURLConnection.HTTP_OK).message("OK").body(ResponseBody.create(JSON, this.body));
+		if(this.etag != null) {
+			builder.header("ETag", this.etag);
+		}
+
+		return builder.build();
+	}
+
+}
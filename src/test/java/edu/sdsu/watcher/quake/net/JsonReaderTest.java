@@ -0,0 +1,160 @@
+package edu.sdsu.watcher.quake.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+public class JsonReaderTest {
+
+	private static final String URL = "https://earthquake.usgs.gov/earthquakes/feed/v1.0/summary/all_hour.geojson";
+	private static final AtomicInteger calls = new AtomicInteger();
+	private static JsonReader reader;
+
+	@BeforeClass
+	public static void setup() {
+		final OkHttpClient fake = new OkHttpClient.Builder().addInterceptor(chain -> {
+			calls.incrementAndGet();
+			return new Response.Builder()
+					.request(chain.request())
+					.protocol(Protocol.HTTP_1_1)
+					.code(200)
+					.message("OK")
+					.body(ResponseBody.create(MediaType.parse("application/json"), "{}"))
+					.build();
+		}).build();
+
+		reader = new JsonReader.Builder()
+				.client(fake)
+				.maxIdleConnections(2)
+				.keepAlive(1, TimeUnit.MINUTES)
+				.connectTimeout(1, TimeUnit.SECONDS)
+				.readTimeout(1, TimeUnit.SECONDS)
+				.writeTimeout(1, TimeUnit.SECONDS)
+				.maxRequests(4)
+				.maxRequestsPerHost(2)
+				.build();
+	}
+
+	@Test
+	public void testGetInstanceIsShared() {
+		assert JsonReader.getInstance() == JsonReader.getInstance();
+	}
+
+	@Test
+	public void testClientIsReused() throws IOException {
+		final OkHttpClient client = reader.getClient();
+		reader.get(URL);
+		reader.get(URL);
+		assert reader.getClient() == client;
+	}
+
+	@Test
+	public void testGet() throws IOException {
+		final int before = calls.get();
+		assert reader.get(URL).equals("{}");
+		assert calls.get() == before + 1;
+	}
+
+	@Test
+	public void testConfiguredClient() {
+		final OkHttpClient client = reader.getClient();
+		assert client.connectTimeoutMillis() == 1000;
+		assert client.readTimeoutMillis() == 1000;
+		assert client.writeTimeoutMillis() == 1000;
+		assert client.dispatcher().getMaxRequests() == 4;
+		assert client.dispatcher().getMaxRequestsPerHost() == 2;
+		assert client.protocols().contains(Protocol.HTTP_2);
+	}
+
+	@Test
+	public void testConditionalGet() throws IOException {
+		final FakeFeed feed = new FakeFeed("{\"a\":1}", "\"v1\"");
+		final JsonReader conditional = feed.reader();
+
+		final Download<String> first = conditional.getIfModified(URL, Validators.NONE);
+		assert first.getBody().equals("{\"a\":1}");
+		assert first.getValidators().getEtag().equals("\"v1\"");
+
+		final Download<String> second = conditional.getIfModified(URL, first.getValidators());
+		assert second.isNotModified() && second.getValidators().equals(first.getValidators());
+		assert "\"v1\"".equals(feed.getLastRequest().header("If-None-Match"));
+		assert feed.getDownloads() == 1;
+	}
+
+	@Test
+	public void testConditionalGetAfterUpdate() throws IOException {
+		final FakeFeed feed = new FakeFeed("{\"a\":1}", "\"v1\"");
+		final JsonReader conditional = feed.reader();
+
+		final Validators v1 = conditional.getIfModified(URL, Validators.NONE).getValidators();
+		feed.update("{\"a\":2}", "\"v2\"");
+		final Download<String> update = conditional.getIfModified(URL, v1);
+		assert update.getBody().equals("{\"a\":2}");
+		assert conditional.getIfModified(URL, update.getValidators()).isNotModified();
+		assert feed.getDownloads() == 2;
+	}
+
+	@Test
+	public void testValidatorsAreNotShared() throws IOException {
+		final FakeFeed feed = new FakeFeed("{\"a\":1}", "\"v1\"");
+		final JsonReader shared = feed.reader();
+
+		final Validators v1 = shared.getIfModified(URL, Validators.NONE).getValidators();
+		feed.update("{\"a\":2}", "\"v2\"");
+		// another caller refreshes the URL through the same reader
+		assert shared.get(URL).equals("{\"a\":2}");
+		assert shared.getIfModified(URL, Validators.NONE).getBody().equals("{\"a\":2}");
+
+		// the first caller still holds v1, so it must be sent the update
+		assert shared.getIfModified(URL, v1).getBody().equals("{\"a\":2}");
+	}
+
+	@Test
+	public void testOpenIfModified() throws IOException {
+		final FakeFeed feed = new FakeFeed("{}", "\"v1\"");
+		final JsonReader conditional = feed.reader();
+
+		final Download<InputStream> first = conditional.openIfModified(URL, Validators.NONE);
+		try(InputStream body = first.getBody()) {
+			assert body.read() == '{';
+		}
+		assert conditional.openIfModified(URL, first.getValidators()).isNotModified();
+	}
+
+	@Test
+	public void testUnconditionalGetWithoutValidators() throws IOException {
+		final FakeFeed feed = new FakeFeed("{}", null);
+		final JsonReader conditional = feed.reader();
+
+		final Download<String> first = conditional.getIfModified(URL, Validators.NONE);
+		assert first.getBody().equals("{}") && first.getValidators().isEmpty();
+		assert conditional.getIfModified(URL, first.getValidators()).getBody().equals("{}");
+		assert feed.getLastRequest().header("If-None-Match") == null;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyUrl() throws IOException {
+		reader.get("");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMaxRequests() {
+		new JsonReader.Builder().maxRequests(0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeTimeout() {
+		new JsonReader.Builder().readTimeout(-1, TimeUnit.SECONDS);
+	}
+
+}
@@ -0,0 +1,181 @@
+package edu.sdsu.watcher.quake.poll;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Feed;
+import edu.sdsu.watcher.quake.net.FakeFeed;
+import edu.sdsu.watcher.quake.net.JsonReader;
+
+public class FeedPollerTest {
+
+	private static final Feed FEED = new Feed("all", "hour");
+	private static final List<FeedDelta> deltas = new CopyOnWriteArrayList<>();
+	private static final CountDownLatch firstPoll = new CountDownLatch(1);
+	private static FakeFeed feed;
+	private static FeedPoller poller;
+
+	@BeforeClass
+	public static void setup() throws InterruptedException {
+		feed = new FakeFeed(collection(feature("a", 1), feature("b", 1)), "\"v1\"");
+		poller = new FeedPoller(feed.reader(), 1, TimeUnit.HOURS);
+		poller.subscribe(FEED, delta -> {
+			deltas.add(delta);
+			firstPoll.countDown();
+		});
+
+		assert firstPoll.await(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testFirstPollInsertsEverything() {
+		final FeedDelta first = deltas.get(0);
+		assert first.getFeed().equals(FEED);
+		assert first.getInserted().size() == 2;
+		assert first.getUpdated().isEmpty() && first.getRemoved().isEmpty();
+	}
+
+	@Test
+	public void testDeltas() throws IOException {
+		feed.update(collection(feature("a", 1), feature("b", 2), feature("c", 1)), "\"v2\"");
+		FeedDelta delta = poller.poll(FEED);
+
+		assert delta.getInserted().size() == 1 && delta.getInserted().get(0).getId().equals("c");
+		assert delta.getUpdated().size() == 1 && delta.getUpdated().get(0).getId().equals("b");
+		assert delta.getRemoved().isEmpty();
+
+		feed.update(collection(feature("b", 2), feature("c", 1)), "\"v3\"");
+		delta = poller.poll(FEED);
+
+		assert delta.getInserted().isEmpty() && delta.getUpdated().isEmpty();
+		assert delta.getRemoved().size() == 1 && delta.getRemoved().get(0).getId().equals("a");
+		assert deltas.contains(delta);
+	}
+
+	@Test
+	public void testNotModified() throws IOException {
+		final int before = deltas.size();
+		final int downloads = feed.getDownloads();
+		final FeedDelta delta = poller.poll(FEED);
+
+		assert delta.isEmpty();
+		assert deltas.size() == before;
+		assert feed.getDownloads() == downloads;
+	}
+
+	@Test
+	public void testValidatorsAreKeptPerSubscription() throws IOException, InterruptedException {
+		final FakeFeed shared = new FakeFeed(collection(feature("a", 1)), "\"v1\"");
+		final JsonReader reader = shared.reader();
+		final CountDownLatch polled = new CountDownLatch(1);
+		try(FeedPoller first = new FeedPoller(reader, 1, TimeUnit.HOURS)) {
+			first.subscribe(FEED, delta -> polled.countDown());
+			assert polled.await(10, TimeUnit.SECONDS);
+
+			// someone else fetches the update through the same reader first
+			shared.update(collection(feature("a", 1), feature("b", 1)), "\"v2\"");
+			reader.get(FEED.getUrl());
+
+			final FeedDelta delta = first.poll(FEED);
+			assert delta.getInserted().size() == 1 && delta.getInserted().get(0).getId().equals("b");
+		}
+	}
+
+	@Test
+	public void testLateListenerGetsCurrentFeed() throws IOException, InterruptedException {
+		final FakeFeed polled = new FakeFeed(collection(feature("a", 1), feature("b", 1)), "\"v1\"");
+		final CountDownLatch first = new CountDownLatch(1);
+		final CountDownLatch joined = new CountDownLatch(1);
+		final List<FeedDelta> late = new CopyOnWriteArrayList<>();
+		try(FeedPoller own = new FeedPoller(polled.reader(), 1, TimeUnit.HOURS)) {
+			own.subscribe(FEED, delta -> first.countDown());
+			assert first.await(10, TimeUnit.SECONDS);
+
+			own.subscribe(FEED, delta -> {
+				late.add(delta);
+				joined.countDown();
+			});
+			assert joined.await(10, TimeUnit.SECONDS);
+			assert late.get(0).getInserted().size() == 2;
+			assert late.get(0).getUpdated().isEmpty() && late.get(0).getRemoved().isEmpty();
+
+			// later polls only send what changed
+			polled.update(collection(feature("a", 1), feature("b", 1), feature("c", 1)), "\"v2\"");
+			own.poll(FEED);
+			assert late.size() == 2 && late.get(1).getInserted().size() == 1;
+			assert polled.getDownloads() == 2;
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPollUnsubscribed() throws IOException {
+		poller.poll(new Feed("significant", "month"));
+	}
+
+	@Test
+	public void testUnsubscribe() {
+		final FeedListener listener = delta -> {};
+		final Feed other = new Feed("significant", "day");
+		poller.subscribe(other, listener);
+		poller.unsubscribe(other, listener);
+
+		try {
+			poller.poll(other);
+			assert false;
+		} catch(IllegalArgumentException | IOException e) {
+			assert e instanceof IllegalArgumentException;
+		}
+	}
+
+	@Test
+	public void testResubscribe() throws IOException {
+		final FeedListener listener = delta -> {};
+		final Feed other = new Feed("significant", "week");
+		poller.subscribe(other, listener);
+		poller.unsubscribe(other, listener);
+		poller.unsubscribe(other, listener);
+
+		poller.subscribe(other, listener);
+		assert poller.poll(other) != null;
+		poller.unsubscribe(other, listener);
+	}
+
+	@Test
+	public void testSubscribeAfterClose() {
+		final FeedListener listener = delta -> {};
+		final FeedPoller closed = new FeedPoller(feed.reader(), 1, TimeUnit.HOURS);
+		closed.close();
+
+		try {
+			closed.subscribe(FEED, listener);
+			assert false;
+		} catch(RejectedExecutionException e) {
+			// nothing was registered, so there is nothing to cancel
+			closed.unsubscribe(FEED, listener);
+		}
+	}
+
+	@AfterClass
+	public static void cleanup() {
+		poller.close();
+	}
+
+	private static String collection(String... features) {
+		return "{\"type\":\"FeatureCollection\",\"metadata\":{\"generated\":1},\"features\":["
+				+ String.join(",", features) + "]}";
+	}
+
+	private static String feature(String id, long updated) {
+		return "{\"type\":\"Feature\",\"properties\":{\"mag\":1.5,\"time\":100,\"updated\":" + updated
+				+ ",\"title\":\"M 1.5 - " + id + "\"},\"geometry\":{\"type\":\"Point\",\"coordinates\":[1,2,3]},\"id\":\"" + id + "\"}";
+	}
+
+}
@@ -0,0 +1,81 @@
+package edu.sdsu.watcher.quake.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.sdsu.watcher.quake.Coordinate;
+import edu.sdsu.watcher.quake.Earthquake;
+
+public class EarthquakeStoreTest {
+
+	private static final List<Earthquake> quakes = new ArrayList<>();
+	private static EarthquakeStore store;
+
+	@BeforeClass
+	public static void setup() {
+		for(int i = 0; i < 500; i++) {
+			quakes.add(new Earthquake(new Coordinate(-117 + i * 0.01, 32 + i * 0.01, i % 20), 1 + (i % 40) / 10.0,
+					"M 1.0 - " + (i % 25) + "km N of Borrego Springs, CA", "ci" + i, 1461399586000L + i));
+		}
+
+		store = new EarthquakeStore(4);
+		store.addAll(quakes);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		assert store.size() == quakes.size();
+		for(int i = 0; i < quakes.size(); i++) {
+			assert store.view(i).toEarthquake().equals(quakes.get(i));
+		}
+	}
+
+	@Test
+	public void testViewReadsColumns() {
+		final EarthquakeStore.View view = store.view(42);
+		final Earthquake quake = quakes.get(42);
+
+		assert view.getIndex() == 42;
+		assert view.getLongitude() == quake.getCoordinate().getLongitude();
+		assert view.getLatitude() == quake.getCoordinate().getLatitude();
+		assert view.getDepth() == quake.getCoordinate().getDepth();
+		assert view.getMagnitude() == quake.getMagnitude();
+		assert view.getTime() == quake.getTime();
+		assert view.getId().equals(quake.getId());
+		assert view.getDescription().equals(quake.getDescription());
+	}
+
+	@Test
+	public void testForEachReusesView() {
+		final List<EarthquakeStore.View> seen = new ArrayList<>();
+		final double[] total = {0};
+		store.forEach(view -> {
+			if(seen.isEmpty() || seen.get(0) != view) {
+				seen.add(view);
+			}
+			total[0] += view.getMagnitude();
+		});
+
+		assert seen.size() == 1;
+		assert total[0] == quakes.stream().mapToDouble(Earthquake::getMagnitude).sum();
+	}
+
+	@Test
+	public void testNullDescription() {
+		final EarthquakeStore small = new EarthquakeStore();
+		final int index = small.add(1, 2, 3, 4, null, "id", 5);
+		small.trimToSize();
+
+		assert small.size() == 1;
+		assert small.view(index).getDescription() == null;
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testViewOutOfBounds() {
+		store.view(store.size());
+	}
+
+}
@@ -0,0 +1,94 @@
+package edu.sdsu.watcher.quake.structures;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import edu.sdsu.watcher.quake.factories.DecodeJson;
+
+public class QuakeStructAdapterFactoryTest {
+
+	private static final Gson gson = new GsonBuilder().registerTypeAdapterFactory(new QuakeStructAdapterFactory()).create();
+	private static QuakeStruct struct = null;
+
+	@BeforeClass
+	public static void setup() throws IOException {
+		final File resource = new File(QuakeStruct.class.getClassLoader().getResource("all_hour.json").getFile());
+		struct = DecodeJson.parse(resource, QuakeStruct.class);
+	}
+
+	@Test
+	public void testIgnoresOtherTypes() {
+		assert gson.fromJson("\"abc\"", String.class).equals("abc");
+	}
+
+	@Test
+	public void testRoundTrip() {
+		final QuakeStruct copy = gson.fromJson(gson.toJson(struct), QuakeStruct.class);
+		final QuakeStruct.Features feature = copy.getFeatures().get(1);
+		final QuakeStruct.Features original = struct.getFeatures().get(1);
+
+		assert copy.getMetadata().getGenerated() == struct.getMetadata().getGenerated();
+		assert copy.getFeatures().size() == struct.getFeatures().size();
+		assert copy.getBbox().equals(struct.getBbox());
+		assert feature.getId().equals(original.getId());
+		assert feature.getProperties().getTitle().equals(original.getProperties().getTitle());
+		assert feature.getProperties().getUpdated() == original.getProperties().getUpdated();
+		assert feature.getGeometry().getCoordinates().equals(original.getGeometry().getCoordinates());
+	}
+
+	@Test
+	public void testLowCardinalityValuesAreShared() {
+		final QuakeStruct.Features.Properties first = struct.getFeatures().get(0).getProperties();
+		final QuakeStruct.Features.Properties second = struct.getFeatures().get(1).getProperties();
+
+		assert first.getStatus() == second.getStatus();
+		assert first.getType() == second.getType();
+		assert first.getTypes() == second.getTypes();
+		assert struct.getFeatures().get(0).getType() == struct.getFeatures().get(1).getType();
+		assert first.getNet().equals("ci") && second.getNet().equals("nc");
+	}
+
+	@Test
+	public void testSkipsUnknownKeys() {
+		final QuakeStruct.Features feature = gson.fromJson(
+				"{\"id\":\"a\",\"extra\":{\"nested\":[1,2,{\"x\":null}]},\"properties\":{\"mag\":2.5,\"magType\":\"ml\"}}",
+				QuakeStruct.Features.class
+		);
+
+		assert feature.getId().equals("a");
+		assert feature.getProperties().getMag() == 2.5;
+		assert feature.getGeometry() == null;
+	}
+
+	@Test
+	public void testNullValuesKeepDefaults() {
+		final QuakeStruct.Features.Properties properties = gson.fromJson(
+				"{\"felt\":null,\"cdi\":null,\"alert\":null,\"tsunami\":1}",
+				QuakeStruct.Features.Properties.class
+		);
+
+		assert properties.getFelt() == 0;
+		assert properties.getCdi() == 0;
+		assert properties.getAlert() == null;
+		assert properties.getTsunami() == 1;
+	}
+
+	@Test
+	public void testPrimitiveCoordinates() {
+		final QuakeStruct.Features.Geometry geometry = struct.getFeatures().get(0).getGeometry();
+		assert geometry.getLongitude() == -116.9568333;
+		assert geometry.getLatitude() == 33.7033333;
+		assert geometry.getDepth() == 15.06;
+	}
+
+	@Test
+	public void testNullStruct() {
+		assert gson.fromJson("null", QuakeStruct.class) == null;
+	}
+
+}
@@ -0,0 +1,48 @@
+package edu.sdsu.watcher.quake.structures;
+
+import org.junit.Test;
+
+public class StringDictionaryTest {
+
+	@Test
+	public void testSharesEqualValues() {
+		final StringDictionary dictionary = new StringDictionary(8, 16);
+		final String first = dictionary.intern(new String("reviewed"));
+		final String second = dictionary.intern(new String("reviewed"));
+
+		assert first == second;
+		assert dictionary.size() == 1;
+	}
+
+	@Test
+	public void testNull() {
+		assert new StringDictionary(8, 16).intern(null) == null;
+	}
+
+	@Test
+	public void testLongValuesAreNotKept() {
+		final StringDictionary dictionary = new StringDictionary(8, 4);
+		final String value = new String("automatic");
+
+		assert dictionary.intern(value) == value;
+		assert dictionary.size() == 0;
+	}
+
+	@Test
+	public void testSizeIsBounded() {
+		final StringDictionary dictionary = new StringDictionary(2, 16);
+		dictionary.intern("ci");
+		dictionary.intern("nc");
+		final String value = new String("ak");
+
+		assert dictionary.intern(value) == value;
+		assert dictionary.intern(new String("ci")) == dictionary.intern("ci");
+		assert dictionary.size() == 2;
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSize() {
+		new StringDictionary(0, 16);
+	}
+
+}